@@ -0,0 +1,65 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.obj.LinearBVH;
+import com.wombatsw.raytracing.obj.SplitMethod;
+import com.wombatsw.raytracing.scene.Scene;
+import com.wombatsw.raytracing.scene.generators.CornellBoxScene;
+import com.wombatsw.raytracing.scene.generators.RandomSpheresScene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmarks for small renders of the generated scenes, in camera samples per second. Each sample is a
+ * full path, so this includes scattering, textures and the BVH.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 36;
+    private static final int SAMPLES = 16;
+
+    @Param({"CornellBox", "RandomSpheres"})
+    private String scene;
+
+    private LinearBVH world;
+    private Camera camera;
+    private Renderer renderer;
+
+    @Setup
+    public void setup() {
+        Scene generator = scene.equals("CornellBox") ? new CornellBoxScene() : new RandomSpheresScene();
+        world = new LinearBVH(generator.getWorld(), SplitMethod.SAH);
+
+        camera = generator.getCamera();
+        camera.setAspectRatio((double) WIDTH / HEIGHT);
+        camera.setImageWidth(WIDTH);
+
+        renderer = new Renderer();
+        renderer.setAntialiasRandom(SAMPLES);
+        renderer.setMaxDepth(20);
+        renderer.setRussianRouletteDepth(3);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WIDTH * HEIGHT * SAMPLES)
+    public HDRImage render() {
+        return renderer.render(world, camera);
+    }
+}
@@ -0,0 +1,75 @@
+package com.wombatsw.raytracing.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * Benchmarks for the {@link Triplet}, {@link BoundingBox} and {@link Affine} math used on every ray
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+    private Ray[] rays;
+    private BoundingBox box;
+    private Affine affine;
+    private Triplet a;
+    private Triplet b;
+
+    @Setup
+    public void setup() {
+        rays = RayBatch.create(new Triplet(0, 0, 10), new Triplet(-2, -2, -2), new Triplet(2, 2, 2));
+        box = new BoundingBox(new Triplet(-1, -1, -1), new Triplet(1, 1, 1));
+        affine = new Affine().rotateY(30).rotateX(15).translate(new Triplet(1, 2, 3));
+        a = new Triplet(0.3, 0.5, 0.7);
+        b = new Triplet(-0.2, 0.9, 0.4);
+    }
+
+    /**
+     * The vector operations used when scattering a ray
+     */
+    @Benchmark
+    public Triplet tripletArithmetic() {
+        return a.cross(b).add(a).mul(0.5).sub(b).addScaled(a, 0.25).normalize();
+    }
+
+    @Benchmark
+    public double tripletDot() {
+        return a.dot(b);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void boundingBoxIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(box.intersect(ray, 0, POSITIVE_INFINITY));
+        }
+    }
+
+    @Benchmark
+    public Triplet affineApplyPoint() {
+        return affine.apply(a, true);
+    }
+
+    @Benchmark
+    public Triplet affineApplyVector() {
+        return affine.apply(a, false);
+    }
+}
@@ -0,0 +1,42 @@
+package com.wombatsw.raytracing.model;
+
+import java.util.Random;
+
+/**
+ * A fixed set of rays for benchmarks. The rays start at a common origin and point at random targets inside a box,
+ * similar to primary rays from a camera looking at a scene. A fixed seed keeps the rays the same between runs.
+ */
+public final class RayBatch {
+    /**
+     * The number of rays in each batch. Benchmarks that trace a whole batch per invocation report rays per second
+     */
+    public static final int SIZE = 1024;
+
+    private RayBatch() {
+    }
+
+    /**
+     * Create a batch of rays
+     *
+     * @param origin    The origin of the rays
+     * @param targetMin The minimum corner of the box containing the targets
+     * @param targetMax The maximum corner of the box containing the targets
+     * @return The rays
+     */
+    public static Ray[] create(final Triplet origin, final Triplet targetMin, final Triplet targetMax) {
+        Random random = new Random(1);
+        Ray[] rays = new Ray[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            Triplet target = new Triplet(
+                    lerp(random, targetMin.getX(), targetMax.getX()),
+                    lerp(random, targetMin.getY(), targetMax.getY()),
+                    lerp(random, targetMin.getZ(), targetMax.getZ()));
+            rays[i] = new Ray(origin, target.sub(origin).normalize());
+        }
+        return rays;
+    }
+
+    private static double lerp(final Random random, final double min, final double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+}
@@ -0,0 +1,107 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.RayBatch;
+import com.wombatsw.raytracing.model.Triplet;
+import com.wombatsw.raytracing.scene.generators.CornellBoxScene;
+import com.wombatsw.raytracing.scene.generators.RandomSpheresScene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+
+/**
+ * Benchmarks for finding the closest intersection, or any intersection for shadow rays, in the bundled scenes, in
+ * rays per second
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BVHBenchmark {
+    private static final Interval RANGE = new Interval(EPSILON, Double.POSITIVE_INFINITY);
+
+    @Param({"CornellBox", "RandomSpheres"})
+    private String scene;
+
+    @Param({"MEDIAN", "SAH"})
+    private SplitMethod splitMethod;
+
+    private Ray[] rays;
+    private BVHNode bvhNode;
+    private LinearBVH linearBVH;
+    private LinearBVH qbvh;
+
+    @Setup
+    public void setup() {
+        ObjectList world;
+        if (scene.equals("CornellBox")) {
+            world = new CornellBoxScene().getWorld();
+            rays = RayBatch.create(new Triplet(278, 278, -800), new Triplet(0, 0, 0), new Triplet(555, 555, 555));
+        } else {
+            world = new RandomSpheresScene().getWorld();
+            rays = RayBatch.create(new Triplet(13, 2, 3), new Triplet(-11, 0, -11), new Triplet(11, 2, 11));
+        }
+        bvhNode = new BVHNode(world, splitMethod);
+        linearBVH = new LinearBVH(world, splitMethod);
+        BVHBuilder builder = new BVHBuilder(splitMethod);
+        builder.setWidth(BVHWidth.QUAD);
+        qbvh = new LinearBVH(world.getList(), builder);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void bvhNodeIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(bvhNode.intersect(ray, RANGE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void linearBVHIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(linearBVH.intersect(ray, RANGE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void linearBVHOccluded(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(linearBVH.occluded(ray, RANGE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void qbvhIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(qbvh.intersect(ray, RANGE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void qbvhOccluded(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(qbvh.occluded(ray, RANGE));
+        }
+    }
+}
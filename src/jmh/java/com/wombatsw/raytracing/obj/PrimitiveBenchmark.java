@@ -0,0 +1,76 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.RayBatch;
+import com.wombatsw.raytracing.model.Triplet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+
+/**
+ * Benchmarks for intersecting rays with single primitives, in rays per second. About half of the rays hit
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveBenchmark {
+    private static final Interval RANGE = new Interval(EPSILON, Double.POSITIVE_INFINITY);
+
+    private Ray[] rays;
+    private Sphere sphere;
+    private Quad quad;
+    private Triangle triangle;
+
+    @Setup
+    public void setup() {
+        Material material = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+        rays = RayBatch.create(new Triplet(0, 0, 10), new Triplet(-1.4, -1.4, 0), new Triplet(1.4, 1.4, 0));
+        sphere = new Sphere(new Triplet(0, 0, 0), 1, material);
+        quad = new Quad(new Triplet(-1, -1, 0), new Triplet(2, 0, 0), new Triplet(0, 1.4, 0), material);
+        triangle = new Triangle(new Triplet(-1.4, -1.4, 0), new Triplet(1.4, -1.4, 0), new Triplet(0, 1.4, 0),
+                material);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void sphereIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(sphere.intersect(ray, RANGE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void quadIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(quad.intersect(ray, RANGE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void triangleIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(triangle.intersect(ray, RANGE));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.RayBatch;
+import com.wombatsw.raytracing.model.Triplet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * Benchmarks for testing a ray against a group of {@value WideBoxTest#WIDTH} boxes, with each {@link BoxTestMode},
+ * compared with testing the same boxes one at a time. Results are rays per second
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WideBoxBenchmark {
+    @Param({"SCALAR", "VECTOR"})
+    private BoxTestMode mode;
+
+    private Ray[] rays;
+    private WideBoxTest boxTest;
+    private double[] bounds;
+    private double[] group;
+    private double[] tNear;
+
+    @Setup
+    public void setup() {
+        rays = RayBatch.create(new Triplet(0, 0, 10), new Triplet(-2, -2, -2), new Triplet(2, 2, 2));
+        boxTest = WideBoxTest.create(mode);
+        if (boxTest.getMode() != mode) {
+            throw new IllegalStateException("Box test mode " + mode + " is not available");
+        }
+
+        // The 4 quadrants of the target area, as the children of a node would split it
+        bounds = new double[WideBoxTest.WIDTH * 6];
+        group = new double[WideBoxTest.STRIDE];
+        for (int lane = 0; lane < WideBoxTest.WIDTH; lane++) {
+            double x = (lane & 1) * 2 - 2;
+            double y = (lane >> 1) * 2 - 2;
+            double[] box = {x, y, -2, x + 2, y + 2, 2};
+            System.arraycopy(box, 0, bounds, lane * 6, 6);
+            WideBoxTest.setBox(group, 0, lane, bounds, lane * 6);
+        }
+        tNear = new double[WideBoxTest.WIDTH];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void wideBoxIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(boxTest.intersect(group, 0, ray, 0, POSITIVE_INFINITY, tNear));
+        }
+    }
+
+    /**
+     * The same boxes tested one at a time. This does not depend on the mode
+     */
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void boundingBoxIntersectEach(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            for (int lane = 0; lane < WideBoxTest.WIDTH; lane++) {
+                blackhole.consume(BoundingBox.intersect(bounds, lane * 6, ray, 0, POSITIVE_INFINITY));
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.RayBatch;
+import com.wombatsw.raytracing.model.Triplet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * Benchmarks for testing a ray against a leaf of {@value #LEAF_SIZE} spheres, the leaf size of {@link SphereSet},
+ * with each {@link BoxTestMode}, compared with testing the same spheres one at a time. Results are rays per second
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WideSphereBenchmark {
+    private static final int LEAF_SIZE = 8;
+
+    @Param({"SCALAR", "VECTOR"})
+    private BoxTestMode mode;
+
+    private Ray[] rays;
+    private WideSphereTest sphereTest;
+    private double[][] arrays;
+    private Sphere[] spheres;
+
+    @Setup
+    public void setup() {
+        rays = RayBatch.create(new Triplet(0, 0, 10), new Triplet(-2, -1, 0), new Triplet(2, 1, 0));
+        sphereTest = WideSphereTest.create(mode);
+        if (sphereTest.getMode() != mode) {
+            throw new IllegalStateException("Sphere test mode " + mode + " is not available");
+        }
+
+        // A row of overlapping spheres, so that rays hit some of them and miss others
+        List<Sphere> row = new ArrayList<>();
+        for (int i = 0; i < LEAF_SIZE; i++) {
+            row.add(new Sphere(new Triplet(i * 0.4 - 1.4, (i & 1) * 0.5 - 0.25, 0), 0.35, null));
+        }
+        SphereSet sphereSet = new SphereSet(row);
+        arrays = sphereSet.getArrays();
+        spheres = sphereSet.getSpheres().toArray(new Sphere[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void wideSphereIntersect(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            blackhole.consume(sphereTest.intersect(arrays, 0, LEAF_SIZE, ray, EPSILON, POSITIVE_INFINITY));
+        }
+    }
+
+    /**
+     * The same spheres tested one at a time. This does not depend on the mode
+     */
+    @Benchmark
+    @OperationsPerInvocation(RayBatch.SIZE)
+    public void sphereHitEach(final Blackhole blackhole) {
+        for (Ray ray : rays) {
+            HitRecord record = new HitRecord(POSITIVE_INFINITY);
+            for (Sphere sphere : spheres) {
+                sphere.hit(ray, EPSILON, record);
+            }
+            blackhole.consume(record.getT());
+        }
+    }
+}
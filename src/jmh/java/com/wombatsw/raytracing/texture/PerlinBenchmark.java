@@ -0,0 +1,45 @@
+package com.wombatsw.raytracing.texture;
+
+import com.wombatsw.raytracing.model.Triplet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Perlin} noise
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerlinBenchmark {
+    private Perlin perlin;
+    private Triplet p;
+
+    @Setup
+    public void setup() {
+        perlin = new Perlin();
+        p = new Triplet(1.3, 2.7, -0.4);
+    }
+
+    @Benchmark
+    public double noise() {
+        return perlin.noise(p);
+    }
+
+    @Benchmark
+    public double turbulence() {
+        return perlin.turbulence(p, 7);
+    }
+}
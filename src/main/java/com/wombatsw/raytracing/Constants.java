@@ -6,4 +6,9 @@ public class Constants {
     public static final double EPSILON = 1e-8;
 
     public static final Interval UNIT_INTERVAL = new Interval(0.0, 1.0);
+
+    /**
+     * The range of a ray that is checked for intersections, excluding hits at the origin of the ray
+     */
+    public static final Interval RAY_RANGE = new Interval(EPSILON, Double.POSITIVE_INFINITY);
 }
@@ -2,8 +2,9 @@ package com.wombatsw.raytracing;
 
 import com.wombatsw.raytracing.engine.Camera;
 import com.wombatsw.raytracing.engine.Renderer;
-import com.wombatsw.raytracing.obj.AbstractObj;
-import com.wombatsw.raytracing.obj.BVHNode;
+import com.wombatsw.raytracing.engine.SamplerType;
+import com.wombatsw.raytracing.obj.LinearBVH;
+import com.wombatsw.raytracing.obj.SplitMethod;
 import com.wombatsw.raytracing.output.ImageWriter;
 import com.wombatsw.raytracing.output.PPMImageWriter;
 import com.wombatsw.raytracing.scene.Scene;
@@ -14,6 +15,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Ray Tracer command line application
@@ -45,19 +47,27 @@ public class RayTracerApp implements CommandLineRunner {
         String selection = SCENES[0];
         Scene scene = sceneSelector.getScene(selection);
 
-        AbstractObj world = new BVHNode(scene.getWorld());
+        LinearBVH world = new LinearBVH(scene.getWorld(), SplitMethod.SAH);
 
         Camera camera = scene.getCamera();
         camera.setAspectRatio(16.0 / 9.0);
         camera.setImageWidth(400);
 
         Renderer renderer = new Renderer();
-        renderer.setAntialiasRandom(40);
         renderer.setMaxDepth(20);
+        renderer.setRussianRouletteDepth(3);
+        renderer.setAntialiasAdaptive(10, 40, 0.05);
+        renderer.setSamplerType(SamplerType.SOBOL);
 
-        byte[] imageData = renderer.render(world, camera);
-
+        // Render up to 40 samples per pixel in passes of 5, updating the image after each pass
         ImageWriter writer = new PPMImageWriter();
-        writer.write(new File("test.ppm"), camera.getImageWidth(), camera.getImageHeight(), imageData);
+        File file = new File("test.ppm");
+        renderer.renderProgressive(world, camera, 8, 5, (pass, samples, image) -> {
+            try {
+                writer.write(file, image);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot write image file: " + file, e);
+            }
+        });
     }
 }
@@ -0,0 +1,124 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.Getter;
+
+/**
+ * A buffer which accumulates the sum of the samples taken for each pixel, along with the number of samples, so an
+ * image can be produced at any point while rendering continues
+ */
+public class AccumulationBuffer {
+    @Getter
+    private final int width;
+    @Getter
+    private final int height;
+
+    /**
+     * The sum of the sample colors, stored as (r, g, b) for each pixel in row-major order
+     */
+    private final float[] sums;
+
+    /**
+     * The sum of the squared sample luminances for each pixel in row-major order, used for the variance estimate
+     */
+    private final float[] luminanceSquares;
+
+    /**
+     * The number of samples for each pixel in row-major order
+     */
+    private final int[] counts;
+
+    /**
+     * Create an empty buffer
+     *
+     * @param width  The image width
+     * @param height The image height
+     */
+    public AccumulationBuffer(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        sums = new float[width * height * 3];
+        luminanceSquares = new float[width * height];
+        counts = new int[width * height];
+    }
+
+    /**
+     * Add samples to a pixel
+     *
+     * @param x                The raster x coordinate
+     * @param y                The raster y coordinate
+     * @param sum              The sum of the sample colors
+     * @param luminanceSquares The sum of the squared sample luminances. See {@link AdaptiveSampling#luminance}
+     * @param samples          The number of samples
+     */
+    public void add(final int x, final int y, final Triplet sum, final double luminanceSquares, final int samples) {
+        int pixel = y * width + x;
+        sums[pixel * 3] += (float) sum.getX();
+        sums[pixel * 3 + 1] += (float) sum.getY();
+        sums[pixel * 3 + 2] += (float) sum.getZ();
+        this.luminanceSquares[pixel] += (float) luminanceSquares;
+        counts[pixel] += samples;
+    }
+
+    /**
+     * Check whether a pixel has enough samples
+     *
+     * @param x        The raster x coordinate
+     * @param y        The raster y coordinate
+     * @param adaptive The adaptive sampling settings
+     * @return Whether sampling should stop
+     */
+    public boolean isConverged(final int x, final int y, final AdaptiveSampling adaptive) {
+        int pixel = y * width + x;
+        int count = counts[pixel];
+        if (count < 2) {
+            return adaptive.isConverged(count, 0, 0);
+        }
+        double mean = AdaptiveSampling.luminance(sums[pixel * 3], sums[pixel * 3 + 1], sums[pixel * 3 + 2]) / count;
+        double variance = Math.max(0, (luminanceSquares[pixel] - count * mean * mean) / (count - 1));
+        return adaptive.isConverged(count, mean, variance);
+    }
+
+    /**
+     * Get the number of samples taken for a pixel
+     *
+     * @param x The raster x coordinate
+     * @param y The raster y coordinate
+     * @return The number of samples
+     */
+    public int getSamples(final int x, final int y) {
+        return counts[y * width + x];
+    }
+
+    /**
+     * Get the mean color of a pixel
+     *
+     * @param x     The raster x coordinate
+     * @param y     The raster y coordinate
+     * @param color The triplet to store the color in
+     * @return The color, or black if the pixel has no samples
+     */
+    public Triplet getColor(final int x, final int y, final Triplet color) {
+        int pixel = y * width + x;
+        int count = Math.max(1, counts[pixel]);
+        return color.set(sums[pixel * 3] / (double) count,
+                sums[pixel * 3 + 1] / (double) count,
+                sums[pixel * 3 + 2] / (double) count);
+    }
+
+    /**
+     * Create an image from the current mean color and sample count of each pixel
+     *
+     * @return The image
+     */
+    public HDRImage toImage() {
+        HDRImage image = new HDRImage(width, height);
+        Triplet color = Triplet.newZeroVector();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setColor(x, y, getColor(x, y, color), getSamples(x, y));
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,73 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.model.Triplet;
+
+/**
+ * Settings for adaptive sampling. Pixels are sampled until the standard error of the mean luminance of their
+ * samples drops below a fraction of the mean, so smooth regions such as the background stop early while noisy
+ * regions get more samples. A pixel where no sample found any light is never considered converged before the
+ * maximum, since a few samples can't tell a dark pixel from one that is lit by a light which is hard to reach.
+ *
+ * @param minSamples The minimum number of samples per pixel, which must be at least 2 for a variance estimate
+ * @param maxSamples The maximum number of samples per pixel
+ * @param threshold  The maximum relative standard error of the mean luminance
+ */
+public record AdaptiveSampling(int minSamples, int maxSamples, double threshold) {
+    /**
+     * The smallest mean luminance used for the relative error, so dark pixels don't sample forever
+     */
+    private static final double MIN_LUMINANCE = 0.05;
+
+    public AdaptiveSampling {
+        if (minSamples < 2 || maxSamples < minSamples) {
+            throw new IllegalArgumentException("Adaptive sampling requires 2 <= minSamples <= maxSamples");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Adaptive sampling threshold must be positive");
+        }
+    }
+
+    /**
+     * Check whether a pixel has enough samples
+     *
+     * @param count    The number of samples
+     * @param mean     The mean luminance of the samples
+     * @param variance The sample variance of the luminance
+     * @return Whether sampling should stop
+     */
+    public boolean isConverged(final int count, final double mean, final double variance) {
+        if (count < minSamples) {
+            return false;
+        }
+        if (count >= maxSamples) {
+            return true;
+        }
+        if (mean <= 0) {
+            return false;
+        }
+        double error = Math.sqrt(variance / count);
+        return error <= threshold * Math.max(mean, MIN_LUMINANCE);
+    }
+
+    /**
+     * Get the luminance of a linear RGB color
+     *
+     * @param color The color
+     * @return The luminance
+     */
+    public static double luminance(final Triplet color) {
+        return luminance(color.getX(), color.getY(), color.getZ());
+    }
+
+    /**
+     * Get the luminance of a linear RGB color
+     *
+     * @param r The red component
+     * @param g The green component
+     * @param b The blue component
+     * @return The luminance
+     */
+    public static double luminance(final double r, final double g, final double b) {
+        return 0.2126 * r + 0.7152 * g + 0.0722 * b;
+    }
+}
@@ -48,13 +48,7 @@ public class AntiAlias {
     public void initialize(final Viewport viewport) {
         this.viewport = viewport;
 
-        if (randomSamples > 0) {
-            viewportOffsets = IntStream.range(0, randomSamples)
-                    .mapToObj(i -> getOffset(
-                            MathUtils.randomDouble() - 0.5,
-                            MathUtils.randomDouble() - 0.5))
-                    .toList();
-        } else {
+        if (randomSamples == 0) {
             viewportOffsets = new ArrayList<>(xOffsets.length * yOffsets.length);
             for (double yOffset : yOffsets) {
                 for (double xOffset : xOffsets) {
@@ -65,19 +59,47 @@ public class AntiAlias {
     }
 
     /**
-     * Get a set of pixels near the indicated coordinates. The pixels are chosen based on the antialias settings
+     * @return The number of samples per pixel
+     */
+    public int getSampleCount() {
+        return randomSamples > 0 ? randomSamples : xOffsets.length * yOffsets.length;
+    }
+
+    /**
+     * Get a sampling point near the indicated pixel. Grid sampling uses the same offsets for every pixel, and random
+     * sampling takes the offset from the sampler, see {@link #getJitteredPoint}
+     *
+     * @param x       The x coordinate
+     * @param y       The y coordinate
+     * @param sample  The index of the sample, less than {@link #getSampleCount()}
+     * @param sampler The sampler for the current sample
+     * @return The pixel location in viewport coordinates
+     */
+    public Triplet getSamplePoint(final int x, final int y, final int sample, final Sampler sampler) {
+        if (randomSamples > 0) {
+            return getJitteredPoint(x, y, sampler);
+        }
+        return viewport.getPixelOrigin().copy()
+                .addScaled(viewport.getPixelDU(), x, viewport.getPixelDV(), y)
+                .add(viewportOffsets.get(sample))
+                .setImmutable();
+    }
+
+    /**
+     * Get a point within the indicated pixel, with the offset taken from the next pair of dimensions of the sampler
      *
-     * @param x The x coordinate
-     * @param y The y coordinate
-     * @return The pixel locations in viewport coordinates
+     * @param x       The x coordinate
+     * @param y       The y coordinate
+     * @param sampler The sampler for the current sample
+     * @return The pixel location in viewport coordinates
      */
-    public List<Triplet> getSamplingPoints(final int x, final int y) {
-        return viewportOffsets.stream()
-                .map(offset -> viewport.getPixelOrigin().copy()
-                        .addScaled(viewport.getPixelDU(), x, viewport.getPixelDV(), y)
-                        .add(offset)
-                        .setImmutable())
-                .toList();
+    public Triplet getJitteredPoint(final int x, final int y, final Sampler sampler) {
+        Sampler.Sample2D offset = sampler.get2D();
+        double dx = offset.u() - 0.5;
+        double dy = offset.v() - 0.5;
+        return viewport.getPixelOrigin().copy()
+                .addScaled(viewport.getPixelDU(), x + dx, viewport.getPixelDV(), y + dy)
+                .setImmutable();
     }
 
     /**
@@ -87,21 +87,23 @@ public class Camera {
      * Defocus the image by moving the origin of the ray by a random amount. Will use camera center as-is if defocus
      * is not enabled (defocusAngle <= 0)
      *
-     * @param point The point on the viewport
+     * @param point   The point on the viewport
+     * @param sampler The sampler for the current sample, which provides the lens position and the ray time
      * @return The defocused ray
      */
-    public Ray getRayForPoint(final Triplet point) {
+    public Ray getRayForPoint(final Triplet point, final Sampler sampler) {
         Triplet rayOrigin;
         if (defocusAngle <= 0) {
             rayOrigin = cameraCenter;
         } else {
             // Defocus the image by moving the origin of the ray by a random amount
-            Triplet v = Triplet.randomInUnitDisc();
+            Sampler.Sample2D lens = sampler.get2D();
+            Triplet v = Triplet.inUnitDisc(lens.u(), lens.v());
             rayOrigin = cameraCenter.copy()
                     .addScaled(defocusDiskU, v.getX(), defocusDiskV, v.getY());
         }
         Triplet rayDir = new Triplet(point, rayOrigin);
-        double rayTime = MathUtils.randomDouble();
+        double rayTime = sampler.get1D();
 
         return new Ray(rayOrigin, rayDir, rayTime);
     }
@@ -0,0 +1,116 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.Getter;
+
+/**
+ * A high dynamic range image of linear RGB colors, which is the result of a render. Colors are not clamped or
+ * gamma corrected, see {@link ToneMapper} for converting to 8 bits per channel. Each pixel keeps the number of samples
+ * its color is the mean of, so images rendered separately for the same view can be merged.
+ */
+public class HDRImage {
+    @Getter
+    private final int width;
+    @Getter
+    private final int height;
+
+    /**
+     * The mean color, stored as (r, g, b) for each pixel in row-major order
+     */
+    private final float[] colors;
+
+    /**
+     * The number of samples for each pixel in row-major order
+     */
+    private final int[] samples;
+
+    /**
+     * Create a black image with no samples
+     *
+     * @param width  The image width
+     * @param height The image height
+     */
+    public HDRImage(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        colors = new float[width * height * 3];
+        samples = new int[width * height];
+    }
+
+    /**
+     * Get the color of a pixel
+     *
+     * @param x     The raster x coordinate
+     * @param y     The raster y coordinate
+     * @param color The triplet to store the color in
+     * @return The color
+     */
+    public Triplet getColor(final int x, final int y, final Triplet color) {
+        int pixel = (y * width + x) * 3;
+        return color.set(colors[pixel], colors[pixel + 1], colors[pixel + 2]);
+    }
+
+    /**
+     * Set the color of a pixel
+     *
+     * @param x       The raster x coordinate
+     * @param y       The raster y coordinate
+     * @param color   The mean color of the samples
+     * @param samples The number of samples
+     */
+    public void setColor(final int x, final int y, final Triplet color, final int samples) {
+        int pixel = y * width + x;
+        colors[pixel * 3] = (float) color.getX();
+        colors[pixel * 3 + 1] = (float) color.getY();
+        colors[pixel * 3 + 2] = (float) color.getZ();
+        this.samples[pixel] = samples;
+    }
+
+    /**
+     * Get the number of samples taken for a pixel
+     *
+     * @param x The raster x coordinate
+     * @param y The raster y coordinate
+     * @return The number of samples
+     */
+    public int getSamples(final int x, final int y) {
+        return samples[y * width + x];
+    }
+
+    /**
+     * Merge another render of the same view into this image. Each pixel becomes the mean of the samples of both
+     * images
+     *
+     * @param other The other image
+     * @return This image
+     * @throws IllegalArgumentException if the images have different sizes
+     */
+    public HDRImage merge(final HDRImage other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Cannot merge a " + other.width + "x" + other.height +
+                    " image into a " + width + "x" + height + " image");
+        }
+        for (int pixel = 0; pixel < samples.length; pixel++) {
+            int total = samples[pixel] + other.samples[pixel];
+            if (total == 0) {
+                continue;
+            }
+            double weight = (double) other.samples[pixel] / total;
+            for (int i = pixel * 3; i < pixel * 3 + 3; i++) {
+                colors[i] += (float) ((other.colors[i] - colors[i]) * weight);
+            }
+            samples[pixel] = total;
+        }
+        return this;
+    }
+
+    /**
+     * Copy the colors of a row of pixels
+     *
+     * @param y      The raster y coordinate
+     * @param values The array to store the colors in, as (r, g, b) for each pixel of the row
+     */
+    public void getRow(final int y, final float[] values) {
+        System.arraycopy(colors, y * width * 3, values, 0, width * 3);
+    }
+}
@@ -0,0 +1,43 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * The Halton sequence, using the radical inverse in a different prime base for each dimension. Each pixel uses the
+ * same points shifted by a random offset per dimension (Cranley-Patterson rotation), so neighbouring pixels are
+ * not correlated. Dimensions beyond the number of bases use independent random values.
+ */
+public class HaltonSampler extends Sampler {
+    private static final int[] PRIMES = {
+            2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53,
+            59, 61, 67, 71, 73, 79, 83, 89, 97, 101, 103, 107, 109, 113, 127, 131};
+
+    @Override
+    protected double sample(final int x, final int y, final int index, final int dimension) {
+        if (dimension >= PRIMES.length) {
+            return MathUtils.randomDouble();
+        }
+
+        double value = radicalInverse(PRIMES[dimension], index) + toUnit(hash(x, y, dimension, 0));
+        return value >= 1 ? value - 1 : value;
+    }
+
+    /**
+     * Mirror the digits of an integer in the given base around the radix point
+     *
+     * @param base  The base
+     * @param index The integer
+     * @return The radical inverse in the range [0, 1)
+     */
+    static double radicalInverse(final int base, final int index) {
+        double invBase = 1.0 / base;
+        double invBaseN = 1;
+        long reversed = 0;
+        int i = index;
+        while (i > 0) {
+            int next = i / base;
+            reversed = reversed * base + (i - next * base);
+            invBaseN *= invBase;
+            i = next;
+        }
+        return Math.min(reversed * invBaseN, Math.nextDown(1.0));
+    }
+}
@@ -0,0 +1,16 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * Receives the intermediate images of a progressive render
+ */
+@FunctionalInterface
+public interface PassListener {
+    /**
+     * Called on the rendering thread after each pass of a progressive render
+     *
+     * @param pass            The number of completed passes
+     * @param samplesPerPixel The number of samples per pixel so far
+     * @param image           A snapshot of the image after this pass, which the listener may keep
+     */
+    void passCompleted(int pass, int samplesPerPixel, HDRImage image);
+}
@@ -0,0 +1,63 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.model.ScatterData;
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Scratch state for tracing paths on a single thread. The values are reused for every path traced by the owning
+ * thread, so tracing a path does not need to allocate any intermediate colors or scattered rays. Instances must not
+ * be shared between threads.
+ */
+@Getter
+class PathState {
+    /**
+     * The fraction of light that is carried back to the camera along the current path
+     */
+    private final Triplet throughput = Triplet.newZeroVector();
+
+    /**
+     * The light accumulated along the current path
+     */
+    private final Triplet radiance = Triplet.newZeroVector();
+
+    /**
+     * The throughput of the current path extended by a light sample
+     */
+    private final Triplet lightThroughput = Triplet.newZeroVector();
+
+    /**
+     * The scattered rays of the path. The intersection at each bounce refers to the ray of the previous bounce, so
+     * bounces alternate between two instances
+     */
+    @Getter(AccessLevel.NONE)
+    private final ScatterData[] scatters = {new ScatterData(), new ScatterData()};
+
+    /**
+     * The sampler for the random decisions made along the path
+     */
+    private final Sampler sampler;
+
+    PathState(final Sampler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Get the scratch scatter data for a bounce
+     *
+     * @param depth The number of bounces before this one
+     * @return The scatter data
+     */
+    ScatterData getScatter(final int depth) {
+        return scatters[depth & 1];
+    }
+
+    /**
+     * Reset the state for the start of a new path
+     */
+    void reset() {
+        throughput.set(1, 1, 1);
+        radiance.set(0, 0, 0);
+    }
+}
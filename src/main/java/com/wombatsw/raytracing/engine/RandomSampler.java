@@ -0,0 +1,11 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * Independent uniform random values for every dimension
+ */
+public class RandomSampler extends Sampler {
+    @Override
+    protected double sample(final int x, final int y, final int index, final int dimension) {
+        return MathUtils.randomDouble();
+    }
+}
@@ -6,18 +6,25 @@ import com.wombatsw.raytracing.model.Ray;
 import com.wombatsw.raytracing.model.ScatterData;
 import com.wombatsw.raytracing.model.Triplet;
 import com.wombatsw.raytracing.obj.AbstractObj;
+import com.wombatsw.raytracing.obj.LightList;
 import lombok.Setter;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.function.Supplier;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static com.wombatsw.raytracing.Constants.EPSILON;
+import static com.wombatsw.raytracing.Constants.RAY_RANGE;
 
 public class Renderer {
     private final static Triplet BLUE = new Triplet(0.5, 0.7, 1).setImmutable();
+    private final static double MAX_SURVIVAL_PROBABILITY = 0.95;
+    private final static double SHADOW_RAY_TOLERANCE = 1e-6;
 
     /**
      * The max depth of reflection
@@ -25,8 +32,61 @@ public class Renderer {
     @Setter
     private int maxDepth = 10;
 
+    /**
+     * The number of bounces after which a path may be terminated early by Russian roulette. Paths with a low
+     * throughput are more likely to be terminated, and the surviving paths are reweighted so the result is
+     * unbiased. Use 0 to disable Russian roulette
+     */
+    @Setter
+    private int russianRouletteDepth = 0;
+
+    /**
+     * Whether to sample the emissive objects of the scene directly at diffuse surfaces (next event estimation).
+     * The light samples and the scattered rays that hit a light are combined with multiple importance sampling
+     */
+    @Setter
+    private boolean lightSampling = true;
+
+    /**
+     * The width and height of the tiles that are handed to the worker threads
+     */
+    @Setter
+    private int tileSize = 16;
+
+    /**
+     * The number of worker threads
+     */
+    @Setter
+    private int threads = Runtime.getRuntime().availableProcessors();
+
     private AntiAlias antiAlias = new AntiAlias(2, 2);
 
+    /**
+     * The kind of sampler used for pixel jitter, lens positions, scattering and Russian roulette
+     */
+    @Setter
+    private SamplerType samplerType = SamplerType.RANDOM;
+
+    /**
+     * The adaptive sampling settings, or {@code null} to use the antialias sampling points
+     */
+    private AdaptiveSampling adaptiveSampling;
+
+    /**
+     * The lights of the scene being rendered
+     */
+    private LightList lights;
+
+    /**
+     * The number of camera samples taken by the last render
+     */
+    private final LongAdder sampleCount = new LongAdder();
+
+    /**
+     * Set by {@link #cancel()} to stop the render in progress
+     */
+    private volatile boolean cancelled;
+
     /**
      * Set the antialiasing to a random pattern
      *
@@ -34,6 +94,7 @@ public class Renderer {
      */
     public void setAntialiasRandom(final int randomSamples) {
         this.antiAlias = new AntiAlias(randomSamples);
+        this.adaptiveSampling = null;
     }
 
     /**
@@ -44,6 +105,26 @@ public class Renderer {
      */
     public void setAntialiasGrid(final int xSamples, final int ySamples) {
         this.antiAlias = new AntiAlias(xSamples, ySamples);
+        this.adaptiveSampling = null;
+    }
+
+    /**
+     * Set the antialiasing to adaptive random sampling. See {@link AdaptiveSampling}. Progressive renders also use
+     * these settings to stop sampling pixels that have converged
+     *
+     * @param minSamples The minimum number of samples per pixel
+     * @param maxSamples The maximum number of samples per pixel
+     * @param threshold  The maximum relative standard error of the mean luminance of a pixel
+     */
+    public void setAntialiasAdaptive(final int minSamples, final int maxSamples, final double threshold) {
+        this.adaptiveSampling = new AdaptiveSampling(minSamples, maxSamples, threshold);
+    }
+
+    /**
+     * @return The number of camera samples taken by the last render
+     */
+    public long getSampleCount() {
+        return sampleCount.sum();
     }
 
     /**
@@ -51,121 +132,361 @@ public class Renderer {
      *
      * @param world  The world data
      * @param camera The {@link Camera}
-     * @return The image raster of size "width x height x 3" as a row-major ordering of RGB triplets
+     * @return The image, see {@link ToneMapper} for converting it to 8 bits per channel
      */
-    public byte[] render(final AbstractObj world, final Camera camera) {
+    public HDRImage render(final AbstractObj world, final Camera camera) {
         camera.initialize();
         antiAlias.initialize(camera.getViewport());
+        lights = lightSampling ? LightList.collect(world) : new LightList(List.of());
+        cancelled = false;
+        sampleCount.reset();
 
-        ExecutorService executor = Executors.newWorkStealingPool();
-        final int width = camera.getImageWidth();
-        final int height = camera.getImageHeight();
+        final HDRImage image = new HDRImage(camera.getImageWidth(), camera.getImageHeight());
+        List<Tile> tiles = Tile.split(image.getWidth(), image.getHeight(), tileSize);
 
         long start = System.currentTimeMillis();
-        byte[] imageData = new byte[width * height * 3];
-        for (int y = 0; y < height; y++) {
-            ProgressInfo.displayProgress(start, y, height);
-
-            // Mix the rows up to give a better estimation of time remaining. The first few rows
-            // frequently run faster due to ray hitting the "sky", throwing off the estimation.
-            int yAlt = (y * 65537) % height;
-            Triplet[] row = renderRow(executor, world, camera, yAlt);
-
-            int rowIndex = yAlt * width * 3;
-            for (int x = 0; x < width; x++) {
-                ColorUtils.writeColor(row[x], imageData, rowIndex + x * 3);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int samplesPerPixel = adaptiveSampling != null ? adaptiveSampling.maxSamples() : antiAlias.getSampleCount();
+            runTiles(executor, tiles, tile -> renderTile(world, camera, tile, samplesPerPixel, image),
+                    start, 0, tiles.size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ProgressInfo.displayCompletionMessage(start);
+        return image;
+    }
+
+    /**
+     * Render the scene progressively. Each pass adds more random samples to every pixel of an accumulation
+     * buffer, and the listener is given a snapshot of the image after each pass. Rendering stops after the
+     * last pass, or early if {@link #cancel()} is called, in which case every pixel keeps the samples it has.
+     * With adaptive sampling enabled, pixels which have converged are skipped by the remaining passes.
+     *
+     * @param world          The world data
+     * @param camera         The {@link Camera}
+     * @param passes         The maximum number of passes
+     * @param samplesPerPass The number of samples per pixel in each pass
+     * @param listener       The listener for the intermediate images, or {@code null} for none
+     * @return The image, see {@link ToneMapper} for converting it to 8 bits per channel
+     */
+    public HDRImage renderProgressive(final AbstractObj world, final Camera camera, final int passes,
+                                    final int samplesPerPass, final PassListener listener) {
+        if (passes < 1 || samplesPerPass < 1) {
+            throw new IllegalArgumentException("Passes and samples per pass must be positive");
+        }
+
+        camera.initialize();
+        antiAlias.initialize(camera.getViewport());
+        lights = lightSampling ? LightList.collect(world) : new LightList(List.of());
+        cancelled = false;
+        sampleCount.reset();
+
+        AccumulationBuffer buffer = new AccumulationBuffer(camera.getImageWidth(), camera.getImageHeight());
+        List<Tile> tiles = Tile.split(buffer.getWidth(), buffer.getHeight(), tileSize);
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int samplesPerPixel = adaptiveSampling != null
+                    ? Math.min(adaptiveSampling.maxSamples(), passes * samplesPerPass) : passes * samplesPerPass;
+            for (int pass = 0; pass < passes && !cancelled; pass++) {
+                runTiles(executor, tiles,
+                        tile -> accumulateTile(world, camera, tile, samplesPerPass, samplesPerPixel, buffer),
+                        start, pass * tiles.size(), passes * tiles.size());
+                if (listener != null && !cancelled) {
+                    listener.passCompleted(pass + 1, (pass + 1) * samplesPerPass, buffer.toImage());
+                }
             }
+        } finally {
+            executor.shutdownNow();
         }
 
         ProgressInfo.displayCompletionMessage(start);
-        return imageData;
+        return buffer.toImage();
     }
 
     /**
-     * Render a row of the image
+     * Stop the render in progress. Tiles which have not started yet are skipped, and a progressive render returns
+     * the image accumulated so far
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Render a set of tiles on the worker threads and wait for them to complete
      *
-     * @param executor The executor service
-     * @param world    The world data
-     * @param camera   The {@link Camera}
-     * @param y        The row to render
+     * @param executor   The worker threads
+     * @param tiles      The tiles
+     * @param renderTile Renders a single tile
+     * @param start      The start time of the render in millis
+     * @param completed  The number of tiles completed in earlier passes
+     * @param total      The total number of tiles in all passes
      */
-    private Triplet[] renderRow(final ExecutorService executor, final AbstractObj world, final Camera camera, final int y) {
-        Triplet[] row = new Triplet[camera.getImageWidth()];
+    private void runTiles(final ExecutorService executor, final List<Tile> tiles, final Consumer<Tile> renderTile,
+                          final long start, final int completed, final int total) {
+        try {
+            CompletionService<Tile> completionService = new ExecutorCompletionService<>(executor);
+            for (Tile tile : tiles) {
+                completionService.submit(() -> {
+                    if (!cancelled) {
+                        renderTile.accept(tile);
+                    }
+                }, tile);
+            }
 
-        for (int x = 0; x < row.length; x++) {
-            row[x] = getPixelColor(executor, world, camera, x, y);
+            for (int i = 0; i < tiles.size(); i++) {
+                ProgressInfo.displayProgress(start, completed + i, total);
+                completionService.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rendering was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rendering failed", e.getCause());
         }
+    }
 
-        return row;
+    /**
+     * Render all the pixels of a tile, writing them directly into the image. Tiles never overlap, so each worker
+     * thread writes to a distinct region of the image.
+     *
+     * @param world           The world data
+     * @param camera          The {@link Camera}
+     * @param tile            The tile to render
+     * @param samplesPerPixel The expected number of samples per pixel
+     * @param image           The image
+     */
+    private void renderTile(final AbstractObj world, final Camera camera, final Tile tile, final int samplesPerPixel,
+                            final HDRImage image) {
+        PathState state = new PathState(samplerType.create(samplesPerPixel));
+        Triplet color = Triplet.newZeroVector();
+        for (int y = tile.y0(); y < tile.y1(); y++) {
+            for (int x = tile.x0(); x < tile.x1(); x++) {
+                int samples = getPixelColor(world, camera, state, x, y, color);
+                image.setColor(x, y, color, samples);
+            }
+        }
     }
 
     /**
-     * Get the pixel color for the specified raster location
+     * Add random samples to all the pixels of a tile in the accumulation buffer. Tiles never overlap, so each worker
+     * thread writes to a distinct region of the buffer.
      *
-     * @param executor The executor service. Use {@code nulll} to execute synchronously
-     * @param world    The world data
-     * @param camera   The {@link Camera}
-     * @param x        The raster x coordinate
-     * @param y        The raster y coordinate
-     * @return The color of the pixel
-     */
-    private Triplet getPixelColor(final ExecutorService executor, final AbstractObj world, final Camera camera,
-                                  final int x, final int y) {
-        List<Triplet> viewportPoints = antiAlias.getSamplingPoints(x, y);
-
-        List<Triplet> samples = viewportPoints.stream()
-                .parallel()
-                .map(camera::getRayForPoint)
-                .map(ray -> getColorAsync(executor, world, ray, camera))
-                .map(CompletableFuture::join)
-                .toList();
-
-        return Triplet.average(samples);
+     * @param world           The world data
+     * @param camera          The {@link Camera}
+     * @param tile            The tile to render
+     * @param samples         The number of samples per pixel to add
+     * @param samplesPerPixel The expected number of samples per pixel for the whole render
+     * @param buffer          The accumulation buffer
+     */
+    private void accumulateTile(final AbstractObj world, final Camera camera, final Tile tile, final int samples,
+                                final int samplesPerPixel, final AccumulationBuffer buffer) {
+        PathState state = new PathState(samplerType.create(samplesPerPixel));
+        Sampler sampler = state.getSampler();
+        Triplet sum = Triplet.newZeroVector();
+        for (int y = tile.y0(); y < tile.y1(); y++) {
+            for (int x = tile.x0(); x < tile.x1(); x++) {
+                if (adaptiveSampling != null && buffer.isConverged(x, y, adaptiveSampling)) {
+                    continue;
+                }
+
+                sum.set(0, 0, 0);
+                double luminanceSquares = 0;
+                int first = buffer.getSamples(x, y);
+                for (int i = 0; i < samples; i++) {
+                    sampler.startSample(x, y, first + i);
+                    Ray ray = camera.getRayForPoint(antiAlias.getJitteredPoint(x, y, sampler), sampler);
+                    Triplet color = getRayColor(ray, world, camera, state);
+                    double luminance = AdaptiveSampling.luminance(color);
+                    luminanceSquares += luminance * luminance;
+                    sum.add(color);
+                }
+                buffer.add(x, y, sum, luminanceSquares, samples);
+                sampleCount.add(samples);
+            }
+        }
     }
 
     /**
-     * Asynchronously get the color for the given ray
+     * Get the pixel color for the specified raster location. All samples are taken on the calling thread
      *
-     * @param executor The executor service. Use {@code nulll} to execute synchronously
-     * @param world    The world data
-     * @param ray      The ray corresponding to the color
-     * @param camera   The {@link Camera}
-     * @return A {@link CompletableFuture} returning a {@link Triplet}
-     */
-    private CompletableFuture<Triplet> getColorAsync(final ExecutorService executor, final AbstractObj world,
-                                                     final Ray ray, final Camera camera) {
-        Supplier<Triplet> supplier = () -> getRayColor(ray, maxDepth, world, camera);
-        return executor == null ?
-                CompletableFuture.completedFuture(supplier.get()) :
-                CompletableFuture.supplyAsync(supplier, executor);
+     * @param world  The world data
+     * @param camera The {@link Camera}
+     * @param state  The scratch state of the calling thread
+     * @param x      The raster x coordinate
+     * @param y      The raster y coordinate
+     * @param color  The triplet to store the color of the pixel in
+     * @return The number of samples taken
+     */
+    private int getPixelColor(final AbstractObj world, final Camera camera, final PathState state,
+                              final int x, final int y, final Triplet color) {
+        if (adaptiveSampling != null) {
+            return getAdaptivePixelColor(world, camera, state, x, y, color);
+        }
+
+        Sampler sampler = state.getSampler();
+        int samples = antiAlias.getSampleCount();
+
+        color.set(0, 0, 0);
+        for (int i = 0; i < samples; i++) {
+            sampler.startSample(x, y, i);
+            Ray ray = camera.getRayForPoint(antiAlias.getSamplePoint(x, y, i, sampler), sampler);
+            color.add(getRayColor(ray, world, camera, state));
+        }
+        sampleCount.add(samples);
+
+        color.div(samples);
+        return samples;
     }
 
     /**
-     * Get the color for a specific ray. Will always return a new instance
+     * Get the pixel color for the specified raster location, taking random samples until the pixel converges. The
+     * running mean and variance of the sample luminance are tracked with Welford's algorithm
      *
-     * @param ray   The ray to check
-     * @param depth The depth of reflection
-     * @param world The world data
-     * @param camera   The {@link Camera}
-     * @return The color for this ray
-     */
-    private Triplet getRayColor(final Ray ray, final int depth, final AbstractObj world, final Camera camera) {
-        if (depth <= 0) {
-            return ColorUtils.black();
+     * @param world  The world data
+     * @param camera The {@link Camera}
+     * @param state  The scratch state of the calling thread
+     * @param x      The raster x coordinate
+     * @param y      The raster y coordinate
+     * @param color  The triplet to store the color of the pixel in
+     * @return The number of samples taken
+     */
+    private int getAdaptivePixelColor(final AbstractObj world, final Camera camera, final PathState state,
+                                      final int x, final int y, final Triplet color) {
+        Sampler sampler = state.getSampler();
+        color.set(0, 0, 0);
+        int count = 0;
+        double mean = 0;
+        double m2 = 0;
+        do {
+            sampler.startSample(x, y, count);
+            Ray ray = camera.getRayForPoint(antiAlias.getJitteredPoint(x, y, sampler), sampler);
+            Triplet sample = getRayColor(ray, world, camera, state);
+            color.add(sample);
+
+            double luminance = AdaptiveSampling.luminance(sample);
+            count++;
+            double delta = luminance - mean;
+            mean += delta / count;
+            m2 += delta * (luminance - mean);
+        } while (!adaptiveSampling.isConverged(count, mean, count > 1 ? m2 / (count - 1) : 0));
+        sampleCount.add(count);
+
+        color.div(count);
+        return count;
+    }
+
+    /**
+     * Get the color for a specific ray. The path is followed iteratively, carrying the running throughput and
+     * accumulated radiance in the scratch state, so no colors are allocated per bounce. At diffuse surfaces a
+     * light is also sampled directly, and the light seen by the light sample and by the scattered ray are
+     * weighted with the power heuristic.
+     *
+     * @param ray    The ray to check
+     * @param world  The world data
+     * @param camera The {@link Camera}
+     * @param state  The scratch state of the calling thread
+     * @return The color for this ray. This is owned by the scratch state and is overwritten by the next call
+     */
+    private Triplet getRayColor(final Ray ray, final AbstractObj world, final Camera camera, final PathState state) {
+        state.reset();
+        Triplet throughput = state.getThroughput();
+        Triplet radiance = state.getRadiance();
+
+        Ray pathRay = ray;
+        // The density of the scattered direction of the path ray, or 0 if the lights were not sampled
+        double scatteringPdf = 0;
+        for (int depth = 0; depth < maxDepth; depth++) {
+            Intersection intersect = world.intersect(pathRay, RAY_RANGE);
+            if (intersect == null) {
+                radiance.addProduct(throughput, camera.getBackground());
+                break;
+            }
+
+            if (scatteringPdf > 0 && intersect.getMaterial().isEmissive()) {
+                double lightPdf = lights.pdfValue(pathRay, intersect.getT());
+                radiance.addProduct(throughput, intersect.emitted(), powerHeuristic(scatteringPdf, lightPdf));
+            } else {
+                radiance.addProduct(throughput, intersect.emitted());
+            }
+
+            ScatterData scatterData = state.getScatter(depth);
+            if (!intersect.getMaterial().scatter(intersect, state.getSampler(), scatterData)) {
+                break;
+            }
+
+            scatteringPdf = lights.isEmpty()
+                    ? 0 : intersect.getMaterial().scatteringPdf(intersect, scatterData.ray().direction());
+            if (scatteringPdf > 0) {
+                addLightSample(intersect, scatterData.attenuation(), world, state);
+            }
+
+            throughput.mul(scatterData.attenuation());
+            if (russianRouletteDepth > 0 && depth + 1 >= russianRouletteDepth) {
+                double survival = Math.min(throughput.maxComponent(), MAX_SURVIVAL_PROBABILITY);
+                if (state.getSampler().get1D() >= survival) {
+                    break;
+                }
+                throughput.div(survival);
+            }
+            pathRay = scatterData.ray();
+        }
+
+        return radiance;
+    }
+
+    /**
+     * Sample a random light from a diffuse surface, and add the light it sees to the radiance of the path. The
+     * shadow ray only needs to check for objects between the surface and the chosen point on the light
+     *
+     * @param intersect   The intersection with the diffuse surface
+     * @param attenuation The attenuation of the surface
+     * @param world       The world data
+     * @param state       The scratch state of the calling thread
+     */
+    private void addLightSample(final Intersection intersect, final Triplet attenuation, final AbstractObj world,
+                                final PathState state) {
+        Sampler sampler = state.getSampler();
+        Triplet origin = intersect.getP();
+        double time = intersect.getRay().time();
+        AbstractObj light = lights.choose(sampler.get1D());
+        Sampler.Sample2D point = sampler.get2D();
+        Ray shadowRay = new Ray(origin, light.random(origin, time, point.u(), point.v()), time);
+
+        double scatteringPdf = intersect.getMaterial().scatteringPdf(intersect, shadowRay.direction());
+        if (scatteringPdf <= 0) {
+            return;
         }
 
-        Intersection intersect = world.intersect(ray, new Interval(EPSILON, Double.POSITIVE_INFINITY));
-        if (intersect == null) {
-            return camera.getBackground();
+        Intersection lightHit = light.intersect(shadowRay, RAY_RANGE);
+        if (lightHit == null) {
+            return;
         }
 
-        Triplet emission = intersect.emitted();
-        ScatterData scatterData = intersect.getMaterial().scatter(intersect);
-        if (scatterData == null) {
-            return emission;
+        double t = lightHit.getT();
+        if (world.occluded(shadowRay, new Interval(EPSILON, t * (1 - SHADOW_RAY_TOLERANCE)))) {
+            return;
         }
 
-        Triplet scatterColor = getRayColor(scatterData.ray(), depth - 1, world, camera);
-        return scatterColor.copy().mul(scatterData.attenuation()).add(emission);
+        double lightPdf = lights.pdfValue(shadowRay, t);
+        Triplet lightThroughput = state.getLightThroughput().set(0, 0, 0)
+                .addProduct(state.getThroughput(), attenuation);
+        double weight = powerHeuristic(lightPdf, scatteringPdf);
+        state.getRadiance().addProduct(lightThroughput, lightHit.emitted(), weight * scatteringPdf / lightPdf);
+    }
+
+    /**
+     * Get the multiple importance sampling weight of a sample using the power heuristic with an exponent of 2
+     *
+     * @param pdf      The density of the strategy that took the sample
+     * @param otherPdf The density of the other strategy for the same sample
+     * @return The weight
+     */
+    private static double powerHeuristic(final double pdf, final double otherPdf) {
+        double pdfSquared = pdf * pdf;
+        return pdfSquared / (pdfSquared + otherPdf * otherPdf);
     }
 }
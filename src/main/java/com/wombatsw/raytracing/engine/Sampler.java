@@ -0,0 +1,120 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * A source of sample values for rendering. Each camera sample of a pixel is a point in a high dimensional unit
+ * cube, and every random decision made while tracing that sample (pixel jitter, lens position, time, scattering
+ * and Russian roulette) takes the next dimension of the point. Samplers which place the points more evenly than
+ * independent random values converge faster for the same number of samples.
+ * <p>
+ * The samplers stratify the pairs of dimensions (0, 1), (2, 3) and so on together. Decisions which need two
+ * values, such as a point on the lens or a scattering direction, use {@link #get2D()} so that they get one of
+ * these pairs, however many single dimensions were used before them.
+ * <p>
+ * Samplers are not thread safe. Each worker thread uses its own instance, created by {@link SamplerType}.
+ */
+public abstract class Sampler {
+    private int x;
+    private int y;
+    private int index;
+    private int dimension;
+    private final Sample2D sample2D = new Sample2D();
+
+    /**
+     * Start a new camera sample
+     *
+     * @param x     The raster x coordinate of the pixel
+     * @param y     The raster y coordinate of the pixel
+     * @param index The index of the sample within the pixel
+     */
+    public void startSample(final int x, final int y, final int index) {
+        this.x = x;
+        this.y = y;
+        this.index = index;
+        this.dimension = 0;
+    }
+
+    /**
+     * Get the next dimension of the current sample
+     *
+     * @return A value in the range [0, 1)
+     */
+    public double get1D() {
+        return sample(x, y, index, dimension++);
+    }
+
+    /**
+     * Get the next pair of dimensions of the current sample. The pair starts at an even dimension, so a dimension
+     * is skipped if an odd number has been used
+     *
+     * @return The pair of values, which is reused by the next call
+     */
+    public Sample2D get2D() {
+        dimension += dimension & 1;
+        sample2D.u = sample(x, y, index, dimension);
+        sample2D.v = sample(x, y, index, dimension + 1);
+        dimension += 2;
+        return sample2D;
+    }
+
+    /**
+     * Get a dimension of a sample
+     *
+     * @param x         The raster x coordinate of the pixel
+     * @param y         The raster y coordinate of the pixel
+     * @param index     The index of the sample within the pixel
+     * @param dimension The dimension
+     * @return A value in the range [0, 1)
+     */
+    protected abstract double sample(int x, int y, int index, int dimension);
+
+    /**
+     * Hash a pixel and dimension into a seed, so that each pixel gets its own decorrelated version of the sequence
+     *
+     * @param x         The raster x coordinate of the pixel
+     * @param y         The raster y coordinate of the pixel
+     * @param dimension The dimension
+     * @param salt      Distinguishes different uses of the seed
+     * @return The seed
+     */
+    protected static long hash(final int x, final int y, final int dimension, final int salt) {
+        long h = x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL + dimension * 0x165667B19E3779F9L + salt;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Convert a hash into a value in the range [0, 1)
+     *
+     * @param hash The hash
+     * @return The value
+     */
+    protected static double toUnit(final long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * A pair of dimensions of a sample, see {@link #get2D()}
+     */
+    public static final class Sample2D {
+        private double u;
+        private double v;
+
+        private Sample2D() {
+        }
+
+        /**
+         * @return The value of the first dimension, in the range [0, 1)
+         */
+        public double u() {
+            return u;
+        }
+
+        /**
+         * @return The value of the second dimension, in the range [0, 1)
+         */
+        public double v() {
+            return v;
+        }
+    }
+}
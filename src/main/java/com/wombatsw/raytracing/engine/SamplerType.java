@@ -0,0 +1,38 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * The kinds of {@link Sampler}
+ */
+public enum SamplerType {
+    /**
+     * Independent random values. See {@link RandomSampler}
+     */
+    RANDOM,
+    /**
+     * Jittered strata. See {@link StratifiedSampler}
+     */
+    STRATIFIED,
+    /**
+     * Randomly rotated Halton sequence. See {@link HaltonSampler}
+     */
+    HALTON,
+    /**
+     * Owen-scrambled Sobol points. See {@link SobolSampler}
+     */
+    SOBOL;
+
+    /**
+     * Create a sampler of this type
+     *
+     * @param samplesPerPixel The expected number of samples per pixel
+     * @return The new sampler
+     */
+    public Sampler create(final int samplesPerPixel) {
+        return switch (this) {
+            case RANDOM -> new RandomSampler();
+            case STRATIFIED -> new StratifiedSampler(samplesPerPixel);
+            case HALTON -> new HaltonSampler();
+            case SOBOL -> new SobolSampler();
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * Owen-scrambled Sobol points. Pairs of dimensions use the first two dimensions of the Sobol sequence, which are
+ * very well stratified in 2D. Each pixel and pair of dimensions shuffles the sample order and applies its own nested
+ * uniform (Owen) scramble, using the hash from Laine and Karras as improved by Burley, "Practical Hash-based Owen
+ * Scrambling". This decorrelates the pairs from each other and from neighbouring pixels while keeping the
+ * stratification of every power of two prefix of the samples.
+ */
+public class SobolSampler extends Sampler {
+    @Override
+    protected double sample(final int x, final int y, final int index, final int dimension) {
+        int pair = dimension / 2;
+        long seed = hash(x, y, pair, 0);
+
+        int shuffled = nestedUniformScramble(index, (int) seed);
+        int value = dimension % 2 == 0 ? Integer.reverse(shuffled) : sobolSecondDimension(shuffled);
+        int scrambled = nestedUniformScramble(value, (int) (seed >>> 32) + dimension % 2);
+        return Integer.toUnsignedLong(scrambled) * 0x1.0p-32;
+    }
+
+    /**
+     * Get the second dimension of the Sobol sequence. The first dimension is the bit reversal of the index
+     *
+     * @param index The sample index
+     * @return The value as a 32-bit fraction
+     */
+    static int sobolSecondDimension(final int index) {
+        int result = 0;
+        int v = 1 << 31;
+        for (int i = index; i != 0; i >>>= 1, v ^= v >>> 1) {
+            if ((i & 1) != 0) {
+                result ^= v;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Apply a random nested uniform scramble to a 32-bit fraction, so that each bit is flipped based on the bits
+     * above it
+     *
+     * @param x    The value as a 32-bit fraction
+     * @param seed Selects the scramble
+     * @return The scrambled value
+     */
+    static int nestedUniformScramble(final int x, final int seed) {
+        return Integer.reverse(laineKarrasPermutation(Integer.reverse(x), seed));
+    }
+
+    private static int laineKarrasPermutation(final int x, final int seed) {
+        int v = x;
+        v ^= v * 0x3d20adea;
+        v += seed;
+        v *= (seed >>> 16) | 1;
+        v ^= v * 0x05526c56;
+        v ^= v * 0x53a22864;
+        return v;
+    }
+}
@@ -0,0 +1,73 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * Jittered stratified sampling. Each pair of dimensions is split into a grid of strata with at least as many cells
+ * as samples per pixel, and each sample of a pixel takes a random position in a different cell. The cells are
+ * visited in a different random order for each pixel and pair of dimensions, so the dimensions are not correlated
+ * with each other. Samples beyond the number of cells start a new round with a new order.
+ */
+public class StratifiedSampler extends Sampler {
+    private final int strata;
+
+    /**
+     * Create a stratified sampler
+     *
+     * @param samplesPerPixel The expected number of samples per pixel
+     */
+    public StratifiedSampler(final int samplesPerPixel) {
+        this.strata = (int) Math.ceil(Math.sqrt(Math.max(1, samplesPerPixel)));
+    }
+
+    @Override
+    protected double sample(final int x, final int y, final int index, final int dimension) {
+        int cells = strata * strata;
+        int round = index / cells;
+        int pair = dimension / 2;
+        int cell = permute(index % cells, cells, (int) hash(x, y, pair, round));
+
+        int stratum = dimension % 2 == 0 ? cell % strata : cell / strata;
+        double jitter = toUnit(hash(x, y, dimension, index + 0x5bd1e995));
+        return Math.min((stratum + jitter) / strata, Math.nextDown(1.0));
+    }
+
+    /**
+     * A random permutation of the integers 0 to length - 1 which can be evaluated for a single element. See
+     * Kensler, "Correlated Multi-Jittered Sampling"
+     *
+     * @param i      The element to permute
+     * @param length The length of the permutation
+     * @param seed   Selects the permutation
+     * @return The permuted element
+     */
+    static int permute(final int i, final int length, final int seed) {
+        int w = length - 1;
+        w |= w >>> 1;
+        w |= w >>> 2;
+        w |= w >>> 4;
+        w |= w >>> 8;
+        w |= w >>> 16;
+
+        int p = i;
+        do {
+            p ^= seed;
+            p *= 0xe170893d;
+            p ^= seed >>> 16;
+            p ^= (p & w) >>> 4;
+            p ^= seed >>> 8;
+            p *= 0x0929eb3f;
+            p ^= seed >>> 23;
+            p ^= (p & w) >>> 1;
+            p *= 1 | seed >>> 27;
+            p *= 0x6935fa69;
+            p ^= (p & w) >>> 11;
+            p *= 0x74dcb303;
+            p ^= (p & w) >>> 2;
+            p *= 0x9e501cc3;
+            p ^= (p & w) >>> 2;
+            p *= 0xc860a3df;
+            p &= w;
+            p ^= p >>> 5;
+        } while (p >= length);
+        return Integer.remainderUnsigned(p + seed, length);
+    }
+}
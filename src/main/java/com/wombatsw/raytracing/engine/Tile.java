@@ -0,0 +1,44 @@
+package com.wombatsw.raytracing.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rectangular region of the image that is rendered as a single unit of work
+ *
+ * @param x0 The starting column, inclusive
+ * @param y0 The starting row, inclusive
+ * @param x1 The ending column, exclusive
+ * @param y1 The ending row, exclusive
+ */
+record Tile(int x0, int y0, int x1, int y1) {
+    /**
+     * Split an image into square tiles. Tiles along the right and bottom edges will be clipped to the image size.
+     * The tiles are returned in a mixed order to give a better estimation of time remaining, since neighboring
+     * tiles frequently have a similar cost (for example, tiles that only see the "sky").
+     *
+     * @param width    The image width
+     * @param height   The image height
+     * @param tileSize The width and height of a tile
+     * @return The list of tiles covering the image
+     */
+    static List<Tile> split(final int width, final int height, final int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Invalid tile size: " + tileSize);
+        }
+
+        List<Tile> tiles = new ArrayList<>();
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                tiles.add(new Tile(x, y, Math.min(x + tileSize, width), Math.min(y + tileSize, height)));
+            }
+        }
+
+        int count = tiles.size();
+        List<Tile> mixed = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            mixed.add(tiles.get((int) ((i * 65537L) % count)));
+        }
+        return mixed;
+    }
+}
@@ -0,0 +1,67 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.stream.IntStream;
+
+/**
+ * Converts a {@link HDRImage} to 8 bits per channel. Each color is scaled by the exposure, mapped by the
+ * {@link ToneMapping} curve, then gamma corrected and quantized by {@link ColorUtils#writeColor}. This is a pass over
+ * the finished image, so it can be repeated with other settings without rendering again. The rows are converted in
+ * parallel.
+ */
+@Getter
+@Setter
+public class ToneMapper {
+    /**
+     * The curve applied to each color channel
+     */
+    private ToneMapping toneMapping = ToneMapping.NONE;
+
+    /**
+     * The scale applied to the linear colors before the curve
+     */
+    private double exposure = 1;
+
+    public ToneMapper() {
+    }
+
+    public ToneMapper(final ToneMapping toneMapping) {
+        this.toneMapping = toneMapping;
+    }
+
+    /**
+     * Convert an image to 8 bits per channel
+     *
+     * @param image The image
+     * @return The image raster of size "width x height x 3" as a row-major ordering of RGB triplets
+     */
+    public byte[] toBytes(final HDRImage image) {
+        int width = image.getWidth();
+        byte[] imageData = new byte[width * image.getHeight() * 3];
+        IntStream.range(0, image.getHeight()).parallel().forEach(y -> {
+            Triplet color = Triplet.newZeroVector();
+            for (int x = 0; x < width; x++) {
+                ColorUtils.writeColor(map(image.getColor(x, y, color)), imageData, (y * width + x) * 3);
+            }
+        });
+        return imageData;
+    }
+
+    /**
+     * Apply the exposure and the curve to a linear color
+     *
+     * @param color The color, which is updated
+     * @return The color
+     */
+    public Triplet map(final Triplet color) {
+        if (exposure == 1 && toneMapping == ToneMapping.NONE) {
+            return color;
+        }
+        return color.set(toneMapping.apply(color.getX() * exposure),
+                toneMapping.apply(color.getY() * exposure),
+                toneMapping.apply(color.getZ() * exposure));
+    }
+}
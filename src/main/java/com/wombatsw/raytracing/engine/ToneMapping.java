@@ -0,0 +1,33 @@
+package com.wombatsw.raytracing.engine;
+
+/**
+ * The curves which map linear colors of any brightness into the range of an 8-bit image. See {@link ToneMapper}
+ */
+public enum ToneMapping {
+    /**
+     * No mapping, so values above 1 are clipped
+     */
+    NONE,
+    /**
+     * The Reinhard curve x / (1 + x), which keeps dark values and compresses bright values
+     */
+    REINHARD,
+    /**
+     * Narkowicz's fit of the ACES filmic curve, which adds contrast in the mid tones and rolls off the highlights
+     */
+    ACES;
+
+    /**
+     * Map a color channel
+     *
+     * @param x The linear value
+     * @return The mapped value, which is in [0, 1] unless there is no mapping
+     */
+    public double apply(final double x) {
+        return switch (this) {
+            case NONE -> x;
+            case REINHARD -> x > 0 ? x / (1 + x) : 0;
+            case ACES -> x > 0 ? Math.min(1, x * (2.51 * x + 0.03) / (x * (2.43 * x + 0.59) + 0.14)) : 0;
+        };
+    }
+}
@@ -1,9 +1,8 @@
 package com.wombatsw.raytracing.material;
 
 import com.wombatsw.raytracing.engine.ColorUtils;
-import com.wombatsw.raytracing.engine.MathUtils;
+import com.wombatsw.raytracing.engine.Sampler;
 import com.wombatsw.raytracing.model.Intersection;
-import com.wombatsw.raytracing.model.Ray;
 import com.wombatsw.raytracing.model.ScatterData;
 import com.wombatsw.raytracing.model.Triplet;
 import lombok.Getter;
@@ -15,6 +14,8 @@ import lombok.ToString;
 @Getter
 @ToString(callSuper = true)
 public class Dielectric extends Material {
+    private static final Triplet WHITE = ColorUtils.white().setImmutable();
+
     private final double refractionIndex;
 
     /**
@@ -28,23 +29,22 @@ public class Dielectric extends Material {
     }
 
     @Override
-    public ScatterData scatter(final Intersection intersection) {
+    public boolean scatter(final Intersection intersection, final Sampler sampler, final ScatterData scatter) {
         double ri = intersection.isFrontFace() ? 1.0 / refractionIndex : refractionIndex;
 
-        Triplet unitDir = intersection.getRay().direction().copy().normalize();
+        Triplet unitDir = scatter.direction().set(intersection.getRay().direction()).normalize();
         double cosTheta = Math.min(1.0, -unitDir.dot(intersection.getN()));
         double sinTheta = Math.sqrt(1.0 - cosTheta * cosTheta);
         boolean canRefract = ri * sinTheta <= 1.0;
 
-        Triplet rayDir;
-        if (canRefract && reflectance(cosTheta, ri) < MathUtils.randomDouble()) {
-            rayDir = unitDir.refract(intersection.getN(), ri);
+        if (canRefract && reflectance(cosTheta, ri) < sampler.get1D()) {
+            unitDir.refract(intersection.getN(), ri);
         } else {
-            rayDir = unitDir.reflect(intersection.getN());
+            unitDir.reflect(intersection.getN());
         }
 
-        Ray scattered = new Ray(intersection.getP(), rayDir, intersection.getRay().time());
-        return new ScatterData(scattered, ColorUtils.white());
+        scatter.set(intersection.getP(), intersection.getRay().time(), WHITE);
+        return true;
     }
 
     /**
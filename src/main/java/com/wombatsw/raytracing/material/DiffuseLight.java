@@ -22,6 +22,11 @@ public class DiffuseLight extends Material {
         this(new SolidColor(color));
     }
 
+    @Override
+    public boolean isEmissive() {
+        return true;
+    }
+
     @Override
     public Triplet emitted(double u, double v, Triplet p) {
         return texture.value(u, v, p);
@@ -1,7 +1,7 @@
 package com.wombatsw.raytracing.material;
 
+import com.wombatsw.raytracing.engine.Sampler;
 import com.wombatsw.raytracing.model.Intersection;
-import com.wombatsw.raytracing.model.Ray;
 import com.wombatsw.raytracing.model.ScatterData;
 import com.wombatsw.raytracing.model.Triplet;
 import com.wombatsw.raytracing.texture.SolidColor;
@@ -26,12 +26,22 @@ public class Lambertian extends Material {
     }
 
     @Override
-    public ScatterData scatter(final Intersection intersection) {
-        Triplet scatterDir = Triplet.randomUnitVector().add(intersection.getN());
+    public boolean scatter(final Intersection intersection, final Sampler sampler, final ScatterData scatter) {
+        Sampler.Sample2D sample = sampler.get2D();
+        Triplet scatterDir = scatter.direction().set(intersection.getN())
+                .addUnitVector(sample.u(), sample.v(), 1);
+        if (scatterDir.nearZero()) {
+            scatterDir.set(intersection.getN());
+        }
 
-        Triplet rayDir = scatterDir.nearZero() ? intersection.getN() : scatterDir;
-        Ray scattered = new Ray(intersection.getP(), rayDir, intersection.getRay().time());
         Triplet attenuation = texture.value(intersection.getU(), intersection.getV(), intersection.getP());
-        return new ScatterData(scattered, attenuation);
+        scatter.set(intersection.getP(), intersection.getRay().time(), attenuation);
+        return true;
+    }
+
+    @Override
+    public double scatteringPdf(final Intersection intersection, final Triplet direction) {
+        double cosTheta = intersection.getN().dot(direction) / direction.len();
+        return cosTheta > 0 ? cosTheta / Math.PI : 0;
     }
 }
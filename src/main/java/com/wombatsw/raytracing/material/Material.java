@@ -1,6 +1,7 @@
 package com.wombatsw.raytracing.material;
 
 import com.wombatsw.raytracing.engine.ColorUtils;
+import com.wombatsw.raytracing.engine.Sampler;
 import com.wombatsw.raytracing.model.Intersection;
 import com.wombatsw.raytracing.model.ScatterData;
 import com.wombatsw.raytracing.model.Triplet;
@@ -11,18 +12,43 @@ import lombok.ToString;
  */
 @ToString
 public abstract class Material {
+    private static final Triplet NO_EMISSION = ColorUtils.black().setImmutable();
+
     /**
      * Scatter the inbound ray
      *
      * @param intersection The intersection data
-     * @return The {@link ScatterData} or {@code null} if the ray was absorbed
+     * @param sampler      The sampler for the current path
+     * @param scatter      The scratch {@link ScatterData} to store the outbound ray and attenuation in
+     * @return Whether the ray was scattered, or {@code false} if it was absorbed
+     */
+    public boolean scatter(final Intersection intersection, final Sampler sampler, final ScatterData scatter) {
+        return false;
+    }
+
+    /**
+     * Get the probability density, with respect to solid angle, of {@link #scatter} choosing the given direction.
+     * Materials with a non-zero density scatter diffusely, with an attenuation that does not depend on the
+     * direction, so the emitters they see can be sampled directly. Materials that scatter in a single direction
+     * return 0
+     *
+     * @param intersection The intersection data
+     * @param direction    The scattered direction
+     * @return The probability density
+     */
+    public double scatteringPdf(final Intersection intersection, final Triplet direction) {
+        return 0;
+    }
+
+    /**
+     * @return Whether this material emits light
      */
-    public ScatterData scatter(final Intersection intersection) {
-        return null;
+    public boolean isEmissive() {
+        return false;
     }
 
     /**
-     * Get the color is emitted by this surface. Returns black for none.
+     * Get the color is emitted by this surface. Returns black for none. The returned value must not be modified
      *
      * @param u The horizontal coordinate
      * @param v The vertical coordinate
@@ -30,6 +56,6 @@ public abstract class Material {
      * @return The emitted light color, or black for none
      */
     public Triplet emitted(final double u, final double v, final Triplet p) {
-        return ColorUtils.black();
+        return NO_EMISSION;
     }
 }
@@ -1,7 +1,7 @@
 package com.wombatsw.raytracing.material;
 
+import com.wombatsw.raytracing.engine.Sampler;
 import com.wombatsw.raytracing.model.Intersection;
-import com.wombatsw.raytracing.model.Ray;
 import com.wombatsw.raytracing.model.ScatterData;
 import com.wombatsw.raytracing.model.Triplet;
 import lombok.Getter;
@@ -22,18 +22,19 @@ public class Metal extends Material {
     }
 
     @Override
-    public ScatterData scatter(final Intersection intersection) {
-        Triplet reflected = intersection.getRay().direction().copy()
+    public boolean scatter(final Intersection intersection, final Sampler sampler, final ScatterData scatter) {
+        Triplet reflected = scatter.direction().set(intersection.getRay().direction())
                 .reflect(intersection.getN())
                 .normalize();
         if (fuzz > 0) {
-            reflected.add(Triplet.randomUnitVector().mul(fuzz));
+            Sampler.Sample2D sample = sampler.get2D();
+            reflected.addUnitVector(sample.u(), sample.v(), fuzz);
         }
         if (reflected.dot(intersection.getN()) < 0) {
-            return null;
+            return false;
         }
 
-        Ray scattered = new Ray(intersection.getP(), reflected, intersection.getRay().time());
-        return new ScatterData(scattered, albedo);
+        scatter.set(intersection.getP(), intersection.getRay().time(), albedo);
+        return true;
     }
 }
@@ -8,19 +8,34 @@ import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
 /**
- * Affine transformation matrix
+ * Affine transformation matrix. The bottom row of an affine matrix is always (0, 0, 0, 1), so only the top three
+ * rows are stored, as flat arrays of 12 values in row order. The inverse is kept up to date with the matrix, along
+ * with the inverse-transpose of its upper 3x3 part, which is the transform for normals.
  */
-@ToString(exclude = "inverse")
+@ToString(of = "matrix")
 public class Affine {
     private static final int DIM = 4;
+    private static final int ROWS = 3;
+    private static final int SIZE = ROWS * DIM;
 
-    // Matrix addressed as [row][column]
-    private double[][] matrix;
-    private double[][] inverse;
+    // Matrix addressed as [row * DIM + column]
+    private double[] matrix;
+    private double[] inverse;
+
+    /**
+     * The inverse-transpose of the upper 3x3 part of the matrix, addressed as [row * ROWS + column]
+     */
+    private final double[] normalMatrix = new double[ROWS * ROWS];
+
+    /**
+     * The determinant of the upper 3x3 part of the matrix
+     */
+    private double determinant;
 
     public Affine() {
         matrix = createIdentity();
         inverse = createIdentity();
+        updateNormalMatrix();
     }
 
     /**
@@ -31,7 +46,19 @@ public class Affine {
      * @return The new triplet
      */
     public Triplet apply(final Triplet triplet, final boolean isPoint) {
-        return apply(matrix, triplet, isPoint);
+        return apply(matrix, triplet, isPoint, Triplet.newZeroVector());
+    }
+
+    /**
+     * Apply this Affine matrix to a triplet (a column matrix), without allocating
+     *
+     * @param triplet The point or vector
+     * @param isPoint Whether the triplet is a point
+     * @param result  The triplet for the result, which may be the input triplet
+     * @return The result triplet
+     */
+    public Triplet apply(final Triplet triplet, final boolean isPoint, final Triplet result) {
+        return apply(matrix, triplet, isPoint, result);
     }
 
     /**
@@ -42,7 +69,64 @@ public class Affine {
      * @return The new triplet
      */
     public Triplet invert(final Triplet triplet, final boolean isPoint) {
-        return apply(inverse, triplet, isPoint);
+        return apply(inverse, triplet, isPoint, Triplet.newZeroVector());
+    }
+
+    /**
+     * Apply the inverse of this Affine matrix to a triplet (a column matrix), without allocating
+     *
+     * @param triplet The point or vector
+     * @param isPoint Whether the triplet is a point
+     * @param result  The triplet for the result, which may be the input triplet
+     * @return The result triplet
+     */
+    public Triplet invert(final Triplet triplet, final boolean isPoint, final Triplet result) {
+        return apply(inverse, triplet, isPoint, result);
+    }
+
+    /**
+     * Apply the inverse of this Affine matrix to a ray, without allocating. The direction is not normalized, so
+     * locations on the ray are unchanged
+     *
+     * @param ray    The ray
+     * @param result The scratch ray for the result, which must not be the input ray or be shared between threads
+     * @return The result ray
+     */
+    public Ray invert(final Ray ray, final Ray result) {
+        if (ray == result) {
+            throw new IllegalArgumentException("The result must not be the input ray");
+        }
+        return result.setInverted(this, ray);
+    }
+
+    /**
+     * Transform a surface normal, using the inverse-transpose so that it stays perpendicular to the transformed
+     * surface. The result is only a unit vector if the transform has no scaling
+     *
+     * @param normal The normal
+     * @param result The triplet for the result, which may be the input triplet
+     * @return The result triplet
+     */
+    public Triplet applyNormal(final Triplet normal, final Triplet result) {
+        double x = normal.getX();
+        double y = normal.getY();
+        double z = normal.getZ();
+        double[] mat = normalMatrix;
+
+        return result.set(
+                mat[0] * x + mat[1] * y + mat[2] * z,
+                mat[3] * x + mat[4] * y + mat[5] * z,
+                mat[6] * x + mat[7] * y + mat[8] * z);
+    }
+
+    /**
+     * Get the determinant of the upper 3x3 part of the matrix, which is the factor that volumes are scaled by. It is
+     * 1 for rigid transforms
+     *
+     * @return The determinant
+     */
+    public double getDeterminant() {
+        return determinant;
     }
 
     /**
@@ -52,14 +136,14 @@ public class Affine {
      * @return This Affine matrix
      */
     public Affine translate(final Triplet vector) {
-        double[][] translation = createIdentity();
-        for (int i = 0; i < DIM - 1; i++) {
-            translation[i][DIM - 1] = vector.getValue(i);
+        double[] translation = createIdentity();
+        for (int i = 0; i < ROWS; i++) {
+            translation[i * DIM + DIM - 1] = vector.getValue(i);
         }
         matrix = multiply(translation, matrix);
 
-        for (int i = 0; i < DIM - 1; i++) {
-            translation[i][DIM - 1] = -vector.getValue(i);
+        for (int i = 0; i < ROWS; i++) {
+            translation[i * DIM + DIM - 1] = -vector.getValue(i);
         }
         inverse = multiply(inverse, translation);
         return this;
@@ -105,26 +189,27 @@ public class Affine {
     public Affine rotate(final Triplet axis, final double angle) {
         Triplet axisNorm = axis.copy().normalize();
 
-        double[][] rotation = createRotation(axisNorm, angle);
+        double[] rotation = createRotation(axisNorm, angle);
         matrix = multiply(rotation, matrix);
 
-        double[][] invRotation = createRotation(axisNorm, -angle);
+        double[] invRotation = createRotation(axisNorm, -angle);
         inverse = multiply(inverse, invRotation);
+        updateNormalMatrix();
         return this;
     }
 
     /**
-     * Serialize this Affine matrix to a string
+     * Serialize this Affine matrix to a string, as the 16 values of the full 4x4 matrix in row order
      *
-     * @return
+     * @return The serialized matrix
      */
     public String serialize() {
         // TODO: Track the transformations and use that for serialization. One possibility is to
         //  nest the transformations (each rotate, translate, etc returns a new object), tracking the
         //  name of the transform and its parameters at each step. The name handling could be done at
         //  the DTO later, so there is no serialization here.
-        return Stream.of(matrix)
-                .flatMap(row -> DoubleStream.of(row).boxed())
+        return Stream.of(DoubleStream.of(matrix), DoubleStream.of(0, 0, 0, 1))
+                .flatMap(DoubleStream::boxed)
                 .map(Object::toString)
                 .collect(Collectors.joining(","));
     }
@@ -134,18 +219,22 @@ public class Affine {
      *
      * @param value The value to deserialize
      * @return The corresponding {@link Affine} matrix
+     * @throws IllegalArgumentException if the value does not have 16 values, or the matrix cannot be inverted
      */
     public static Affine deserialize(final String value) {
         List<Double> values = Stream.of(value.split(","))
                 .map(Double::parseDouble)
                 .toList();
+        if (values.size() != DIM * DIM) {
+            throw new IllegalArgumentException("Expected " + DIM * DIM + " matrix values, found " + values.size());
+        }
 
         Affine affine = new Affine();
-        for (int i = 0; i < DIM; i++) {
-            for (int j = 0; j < DIM; j++) {
-                affine.matrix[i][j] = values.get(i * DIM + j);
-            }
+        for (int i = 0; i < SIZE; i++) {
+            affine.matrix[i] = values.get(i);
         }
+        affine.inverse = invert(affine.matrix);
+        affine.updateNormalMatrix();
 
         return affine;
     }
@@ -157,28 +246,26 @@ public class Affine {
      * @param angle The angle of rotation in degrees
      * @return The rotation matrix
      */
-    private static double[][] createRotation(final Triplet axis, final double angle) {
+    private static double[] createRotation(final Triplet axis, final double angle) {
         double theta = Math.toRadians(angle);
-        double[][] result = new double[DIM][DIM];
+        double[] result = new double[SIZE];
         double x = axis.getX();
         double y = axis.getY();
         double z = axis.getZ();
         double cosTheta = Math.cos(theta);
         double sinTheta = Math.sin(theta);
 
-        result[0][0] = x * x * (1 - cosTheta) + cosTheta;
-        result[0][1] = y * x * (1 - cosTheta) - z * sinTheta;
-        result[0][2] = z * x * (1 - cosTheta) + y * sinTheta;
-
-        result[1][0] = x * y * (1 - cosTheta) + z * sinTheta;
-        result[1][1] = y * y * (1 - cosTheta) + cosTheta;
-        result[1][2] = z * y * (1 - cosTheta) - x * sinTheta;
+        result[0] = x * x * (1 - cosTheta) + cosTheta;
+        result[1] = y * x * (1 - cosTheta) - z * sinTheta;
+        result[2] = z * x * (1 - cosTheta) + y * sinTheta;
 
-        result[2][0] = x * z * (1 - cosTheta) - y * sinTheta;
-        result[2][1] = y * z * (1 - cosTheta) + x * sinTheta;
-        result[2][2] = z * z * (1 - cosTheta) + cosTheta;
+        result[4] = x * y * (1 - cosTheta) + z * sinTheta;
+        result[5] = y * y * (1 - cosTheta) + cosTheta;
+        result[6] = z * y * (1 - cosTheta) - x * sinTheta;
 
-        result[3][3] = 1;
+        result[8] = x * z * (1 - cosTheta) - y * sinTheta;
+        result[9] = y * z * (1 - cosTheta) + x * sinTheta;
+        result[10] = z * z * (1 - cosTheta) + cosTheta;
         return result;
     }
 
@@ -188,27 +275,20 @@ public class Affine {
      * @param mat     The matrix
      * @param triplet The point or vector
      * @param isPoint Whether the triplet is a point
-     * @return The new triplet
+     * @param result  The triplet for the result, which may be the input triplet
+     * @return The result triplet
      */
-    private Triplet apply(final double[][] mat, final Triplet triplet, final boolean isPoint) {
-        double x = 0;
-        double y = 0;
-        double z = 0;
-
-        for (int i = 0; i < DIM - 1; i++) {
-            double val = triplet.getValue(i);
-            x += mat[0][i] * val;
-            y += mat[1][i] * val;
-            z += mat[2][i] * val;
-        }
-
-        if (isPoint) {
-            x += mat[0][DIM - 1];
-            y += mat[1][DIM - 1];
-            z += mat[2][DIM - 1];
-        }
+    private static Triplet apply(final double[] mat, final Triplet triplet, final boolean isPoint,
+                                 final Triplet result) {
+        double x = triplet.getX();
+        double y = triplet.getY();
+        double z = triplet.getZ();
+        double w = isPoint ? 1 : 0;
 
-        return new Triplet(x, y, z);
+        return result.set(
+                mat[0] * x + mat[1] * y + mat[2] * z + mat[3] * w,
+                mat[4] * x + mat[5] * y + mat[6] * z + mat[7] * w,
+                mat[8] * x + mat[9] * y + mat[10] * z + mat[11] * w);
     }
 
     /**
@@ -218,28 +298,80 @@ public class Affine {
      * @param m2 The second matrix
      * @return The new matrix
      */
-    private static double[][] multiply(double[][] m1, double[][] m2) {
-        double[][] result = new double[DIM][DIM];
-        for (int i = 0; i < DIM; i++) {
+    private static double[] multiply(final double[] m1, final double[] m2) {
+        double[] result = new double[SIZE];
+        for (int i = 0; i < ROWS; i++) {
             for (int j = 0; j < DIM; j++) {
-                result[i][j] = 0;
-                for (int k = 0; k < DIM; k++) {
-                    result[i][j] += m1[i][k] * m2[k][j];
+                // The implied bottom row of m2 only adds the translation of m1
+                double sum = j == DIM - 1 ? m1[i * DIM + DIM - 1] : 0;
+                for (int k = 0; k < ROWS; k++) {
+                    sum += m1[i * DIM + k] * m2[k * DIM + j];
                 }
+                result[i * DIM + j] = sum;
             }
         }
         return result;
     }
 
+    /**
+     * Invert an affine matrix
+     *
+     * @param mat The matrix
+     * @return The inverse matrix
+     * @throws IllegalArgumentException if the matrix cannot be inverted
+     */
+    private static double[] invert(final double[] mat) {
+        // Cofactors of the upper 3x3 part
+        double c00 = mat[5] * mat[10] - mat[6] * mat[9];
+        double c01 = mat[6] * mat[8] - mat[4] * mat[10];
+        double c02 = mat[4] * mat[9] - mat[5] * mat[8];
+        double det = mat[0] * c00 + mat[1] * c01 + mat[2] * c02;
+        if (det == 0 || !Double.isFinite(det)) {
+            throw new IllegalArgumentException("The matrix cannot be inverted");
+        }
+
+        double[] result = new double[SIZE];
+        result[0] = c00 / det;
+        result[1] = (mat[2] * mat[9] - mat[1] * mat[10]) / det;
+        result[2] = (mat[1] * mat[6] - mat[2] * mat[5]) / det;
+        result[4] = c01 / det;
+        result[5] = (mat[0] * mat[10] - mat[2] * mat[8]) / det;
+        result[6] = (mat[2] * mat[4] - mat[0] * mat[6]) / det;
+        result[8] = c02 / det;
+        result[9] = (mat[1] * mat[8] - mat[0] * mat[9]) / det;
+        result[10] = (mat[0] * mat[5] - mat[1] * mat[4]) / det;
+
+        // The inverse translation undoes the translation in the inverted space
+        for (int i = 0; i < ROWS; i++) {
+            int row = i * DIM;
+            result[row + 3] = -(result[row] * mat[3] + result[row + 1] * mat[7] + result[row + 2] * mat[11]);
+        }
+        return result;
+    }
+
+    /**
+     * Update the transform for normals from the inverse, and the determinant from the matrix
+     */
+    private void updateNormalMatrix() {
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < ROWS; j++) {
+                normalMatrix[i * ROWS + j] = inverse[j * DIM + i];
+            }
+        }
+        determinant = matrix[0] * (matrix[5] * matrix[10] - matrix[6] * matrix[9])
+                + matrix[1] * (matrix[6] * matrix[8] - matrix[4] * matrix[10])
+                + matrix[2] * (matrix[4] * matrix[9] - matrix[5] * matrix[8]);
+    }
+
     /**
      * Create an identity matrix
      *
      * @return The identity matrix
      */
-    private static double[][] createIdentity() {
-        double[][] matrix = new double[DIM][DIM];
-        for (int i = 0; i < DIM; i++) {
-            matrix[i][i] = 1;
+    private static double[] createIdentity() {
+        double[] matrix = new double[SIZE];
+        for (int i = 0; i < ROWS; i++) {
+            matrix[i * DIM + i] = 1;
         }
         return matrix;
     }
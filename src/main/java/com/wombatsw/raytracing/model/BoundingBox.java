@@ -10,6 +10,11 @@ import static java.lang.Double.POSITIVE_INFINITY;
 public class BoundingBox {
     private final Interval x, y, z;
 
+    /**
+     * The bounds stored as (minX, minY, minZ, maxX, maxY, maxZ) for the primitive slab test
+     */
+    private final double[] bounds;
+
     /**
      * Empty bounding box constructor
      */
@@ -17,6 +22,7 @@ public class BoundingBox {
         x = Interval.EMPTY;
         y = Interval.EMPTY;
         z = Interval.EMPTY;
+        bounds = toArray(x, y, z);
     }
 
     /**
@@ -29,6 +35,20 @@ public class BoundingBox {
         this.x = padToMin(Interval.createOrdered(a.getX(), b.getX()));
         this.y = padToMin(Interval.createOrdered(a.getY(), b.getY()));
         this.z = padToMin(Interval.createOrdered(a.getZ(), b.getZ()));
+        bounds = toArray(x, y, z);
+    }
+
+    /**
+     * Bounding box from bounds stored in an array
+     *
+     * @param bounds The array of bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @param offset The offset of the bounding box within the array
+     */
+    public BoundingBox(final double[] bounds, final int offset) {
+        this.x = padToMin(new Interval(bounds[offset], bounds[offset + 3]));
+        this.y = padToMin(new Interval(bounds[offset + 1], bounds[offset + 4]));
+        this.z = padToMin(new Interval(bounds[offset + 2], bounds[offset + 5]));
+        this.bounds = toArray(x, y, z);
     }
 
     /**
@@ -41,6 +61,7 @@ public class BoundingBox {
         x = padToMin(new Interval(a.x, b.x));
         y = padToMin(new Interval(a.y, b.y));
         z = padToMin(new Interval(a.z, b.z));
+        bounds = toArray(x, y, z);
     }
 
     /**
@@ -57,8 +78,8 @@ public class BoundingBox {
             for (int j = 0; j < 2; j++) {
                 for (int k = 0; k < 2; k++) {
                     double x = i == 0 ? orig.x.min() : orig.x.max();
-                    double y = i == 0 ? orig.y.min() : orig.y.max();
-                    double z = i == 0 ? orig.z.min() : orig.z.max();
+                    double y = j == 0 ? orig.y.min() : orig.y.max();
+                    double z = k == 0 ? orig.z.min() : orig.z.max();
 
                     Triplet p = affine.apply(new Triplet(x, y, z), true);
 
@@ -73,6 +94,7 @@ public class BoundingBox {
         this.x = new Interval(min[0], max[0]);
         this.y = new Interval(min[1], max[1]);
         this.z = new Interval(min[2], max[2]);
+        bounds = toArray(x, y, z);
     }
 
     /**
@@ -98,31 +120,65 @@ public class BoundingBox {
      * @return The interval of intersection, or {@code null} if there is no intersection
      */
     public Interval intersect(final Ray ray, final Interval tRange) {
+        double tNear = intersect(ray, tRange.min(), tRange.max());
+        if (tNear == POSITIVE_INFINITY) {
+            return null;
+        }
+        return new Interval(tNear, exit(bounds, 0, ray, tRange.max()));
+    }
+
+    /**
+     * Intersect this bounding box with the given ray and within the given range, without allocating
+     *
+     * @param ray  The ray
+     * @param tMin The start of the range of points on the ray to consider
+     * @param tMax The end of the range of points on the ray to consider
+     * @return The location on the ray where it enters the box, clamped to tMin, or
+     * {@link Double#POSITIVE_INFINITY} if there is no intersection
+     */
+    public double intersect(final Ray ray, final double tMin, final double tMax) {
+        return intersect(bounds, 0, ray, tMin, tMax);
+    }
+
+    /**
+     * Intersect a bounding box stored in an array with the given ray and within the given range. This is the slab
+     * test used by all the bounding box tests. It uses the inverse direction and signs cached by the ray to select
+     * the near and far planes for each axis, so it has no divisions or branches per axis.
+     *
+     * @param bounds The array of bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @param offset The offset of the bounding box within the array
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @return The location on the ray where it enters the box, clamped to tMin, or
+     * {@link Double#POSITIVE_INFINITY} if there is no intersection
+     */
+    public static double intersect(final double[] bounds, final int offset, final Ray ray,
+                                   final double tMin, final double tMax) {
         Triplet origin = ray.origin();
-        Triplet dir = ray.direction();
-
-        double min = tRange.min();
-        double max = tRange.max();
-        for (int axis = 0; axis < 3; axis++) {
-            Interval axisInterval = axisInterval(axis);
-            double dirInv = 1.0 / dir.getValue(axis);
-
-            double t0 = (axisInterval.min() - origin.getValue(axis)) * dirInv;
-            double t1 = (axisInterval.max() - origin.getValue(axis)) * dirInv;
-
-            if (t0 < t1) {
-                min = Math.max(t0, min);
-                max = Math.min(t1, max);
-            } else {
-                min = Math.max(t1, min);
-                max = Math.min(t0, max);
-            }
+        double tNear = Math.max(tMin, Math.max(
+                (bounds[offset + ray.getSignX() * 3] - origin.getX()) * ray.getInvX(), Math.max(
+                (bounds[offset + 1 + ray.getSignY() * 3] - origin.getY()) * ray.getInvY(),
+                (bounds[offset + 2 + ray.getSignZ() * 3] - origin.getZ()) * ray.getInvZ())));
+        double tFar = exit(bounds, offset, ray, tMax);
+        return tNear < tFar ? tNear : POSITIVE_INFINITY;
+    }
 
-            if (max <= min) {
-                return null;
-            }
-        }
-        return new Interval(min, max);
+    /**
+     * Get the location on a ray where it exits a bounding box stored in an array
+     *
+     * @param bounds The array of bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @param offset The offset of the bounding box within the array
+     * @param ray    The ray
+     * @param tMax   The end of the range of points on the ray to consider
+     * @return The exit location, clamped to tMax
+     */
+    public static double exit(final double[] bounds, final int offset, final Ray ray, final double tMax) {
+        Triplet origin = ray.origin();
+        return Math.min(tMax, Math.min(
+                (bounds[offset + 3 - ray.getSignX() * 3] - origin.getX()) * ray.getInvX(), Math.min(
+                (bounds[offset + 4 - ray.getSignY() * 3] - origin.getY()) * ray.getInvY(),
+                (bounds[offset + 5 - ray.getSignZ() * 3] - origin.getZ()) * ray.getInvZ())));
     }
 
     /**
@@ -138,6 +194,28 @@ public class BoundingBox {
         }
     }
 
+    /**
+     * Get the surface area of this bounding box. An empty bounding box has no area
+     *
+     * @return The surface area
+     */
+    public double surfaceArea() {
+        double dx = x.size();
+        double dy = y.size();
+        double dz = z.size();
+        if (dx < 0 || dy < 0 || dz < 0) {
+            return 0;
+        }
+        return 2.0 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Pack the intervals into an array of bounds
+     */
+    private static double[] toArray(final Interval x, final Interval y, final Interval z) {
+        return new double[]{x.min(), y.min(), z.min(), x.max(), y.max(), z.max()};
+    }
+
     private Interval padToMin(final Interval interval) {
         return interval.size() < EPSILON ? interval.expand(EPSILON) : interval;
     }
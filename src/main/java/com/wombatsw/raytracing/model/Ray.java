@@ -1,18 +1,129 @@
 package com.wombatsw.raytracing.model;
 
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
 /**
- * A ray consisting of an origin and direction
+ * A ray consisting of an origin and direction. The inverse of the direction and its signs are computed once when
+ * the ray is created, since they are needed for every bounding box test made with the ray. Rays are immutable,
+ * except for scratch rays that are updated in place by {@link Affine#invert(Ray, Ray)} and {@link ScatterData}.
  */
-public record Ray(Triplet origin, Triplet direction, double time) {
-    public Ray {
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
+public final class Ray {
+    @EqualsAndHashCode.Include
+    @ToString.Include
+    private final Triplet origin;
+
+    @EqualsAndHashCode.Include
+    @ToString.Include
+    private final Triplet direction;
+
+    @EqualsAndHashCode.Include
+    @ToString.Include
+    private double time;
+
+    /**
+     * The inverse of each direction component
+     */
+    @Getter
+    private double invX, invY, invZ;
+
+    /**
+     * The sign of each direction component, 1 if negative and 0 otherwise
+     */
+    @Getter
+    private int signX, signY, signZ;
+
+    public Ray(final Triplet origin, final Triplet direction, final double time) {
+        this.origin = origin;
+        this.direction = direction;
+        this.time = time;
+
         origin.setImmutable();
         direction.setImmutable();
+        updateInverse();
     }
 
     public Ray(final Triplet origin, final Triplet direction) {
         this(origin, direction, 0);
     }
 
+    /**
+     * @return The origin of the ray
+     */
+    public Triplet origin() {
+        return origin;
+    }
+
+    /**
+     * @return The direction of the ray
+     */
+    public Triplet direction() {
+        return direction;
+    }
+
+    /**
+     * @return The time at which the ray was cast, used for motion blur
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Overwrite this ray with another ray transformed by the inverse of an affine matrix, and recompute the inverse
+     * direction. Only for scratch rays owned by a single thread, see {@link Affine#invert(Ray, Ray)}
+     *
+     * @param affine The affine matrix
+     * @param ray    The ray to transform, which must not be this ray
+     * @return This ray
+     */
+    Ray setInverted(final Affine affine, final Ray ray) {
+        origin.setMutable(true);
+        direction.setMutable(true);
+        affine.invert(ray.origin, true, origin);
+        affine.invert(ray.direction, false, direction);
+        origin.setImmutable();
+        direction.setImmutable();
+        time = ray.time;
+        updateInverse();
+        return this;
+    }
+
+    /**
+     * Overwrite this ray, and recompute the inverse direction. Only for scratch rays owned by a single thread, see
+     * {@link ScatterData}
+     *
+     * @param origin    The new origin
+     * @param direction The new direction
+     * @param time      The new time
+     * @return This ray
+     */
+    Ray set(final Triplet origin, final Triplet direction, final double time) {
+        this.origin.setMutable(true);
+        this.direction.setMutable(true);
+        this.origin.set(origin);
+        this.direction.set(direction);
+        this.origin.setImmutable();
+        this.direction.setImmutable();
+        this.time = time;
+        updateInverse();
+        return this;
+    }
+
+    /**
+     * Compute the inverse of the direction and its signs
+     */
+    private void updateInverse() {
+        invX = 1.0 / direction.getX();
+        invY = 1.0 / direction.getY();
+        invZ = 1.0 / direction.getZ();
+        signX = invX < 0 ? 1 : 0;
+        signY = invY < 0 ? 1 : 0;
+        signZ = invZ < 0 ? 1 : 0;
+    }
+
     /**
      * Get the point at the given location on the ray. 1 would be the tip of the direction vector relative to the point
      * of origin
@@ -1,10 +1,50 @@
 package com.wombatsw.raytracing.model;
 
 /**
- * The results of scattering light off of a surface
- *
- * @param ray         The outbound ray
- * @param attenuation The attenuation color
+ * The results of scattering light off of a surface. Instances are scratch state owned by a single tracing thread,
+ * which materials overwrite for each scatter, so scattering does not allocate. The ray of the previous scatter is
+ * still in use while a path is traced, so paths alternate between two instances
  */
-public record ScatterData(Ray ray, Triplet attenuation) {
+public final class ScatterData {
+    private final Triplet direction = Triplet.newZeroVector();
+    private final Ray ray = new Ray(Triplet.newZeroVector(), new Triplet(0, 0, 1));
+    private Triplet attenuation;
+
+    /**
+     * Get the scratch triplet for building the outbound direction, which is copied into the ray by
+     * {@link #set(Triplet, double, Triplet)}
+     *
+     * @return The scratch direction
+     */
+    public Triplet direction() {
+        return direction;
+    }
+
+    /**
+     * Set the outbound ray to start at the given origin, in the direction built in {@link #direction()}
+     *
+     * @param origin      The origin of the outbound ray
+     * @param time        The time of the outbound ray
+     * @param attenuation The attenuation color, which is not copied and must not be modified
+     * @return This scatter data
+     */
+    public ScatterData set(final Triplet origin, final double time, final Triplet attenuation) {
+        ray.set(origin, direction, time);
+        this.attenuation = attenuation;
+        return this;
+    }
+
+    /**
+     * @return The outbound ray
+     */
+    public Ray ray() {
+        return ray;
+    }
+
+    /**
+     * @return The attenuation color
+     */
+    public Triplet attenuation() {
+        return attenuation;
+    }
 }
@@ -8,20 +8,20 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-import java.util.Arrays;
 import java.util.Collection;
 
 import static com.wombatsw.raytracing.Constants.EPSILON;
 
 /**
- * A mutable Triplet
+ * A mutable Triplet. The components are plain fields, so a triplet is a single object and the mutating operations
+ * do not allocate. Hot paths keep intermediate values in reused triplets, or in local doubles.
  */
 @EqualsAndHashCode(exclude = "mutable")
-@ToString
+@ToString(exclude = "mutable")
 public class Triplet {
-    // TODO: Remove Jackson annotations once Camera has its own DTO
-    @JsonValue
-    private final double[] values;
+    private double x;
+    private double y;
+    private double z;
 
     /**
      * Set the mutability of this tuple. Used to prevent changes on objects that need to be used repeatedly
@@ -32,11 +32,9 @@ public class Triplet {
     private boolean mutable = true;
 
     public Triplet(final double x, final double y, final double z) {
-        values = new double[]{x, y, z};
-    }
-
-    private Triplet(final double[] values) {
-        this.values = Arrays.copyOf(values, values.length);
+        this.x = x;
+        this.y = y;
+        this.z = z;
     }
 
     /**
@@ -46,7 +44,7 @@ public class Triplet {
      * @param tail The start or tail of the vector
      */
     public Triplet(final Triplet head, final Triplet tail) {
-        this(head.copy().sub(tail).values);
+        this(head.x - tail.x, head.y - tail.y, head.z - tail.z);
     }
 
     /**
@@ -147,6 +145,44 @@ public class Triplet {
         }
     }
 
+    /**
+     * Map a point in the unit square to a unit vector, uniformly distributed over the sphere
+     *
+     * @param u1 The first coordinate in the range [0, 1)
+     * @param u2 The second coordinate in the range [0, 1)
+     * @return The new {@link Triplet}
+     */
+    public static Triplet unitVector(final double u1, final double u2) {
+        return newZeroVector().addUnitVector(u1, u2, 1);
+    }
+
+    /**
+     * Map a point in the unit square to a point in the unit disc, using Shirley and Chiu's concentric mapping which
+     * keeps nearby points close together. The disc is in the x/y plane with z = 0
+     *
+     * @param u1 The first coordinate in the range [0, 1)
+     * @param u2 The second coordinate in the range [0, 1)
+     * @return The new {@link Triplet}
+     */
+    public static Triplet inUnitDisc(final double u1, final double u2) {
+        double a = 2 * u1 - 1;
+        double b = 2 * u2 - 1;
+        if (a == 0 && b == 0) {
+            return newZeroVector();
+        }
+
+        double r;
+        double theta;
+        if (Math.abs(a) > Math.abs(b)) {
+            r = a;
+            theta = Math.PI / 4 * (b / a);
+        } else {
+            r = b;
+            theta = Math.PI / 2 - Math.PI / 4 * (a / b);
+        }
+        return new Triplet(r * Math.cos(theta), r * Math.sin(theta), 0);
+    }
+
     /**
      * Set the triplet to be immutable
      *
@@ -158,29 +194,28 @@ public class Triplet {
     }
 
     public Triplet copy() {
-        // Tuple data is copied in the constructor
-        return new Triplet(values);
+        return new Triplet(x, y, z);
     }
 
     /**
      * @return the first component
      */
     public double getX() {
-        return getValue(0);
+        return x;
     }
 
     /**
      * @return the second component
      */
     public double getY() {
-        return getValue(1);
+        return y;
     }
 
     /**
      * @return the third component
      */
     public double getZ() {
-        return getValue(2);
+        return z;
     }
 
     /**
@@ -190,7 +225,50 @@ public class Triplet {
      * @return The value
      */
     public double getValue(final int index) {
-        return values[index];
+        return switch (index) {
+            case 0 -> x;
+            case 1 -> y;
+            case 2 -> z;
+            default -> throw new IndexOutOfBoundsException(index);
+        };
+    }
+
+    /**
+     * Get the components as an array, which is how triplets are serialized
+     *
+     * @return A new array with the components
+     */
+    // TODO: Remove Jackson annotations once Camera has its own DTO
+    @JsonValue
+    public double[] toArray() {
+        return new double[]{x, y, z};
+    }
+
+    /**
+     * Set the components of this triplet. This is a mutating operation
+     *
+     * @param x The first component
+     * @param y The second component
+     * @param z The third component
+     * @return This triplet
+     */
+    public Triplet set(final double x, final double y, final double z) {
+        assertMutationAllowed();
+
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * Set the components of this triplet to those of the provided one. This is a mutating operation
+     *
+     * @param t The triplet to copy
+     * @return This triplet
+     */
+    public Triplet set(final Triplet t) {
+        return set(t.x, t.y, t.z);
     }
 
     /**
@@ -202,9 +280,9 @@ public class Triplet {
     public Triplet add(final Triplet t) {
         assertMutationAllowed();
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] += t.values[i];
-        }
+        x += t.x;
+        y += t.y;
+        z += t.z;
         return this;
     }
 
@@ -217,9 +295,9 @@ public class Triplet {
     public Triplet sub(final Triplet t) {
         assertMutationAllowed();
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] -= t.values[i];
-        }
+        x -= t.x;
+        y -= t.y;
+        z -= t.z;
         return this;
     }
 
@@ -232,9 +310,9 @@ public class Triplet {
     public Triplet mul(final double t) {
         assertMutationAllowed();
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] *= t;
-        }
+        x *= t;
+        y *= t;
+        z *= t;
         return this;
     }
 
@@ -247,9 +325,9 @@ public class Triplet {
     public Triplet mul(final Triplet t) {
         assertMutationAllowed();
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] *= t.values[i];
-        }
+        x *= t.x;
+        y *= t.y;
+        z *= t.z;
         return this;
     }
 
@@ -282,9 +360,43 @@ public class Triplet {
     public Triplet addScaled(final Triplet t, final double scale) {
         assertMutationAllowed();
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] += t.values[i] * scale;
-        }
+        x += t.x * scale;
+        y += t.y * scale;
+        z += t.z * scale;
+        return this;
+    }
+
+    /**
+     * Add the component-wise product of the provided triplets to this one. This is a mutating operation
+     *
+     * @param u The first value to multiply
+     * @param v The second value to multiply
+     * @return This triplet
+     */
+    public Triplet addProduct(final Triplet u, final Triplet v) {
+        assertMutationAllowed();
+
+        x += u.x * v.x;
+        y += u.y * v.y;
+        z += u.z * v.z;
+        return this;
+    }
+
+    /**
+     * Add the component-wise product of the provided triplets to this one after scaling it. This is a mutating
+     * operation
+     *
+     * @param u     The first value to multiply
+     * @param v     The second value to multiply
+     * @param scale The scaling factor for the product
+     * @return This triplet
+     */
+    public Triplet addProduct(final Triplet u, final Triplet v, final double scale) {
+        assertMutationAllowed();
+
+        x += u.x * v.x * scale;
+        y += u.y * v.y * scale;
+        z += u.z * v.z * scale;
         return this;
     }
 
@@ -301,6 +413,27 @@ public class Triplet {
         return addScaled(u, uScale).addScaled(v, vScale);
     }
 
+    /**
+     * Add a unit vector to this one after scaling it, without allocating. The unit vector is mapped from a point in
+     * the unit square in the same way as {@link #unitVector(double, double)}. This is a mutating operation
+     *
+     * @param u1    The first coordinate in the range [0, 1)
+     * @param u2    The second coordinate in the range [0, 1)
+     * @param scale The scaling factor
+     * @return This triplet
+     */
+    public Triplet addUnitVector(final double u1, final double u2, final double scale) {
+        assertMutationAllowed();
+
+        double uz = 1 - 2 * u1;
+        double r = Math.sqrt(Math.max(0, 1 - uz * uz));
+        double phi = 2 * Math.PI * u2;
+        x += r * Math.cos(phi) * scale;
+        y += r * Math.sin(phi) * scale;
+        z += uz * scale;
+        return this;
+    }
+
     /**
      * Normalize this vector to have unit length. This is a mutating operation
      *
@@ -352,9 +485,9 @@ public class Triplet {
     public Triplet lerp(final Triplet end, final double a) {
         assertMutationAllowed();
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] = MathUtils.lerp(a, values[i], end.values[i]);
-        }
+        x = MathUtils.lerp(a, x, end.x);
+        y = MathUtils.lerp(a, y, end.y);
+        z = MathUtils.lerp(a, z, end.z);
         return this;
     }
 
@@ -365,7 +498,7 @@ public class Triplet {
      * @return The dot product
      */
     public double dot(final Triplet t) {
-        return getX() * t.getX() + getY() * t.getY() + getZ() * t.getZ();
+        return x * t.x + y * t.y + z * t.z;
     }
 
     /**
@@ -375,10 +508,18 @@ public class Triplet {
      * @return A new vector with the result
      */
     public Triplet cross(final Triplet v) {
-        return new Triplet(
-                getY() * v.getZ() - getZ() * v.getY(),
-                getZ() * v.getX() - getX() * v.getZ(),
-                getX() * v.getY() - getY() * v.getX());
+        return new Triplet(y * v.z - z * v.y, z * v.x - x * v.z, x * v.y - y * v.x);
+    }
+
+    /**
+     * Set this triplet to the cross product of the provided vectors. This is a mutating operation
+     *
+     * @param u The first vector
+     * @param v The second vector
+     * @return This triplet
+     */
+    public Triplet setCross(final Triplet u, final Triplet v) {
+        return set(u.y * v.z - u.z * v.y, u.z * v.x - u.x * v.z, u.x * v.y - u.y * v.x);
     }
 
     /**
@@ -399,6 +540,15 @@ public class Triplet {
         return Math.sqrt(lenSquared());
     }
 
+    /**
+     * Get the largest component of this triplet
+     *
+     * @return The largest component
+     */
+    public double maxComponent() {
+        return Math.max(getX(), Math.max(getY(), getZ()));
+    }
+
     /**
      * Check if the triplet value is near zero for all components
      *
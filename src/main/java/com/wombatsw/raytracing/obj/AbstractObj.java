@@ -5,9 +5,12 @@ import com.wombatsw.raytracing.model.BoundingBox;
 import com.wombatsw.raytracing.model.Intersection;
 import com.wombatsw.raytracing.model.Interval;
 import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.List;
+
 /**
  * Base class for all scene objects
  */
@@ -29,5 +32,98 @@ public abstract class AbstractObj {
      * @param tRange The interval on the ray that is allowed for intersections
      * @return The {@link Intersection} data or {@code null} if no intersection exists, or it was outside the interval
      */
-    public abstract Intersection intersect(final Ray ray, final Interval tRange);
+    public Intersection intersect(final Ray ray, final Interval tRange) {
+        HitRecord record = new HitRecord(tRange.max());
+        return hit(ray, tRange.min(), record) ? record.createIntersection(ray) : null;
+    }
+
+    /**
+     * Find the closest hit with this object that is nearer than the hit already in the record, and record it. Only
+     * the location on the ray and the primitive are recorded, see {@link HitRecord}
+     *
+     * @param ray    The ray to check
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param record The closest hit so far, whose location is the end of the range
+     * @return Whether a closer hit was recorded
+     */
+    public abstract boolean hit(final Ray ray, final double tMin, final HitRecord record);
+
+    /**
+     * Create the intersection data for a hit recorded by this primitive
+     *
+     * @param ray    The ray that was traced, in the space of this primitive
+     * @param record The hit recorded by {@link #hit}
+     * @return The {@link Intersection}
+     */
+    Intersection createIntersection(final Ray ray, final HitRecord record) {
+        throw new IllegalStateException(getClass().getSimpleName() + " does not record hits of its own");
+    }
+
+    /**
+     * Check if the given ray hits this object anywhere within the interval. This is the visibility test for shadow
+     * rays, so it returns as soon as any hit is found and never creates an {@link Intersection}
+     *
+     * @param ray    The ray to check
+     * @param tRange The interval on the ray that is allowed for intersections
+     * @return Whether there is any intersection within the interval
+     */
+    public abstract boolean occluded(final Ray ray, final Interval tRange);
+
+    /**
+     * Check if the given ray hits this object anywhere between two locations, see {@link #occluded(Ray, Interval)}.
+     * Hierarchies call this for the objects in their leaves, so shadow rays do not need an interval for each one.
+     * Objects that test the locations directly override it
+     *
+     * @param ray  The ray to check
+     * @param tMin The start of the range of points on the ray to consider
+     * @param tMax The end of the range of points on the ray to consider
+     * @return Whether there is any intersection within the range
+     */
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return occluded(ray, new Interval(tMin, tMax));
+    }
+
+    /**
+     * Add the emissive objects that can be sampled as lights to the list. See {@link LightList}
+     *
+     * @param lights The list of lights to add to
+     */
+    public void collectLights(final List<AbstractObj> lights) {
+    }
+
+    /**
+     * Get the probability density, with respect to solid angle, of {@link #random} choosing the direction of the ray
+     *
+     * @param ray    The ray from the origin used for {@link #random}
+     * @param tRange The interval on the ray where it must hit this object
+     * @return The probability density, or 0 if the ray does not hit this object within the interval
+     */
+    public double pdfValue(final Ray ray, final Interval tRange) {
+        return 0;
+    }
+
+    /**
+     * Choose a direction from the origin towards a random point on this object. Only objects added by
+     * {@link #collectLights} need to support this
+     *
+     * @param origin The origin of the direction
+     * @param time   The time of the ray
+     * @param u1     The first random value in [0, 1)
+     * @param u2     The second random value in [0, 1)
+     * @return The direction, which does not need to be a unit vector
+     */
+    public Triplet random(final Triplet origin, final double time, final double u1, final double u2) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be sampled as a light");
+    }
+
+    /**
+     * Add this object to the list of lights if its material is emissive
+     *
+     * @param lights The list of lights to add to
+     */
+    void collectIfEmissive(final List<AbstractObj> lights) {
+        if (material != null && material.isEmissive()) {
+            lights.add(this);
+        }
+    }
 }
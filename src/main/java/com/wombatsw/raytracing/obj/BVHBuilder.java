@@ -0,0 +1,570 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Interval;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * Builds Bounding Volume Hierarchies. The builder only works with the primitive bounds, packed into arrays along with
+ * the primitive centroids, and reorders an array of primitive indices rather than the primitives themselves.
+ * Subtrees above a size threshold are built in parallel on a {@link ForkJoinPool}.
+ */
+@Getter
+@Setter
+@ToString
+public class BVHBuilder {
+    /**
+     * The strategy used to split the primitives between child nodes
+     */
+    private SplitMethod splitMethod = SplitMethod.MEDIAN;
+
+    /**
+     * The number of centroid bins per axis used for the SAH split
+     */
+    private int bins = 16;
+
+    /**
+     * The largest number of primitives placed in a leaf node
+     */
+    private int maxLeafSize = 2;
+
+    /**
+     * Subtrees with more primitives than this are split onto separate tasks
+     */
+    private int parallelThreshold = 4096;
+
+    /**
+     * The number of children of each node when the built hierarchy is flattened for traversal
+     */
+    private BVHWidth width = BVHWidth.BINARY;
+
+    /**
+     * The pool used for parallel builds
+     */
+    @ToString.Exclude
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * The cache of flattened hierarchies, or {@code null} to always build them
+     */
+    @ToString.Exclude
+    private BVHCache cache = BVHCache.getDefault();
+
+    public BVHBuilder() {
+    }
+
+    public BVHBuilder(final SplitMethod splitMethod) {
+        this.splitMethod = splitMethod;
+    }
+
+    /**
+     * @param bins The number of centroid bins per axis used for the SAH split, at least 2
+     */
+    public void setBins(final int bins) {
+        if (bins < 2) {
+            throw new IllegalArgumentException("BVH builder requires at least 2 bins");
+        }
+        this.bins = bins;
+    }
+
+    /**
+     * @param maxLeafSize The largest number of primitives placed in a leaf node, at least 1
+     */
+    public void setMaxLeafSize(final int maxLeafSize) {
+        if (maxLeafSize < 1) {
+            throw new IllegalArgumentException("BVH builder requires a leaf size of at least 1");
+        }
+        this.maxLeafSize = maxLeafSize;
+    }
+
+    /**
+     * A node of the built hierarchy. Leaf nodes reference a range of the primitive order array
+     */
+    @Getter
+    public static final class Node {
+        /**
+         * The node bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ)
+         */
+        private final double[] bounds;
+        private Node left;
+        private Node right;
+        /**
+         * The axis the children were split along
+         */
+        private int axis;
+        /**
+         * The index of the first primitive of a leaf within the primitive order array
+         */
+        private int start;
+        /**
+         * The number of primitives in a leaf, or 0 for an interior node
+         */
+        private int count;
+
+        private Node(final double[] bounds) {
+            this.bounds = bounds;
+        }
+
+        /**
+         * @return Whether this is a leaf node
+         */
+        public boolean isLeaf() {
+            return count > 0;
+        }
+
+        /**
+         * @return The number of nodes in this subtree
+         */
+        public int getNodeCount() {
+            return isLeaf() ? 1 : 1 + left.getNodeCount() + right.getNodeCount();
+        }
+
+        /**
+         * @return The bounds as a {@link BoundingBox}
+         */
+        public BoundingBox toBoundingBox() {
+            return new BoundingBox(bounds, 0);
+        }
+    }
+
+    /**
+     * The result of a build
+     *
+     * @param root  The root node
+     * @param order The primitive indices in leaf order
+     */
+    public record Result(Node root, int[] order) {
+    }
+
+    /**
+     * A hierarchy flattened for traversal
+     *
+     * @param order  The primitive indices in leaf order
+     * @param layout The flattened hierarchy
+     */
+    record Flattened(int[] order, HierarchyLayout layout) {
+    }
+
+    /**
+     * Build a hierarchy for a list of objects
+     *
+     * @param objects The objects
+     * @return The build result, with the order array indexing into the list
+     */
+    public Result build(final List<? extends AbstractObj> objects) {
+        return build(primitiveBounds(objects), objects.size());
+    }
+
+    /**
+     * Build and flatten a hierarchy for a list of objects, or read it from the cache
+     *
+     * @param objects The objects
+     * @return The flattened hierarchy, with the order array indexing into the list
+     */
+    Flattened buildLayout(final List<? extends AbstractObj> objects) {
+        return buildLayout(primitiveBounds(objects), objects.size());
+    }
+
+    /**
+     * Build and flatten a hierarchy for a set of primitives, or read it from the cache. The hierarchy only depends on
+     * the primitive bounds and the builder settings, so a cached hierarchy is the one that would be built
+     *
+     * @param bounds The primitive bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ) for each primitive
+     * @param count  The number of primitives
+     * @return The flattened hierarchy
+     */
+    Flattened buildLayout(final double[] bounds, final int count) {
+        if (cache == null || count < cache.getMinPrimitives()) {
+            return flatten(build(bounds, count));
+        }
+
+        String key = getCacheKey(bounds, count);
+        Flattened flattened = cache.get(key, count);
+        if (flattened == null) {
+            flattened = flatten(build(bounds, count));
+            cache.put(key, flattened);
+        }
+        return flattened;
+    }
+
+    /**
+     * Get the key of a hierarchy in a {@link BVHCache}. This is a hash of the primitive bounds and the settings which
+     * change the hierarchy, so it is the same for the same primitives in every run
+     *
+     * @param bounds The primitive bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ) for each primitive
+     * @param count  The number of primitives
+     * @return The key
+     */
+    String getCacheKey(final double[] bounds, final int count) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        String settings = splitMethod + "," + bins + "," + maxLeafSize + "," + width + "," + count;
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+        int values = chunk.capacity() / Double.BYTES;
+        for (int i = 0; i < count * 6; i += values) {
+            int n = Math.min(values, count * 6 - i);
+            chunk.clear();
+            chunk.asDoubleBuffer().put(bounds, i, n);
+            chunk.limit(n * Double.BYTES);
+            digest.update(chunk);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Build a hierarchy for a set of primitives
+     *
+     * @param bounds The primitive bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ) for each primitive
+     * @param count  The number of primitives
+     * @return The build result
+     */
+    public Result build(final double[] bounds, final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Cannot build a BVH without any primitives");
+        }
+
+        double[] centroids = new double[count * 3];
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; axis++) {
+                centroids[i * 3 + axis] = (bounds[i * 6 + axis] + bounds[i * 6 + 3 + axis]) * 0.5;
+            }
+        }
+
+        BuildTask task = new BuildTask(bounds, centroids, order, 0, count);
+        Node root = count > parallelThreshold ? pool.invoke(task) : task.compute();
+        return new Result(root, order);
+    }
+
+    /**
+     * Flatten a build result for traversal
+     */
+    private Flattened flatten(final Result result) {
+        return new Flattened(result.order(), HierarchyLayout.create(result.root(), width));
+    }
+
+    /**
+     * Pack the bounds of a list of objects
+     */
+    private static double[] primitiveBounds(final List<? extends AbstractObj> objects) {
+        double[] bounds = new double[objects.size() * 6];
+        for (int i = 0; i < objects.size(); i++) {
+            BoundingBox bbox = objects.get(i).getBoundingBox();
+            for (int axis = 0; axis < 3; axis++) {
+                Interval interval = bbox.axisInterval(axis);
+                bounds[i * 6 + axis] = interval.min();
+                bounds[i * 6 + 3 + axis] = interval.max();
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Get the Surface Area Heuristic cost of a built tree. This is the expected cost of intersecting a ray with the
+     * tree, relative to the cost of intersecting a single primitive, assuming that rays which hit the root are
+     * uniformly distributed. Lower is better, so it can be used to compare trees built for the same primitives.
+     *
+     * @param node The root of the tree
+     * @return The SAH cost
+     */
+    public static double getSahCost(final Node node) {
+        if (node.isLeaf()) {
+            return node.count * BVHNode.INTERSECTION_COST;
+        }
+
+        double area = surfaceArea(node.bounds, 0);
+        double cost = BVHNode.TRAVERSAL_COST;
+        for (Node child : new Node[]{node.left, node.right}) {
+            double childCost = getSahCost(child);
+            cost += area > 0 ? childCost * surfaceArea(child.bounds, 0) / area : childCost;
+        }
+        return cost;
+    }
+
+    /**
+     * A task to build the subtree for a range of the primitive order array
+     */
+    private final class BuildTask extends RecursiveTask<Node> {
+        private final double[] bounds;
+        private final double[] centroids;
+        private final int[] order;
+        private final int start;
+        private final int end;
+
+        private BuildTask(final double[] bounds, final double[] centroids, final int[] order,
+                          final int start, final int end) {
+            this.bounds = bounds;
+            this.centroids = centroids;
+            this.order = order;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Node compute() {
+            return build(start, end);
+        }
+
+        /**
+         * Build the subtree for a range of the primitive order array, forking large subtrees
+         *
+         * @param from The start of the range, inclusive
+         * @param to   The end of the range, exclusive
+         * @return The subtree root
+         */
+        private Node build(final int from, final int to) {
+            double[] nodeBounds = emptyBounds();
+            double[] centroidBounds = emptyBounds();
+            for (int i = from; i < to; i++) {
+                int prim = order[i];
+                for (int axis = 0; axis < 3; axis++) {
+                    nodeBounds[axis] = Math.min(nodeBounds[axis], bounds[prim * 6 + axis]);
+                    nodeBounds[3 + axis] = Math.max(nodeBounds[3 + axis], bounds[prim * 6 + 3 + axis]);
+                    centroidBounds[axis] = Math.min(centroidBounds[axis], centroids[prim * 3 + axis]);
+                    centroidBounds[3 + axis] = Math.max(centroidBounds[3 + axis], centroids[prim * 3 + axis]);
+                }
+            }
+
+            Node node = new Node(nodeBounds);
+            int span = to - from;
+            if (span <= maxLeafSize) {
+                node.start = from;
+                node.count = span;
+                return node;
+            }
+
+            int mid = -1;
+            if (splitMethod == SplitMethod.SAH) {
+                mid = partitionSAH(from, to, centroidBounds, node);
+            }
+            if (mid < 0) {
+                node.axis = longestAxis(centroidBounds);
+                mid = from + span / 2;
+                select(from, to, mid, node.axis);
+            }
+
+            if (span > parallelThreshold) {
+                BuildTask leftTask = new BuildTask(bounds, centroids, order, from, mid);
+                BuildTask rightTask = new BuildTask(bounds, centroids, order, mid, to);
+                invokeAll(leftTask, rightTask);
+                node.left = leftTask.join();
+                node.right = rightTask.join();
+            } else {
+                node.left = build(from, mid);
+                node.right = build(mid, to);
+            }
+            return node;
+        }
+
+        /**
+         * Partition a range using a binned Surface Area Heuristic. The centroids are placed in evenly sized bins
+         * along each axis, and the split between bins which minimizes the sum of the child surface areas weighted by
+         * their primitive counts is used.
+         *
+         * @param from           The start of the range, inclusive
+         * @param to             The end of the range, exclusive
+         * @param centroidBounds The bounds of the centroids in the range
+         * @param node           The node being split, which receives the split axis
+         * @return The index of the first primitive of the second partition, or -1 if no split separates the
+         * primitives
+         */
+        private int partitionSAH(final int from, final int to, final double[] centroidBounds, final Node node) {
+            int bestAxis = -1;
+            int bestBin = -1;
+            double bestCost = POSITIVE_INFINITY;
+
+            int[] counts = new int[bins];
+            double[] binBounds = new double[bins * 6];
+            double[] rightAreas = new double[bins];
+            double[] acc = new double[6];
+            for (int axis = 0; axis < 3; axis++) {
+                double min = centroidBounds[axis];
+                double extent = centroidBounds[3 + axis] - min;
+                if (extent <= 0) {
+                    continue;
+                }
+
+                for (int b = 0; b < bins; b++) {
+                    counts[b] = 0;
+                    resetBounds(binBounds, b * 6);
+                }
+                for (int i = from; i < to; i++) {
+                    int prim = order[i];
+                    int b = binIndex(centroids[prim * 3 + axis], min, extent);
+                    counts[b]++;
+                    union(binBounds, b * 6, bounds, prim * 6);
+                }
+
+                // Sweep from the right to get the area to the right of each split
+                resetBounds(acc, 0);
+                for (int b = bins - 1; b > 0; b--) {
+                    union(acc, 0, binBounds, b * 6);
+                    rightAreas[b] = surfaceArea(acc, 0);
+                }
+
+                // Sweep from the left, evaluating the split after each bin
+                resetBounds(acc, 0);
+                int leftCount = 0;
+                for (int b = 0; b < bins - 1; b++) {
+                    union(acc, 0, binBounds, b * 6);
+                    leftCount += counts[b];
+                    int rightCount = (to - from) - leftCount;
+                    if (leftCount == 0 || rightCount == 0) {
+                        continue;
+                    }
+
+                    double cost = leftCount * surfaceArea(acc, 0) + rightCount * rightAreas[b + 1];
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = b;
+                    }
+                }
+            }
+
+            if (bestAxis < 0) {
+                return -1;
+            }
+
+            // Move the primitives in the bins up to and including the best bin to the front
+            double min = centroidBounds[bestAxis];
+            double extent = centroidBounds[3 + bestAxis] - min;
+            int mid = from;
+            for (int i = from; i < to; i++) {
+                if (binIndex(centroids[order[i] * 3 + bestAxis], min, extent) <= bestBin) {
+                    int tmp = order[mid];
+                    order[mid] = order[i];
+                    order[i] = tmp;
+                    mid++;
+                }
+            }
+            node.axis = bestAxis;
+            return mid;
+        }
+
+        /**
+         * Partially sort a range so that the primitive at index k has the k-th smallest centroid along the axis,
+         * with smaller centroids before it and larger ones after it
+         *
+         * @param from The start of the range, inclusive
+         * @param to   The end of the range, exclusive
+         * @param k    The index to select
+         * @param axis The axis to compare the centroids along
+         */
+        private void select(final int from, final int to, final int k, final int axis) {
+            int lo = from;
+            int hi = to - 1;
+            while (lo < hi) {
+                double pivot = centroids[order[(lo + hi) >>> 1] * 3 + axis];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (centroids[order[i] * 3 + axis] < pivot) {
+                        i++;
+                    }
+                    while (centroids[order[j] * 3 + axis] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        int tmp = order[i];
+                        order[i] = order[j];
+                        order[j] = tmp;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Get the SAH bin for a centroid value
+         */
+        private int binIndex(final double c, final double min, final double extent) {
+            return Math.min(bins - 1, (int) (bins * (c - min) / extent));
+        }
+    }
+
+    /**
+     * Create empty bounds
+     */
+    private static double[] emptyBounds() {
+        double[] bounds = new double[6];
+        resetBounds(bounds, 0);
+        return bounds;
+    }
+
+    /**
+     * Set the bounds at the given offset to be empty
+     */
+    private static void resetBounds(final double[] bounds, final int offset) {
+        for (int axis = 0; axis < 3; axis++) {
+            bounds[offset + axis] = POSITIVE_INFINITY;
+            bounds[offset + 3 + axis] = NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Grow the bounds at the destination offset to include the bounds at the source offset
+     */
+    private static void union(final double[] dest, final int destOffset, final double[] src, final int srcOffset) {
+        for (int axis = 0; axis < 3; axis++) {
+            dest[destOffset + axis] = Math.min(dest[destOffset + axis], src[srcOffset + axis]);
+            dest[destOffset + 3 + axis] = Math.max(dest[destOffset + 3 + axis], src[srcOffset + 3 + axis]);
+        }
+    }
+
+    /**
+     * Get the surface area of the bounds at the given offset. Empty bounds have no area
+     */
+    static double surfaceArea(final double[] bounds, final int offset) {
+        double dx = bounds[offset + 3] - bounds[offset];
+        double dy = bounds[offset + 4] - bounds[offset + 1];
+        double dz = bounds[offset + 5] - bounds[offset + 2];
+        if (dx < 0 || dy < 0 || dz < 0) {
+            return 0;
+        }
+        return 2.0 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Get the axis with the largest extent
+     */
+    private static int longestAxis(final double[] bounds) {
+        double dx = bounds[3] - bounds[0];
+        double dy = bounds[4] - bounds[1];
+        double dz = bounds[5] - bounds[2];
+        if (dx > dy) {
+            return dx > dz ? 0 : 2;
+        } else {
+            return dy > dz ? 1 : 2;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.wombatsw.raytracing.obj;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of built hierarchies, so that loading an unchanged scene again skips the builds. Each entry is a
+ * file named by a key from {@link BVHBuilder#getCacheKey}, which hashes the primitive bounds together with the builder
+ * settings. Entries are memory mapped and copied back into arrays on a hit. When the entries grow past the size limit,
+ * the least recently used entries are removed.
+ * <p>
+ * {@link #getDefault()} is the cache used by new builders. It is only enabled when the {@value #DIRECTORY_PROPERTY}
+ * system property names a directory, and its size limit is set in megabytes by the {@value #SIZE_PROPERTY} property.
+ */
+public class BVHCache {
+    /**
+     * The system property with the directory of the default cache
+     */
+    public static final String DIRECTORY_PROPERTY = "raytracing.bvhCache";
+
+    /**
+     * The system property with the size limit of the default cache, in megabytes
+     */
+    public static final String SIZE_PROPERTY = "raytracing.bvhCacheSize";
+
+    /**
+     * The default size limit, in megabytes
+     */
+    public static final long DEFAULT_SIZE = 1024;
+
+    private static final String EXTENSION = ".bvh";
+    private static final int MAGIC = 0x42564843;
+    private static final int VERSION = 1;
+
+    private static final BVHCache DEFAULT = createDefault();
+
+    /**
+     * The directory of the entries
+     */
+    @Getter
+    private final Path directory;
+
+    /**
+     * The largest total size of the entries, in bytes
+     */
+    @Getter
+    private final long maxSize;
+
+    /**
+     * Hierarchies with fewer primitives than this are quicker to build than to read, and are not cached
+     */
+    @Getter
+    @Setter
+    private int minPrimitives = 1024;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create a cache
+     *
+     * @param directory The directory of the entries, which is created if needed
+     * @param maxSize   The largest total size of the entries, in bytes
+     * @throws IllegalArgumentException if the directory cannot be created
+     */
+    public BVHCache(final Path directory, final long maxSize) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot create BVH cache directory: " + directory, e);
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The cache selected for this JVM, or {@code null} if caching is not enabled
+     */
+    public static BVHCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return The number of hierarchies read from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of cacheable hierarchies that were not found, and were built
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The total size of the entries, in bytes
+     */
+    public synchronized long getSize() {
+        return listEntries().stream().mapToLong(Entry::size).sum();
+    }
+
+    /**
+     * Read a hierarchy from the cache. An entry which cannot be read is removed and counts as a miss
+     *
+     * @param key   The cache key
+     * @param count The number of primitives in the hierarchy
+     * @return The hierarchy, or {@code null} if it is not cached
+     */
+    synchronized BVHBuilder.Flattened get(final String key, final int count) {
+        Path path = getPath(key);
+        if (Files.isRegularFile(path)) {
+            try (FileChannel channel = FileChannel.open(path)) {
+                ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (in.getInt() == MAGIC && in.getInt() == VERSION) {
+                    int[] order = BinaryGeometry.readInts(in);
+                    HierarchyLayout layout = HierarchyLayout.read(in);
+                    if (order != null && order.length == count) {
+                        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                        hits.incrementAndGet();
+                        return new BVHBuilder.Flattened(order, layout);
+                    }
+                }
+            } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+                // Fall through to remove the entry
+            }
+            delete(path);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Add a hierarchy to the cache, then remove the least recently used entries beyond the size limit. The entry is
+     * written to a temporary file and renamed, so other processes sharing the directory never read a partial entry.
+     * A hierarchy which cannot be written is simply not cached
+     *
+     * @param key       The cache key
+     * @param flattened The hierarchy
+     */
+    synchronized void put(final String key, final BVHBuilder.Flattened flattened) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                BinaryGeometry.writeInts(out, flattened.order());
+                flattened.layout().write(out);
+            }
+            Files.move(temp, getPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (temp != null) {
+                delete(temp);
+            }
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Remove the least recently used entries until the entries fit in the size limit
+     */
+    private void evict() {
+        List<Entry> entries = listEntries();
+        long size = entries.stream().mapToLong(Entry::size).sum();
+        entries.sort(Comparator.comparing(Entry::lastUsed));
+        for (int i = 0; i < entries.size() && size > maxSize; i++) {
+            delete(entries.get(i).path());
+            size -= entries.get(i).size();
+        }
+    }
+
+    /**
+     * List the entries in the directory. Entries removed by another process while listing are skipped
+     */
+    private List<Entry> listEntries() {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.filter(p -> p.getFileName().toString().endsWith(EXTENSION)).toList()) {
+                try {
+                    entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path)));
+                } catch (IOException e) {
+                    // Skip the entry
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot list BVH cache directory: " + directory, e);
+        }
+        return entries;
+    }
+
+    private Path getPath(final String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private static void delete(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Another process may hold the file, and it is removed by a later eviction
+        }
+    }
+
+    /**
+     * @return The cache configured by the system properties, or {@code null} if caching is not enabled
+     */
+    private static BVHCache createDefault() {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        long size = Long.getLong(SIZE_PROPERTY, DEFAULT_SIZE);
+        return new BVHCache(Paths.get(directory), size * 1024 * 1024);
+    }
+
+    /**
+     * A file in the cache directory
+     *
+     * @param path     The file
+     * @param size     The file size, in bytes
+     * @param lastUsed When the entry was last written or read
+     */
+    private record Entry(Path path, long size, FileTime lastUsed) {
+    }
+}
@@ -0,0 +1,256 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.Getter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * A Bounding Volume Hierarchy flattened into arrays. The nodes are stored in depth-first order, so the first child
+ * of an interior node always immediately follows it. Leaves reference a range of primitives in leaf order, and the
+ * owner of the layout stores its primitives in that order and intersects them through a {@link LeafIntersector}.
+ * <p>
+ * Traversal is a loop over an explicit stack which visits the nearer child first, based on the sign of the ray
+ * direction along the axis separating the children. Node bounds are tested with the slab test in
+ * {@link BoundingBox}, using the inverse direction cached by the ray.
+ */
+public final class BVHLayout implements HierarchyLayout {
+    /**
+     * Intersects the primitives of a leaf node
+     */
+    public interface LeafIntersector {
+        /**
+         * Find the closest hit with a range of primitives that is nearer than the hit already in the record
+         *
+         * @param start  The index of the first primitive in leaf order
+         * @param count  The number of primitives
+         * @param ray    The ray
+         * @param tMin   The start of the range of points on the ray to consider
+         * @param record The closest hit so far, whose location is the end of the range
+         * @return Whether a closer hit was recorded
+         */
+        boolean hitLeaf(int start, int count, Ray ray, double tMin, HitRecord record);
+
+        /**
+         * Check if any of a range of primitives is hit
+         *
+         * @param start The index of the first primitive in leaf order
+         * @param count The number of primitives
+         * @param ray   The ray
+         * @param tMin  The start of the range of points on the ray to consider
+         * @param tMax  The end of the range of points on the ray to consider
+         * @return Whether any primitive is hit within the range
+         */
+        boolean occludedLeaf(int start, int count, Ray ray, double tMin, double tMax);
+    }
+
+    /**
+     * The node bounding boxes stored as (minX, minY, minZ, maxX, maxY, maxZ) for each node
+     */
+    private final double[] bounds;
+
+    /**
+     * Two values for each node. For a leaf node, the index of the first primitive and the primitive count. For an
+     * interior node, the index of the second child and the separating axis encoded as {@code -(axis + 1)}
+     */
+    private final int[] nodes;
+
+    /**
+     * The number of nodes
+     */
+    @Getter
+    private int nodeCount;
+
+    /**
+     * Flatten a built hierarchy
+     *
+     * @param root The root of the built hierarchy
+     */
+    public BVHLayout(final BVHBuilder.Node root) {
+        int count = root.getNodeCount();
+        bounds = new double[count * 6];
+        nodes = new int[count * 2];
+        flatten(root);
+    }
+
+    /**
+     * Create a layout from the arrays of a flattened hierarchy, see {@link #write}
+     *
+     * @param bounds The node bounding boxes
+     * @param nodes  The child or primitive references of each node
+     */
+    BVHLayout(final double[] bounds, final int[] nodes) {
+        if (nodes.length == 0 || bounds.length != nodes.length * 3) {
+            throw new IllegalArgumentException("Hierarchy arrays do not match: " + bounds.length + " bounds, "
+                    + nodes.length + " node values");
+        }
+        this.bounds = bounds;
+        this.nodes = nodes;
+        this.nodeCount = nodes.length / 2;
+    }
+
+    /**
+     * @return The bounding box of the root node
+     */
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(bounds, 0);
+    }
+
+    /**
+     * Find the closest hit with the primitives of this hierarchy that is nearer than the hit already in the record
+     *
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param record The closest hit so far, whose location is the end of the range
+     * @param leaves Intersects the primitives of the leaf nodes
+     * @return Whether a closer hit was recorded
+     */
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record, final LeafIntersector leaves) {
+        Triplet dir = ray.direction();
+        boolean hit = false;
+
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.size();
+        try {
+            int node = 0;
+            while (true) {
+                if (BoundingBox.intersect(bounds, node * 6, ray, tMin, record.getT()) < POSITIVE_INFINITY) {
+                    int offset = nodes[node * 2];
+                    int info = nodes[node * 2 + 1];
+                    if (info > 0) {
+                        hit |= leaves.hitLeaf(offset, info, ray, tMin, record);
+                    } else {
+                        // Visit the child on the near side of the separating axis first
+                        if (dir.getValue(-info - 1) < 0) {
+                            stack.push(node + 1);
+                            node = offset;
+                        } else {
+                            stack.push(offset);
+                            node = node + 1;
+                        }
+                        continue;
+                    }
+                }
+
+                if (stack.size() == base) {
+                    break;
+                }
+                node = stack.pop();
+            }
+        } finally {
+            stack.truncate(base);
+        }
+
+        return hit;
+    }
+
+    /**
+     * Check if any primitive of this hierarchy is hit. The traversal stops at the first hit, so the order the
+     * children are visited in only matters for how soon that is found
+     *
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param leaves Intersects the primitives of the leaf nodes
+     * @return Whether any primitive is hit within the range
+     */
+    public boolean occluded(final Ray ray, final double tMin, final double tMax, final LeafIntersector leaves) {
+        Triplet dir = ray.direction();
+
+        TraversalStack stack = TraversalStack.get();
+        int base = stack.size();
+        try {
+            int node = 0;
+            while (true) {
+                if (BoundingBox.intersect(bounds, node * 6, ray, tMin, tMax) < POSITIVE_INFINITY) {
+                    int offset = nodes[node * 2];
+                    int info = nodes[node * 2 + 1];
+                    if (info > 0) {
+                        if (leaves.occludedLeaf(offset, info, ray, tMin, tMax)) {
+                            return true;
+                        }
+                    } else {
+                        if (dir.getValue(-info - 1) < 0) {
+                            stack.push(node + 1);
+                            node = offset;
+                        } else {
+                            stack.push(offset);
+                            node = node + 1;
+                        }
+                        continue;
+                    }
+                }
+
+                if (stack.size() == base) {
+                    return false;
+                }
+                node = stack.pop();
+            }
+        } finally {
+            stack.truncate(base);
+        }
+    }
+
+    /**
+     * Get the Surface Area Heuristic cost of this hierarchy. See {@link BVHBuilder#getSahCost}
+     *
+     * @return The SAH cost
+     */
+    public double getSahCost() {
+        // Children always follow their parent, so walk backwards to have the child costs ready
+        double[] costs = new double[nodeCount];
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int offset = nodes[node * 2];
+            int info = nodes[node * 2 + 1];
+            if (info > 0) {
+                costs[node] = info * BVHNode.INTERSECTION_COST;
+            } else {
+                double area = BVHBuilder.surfaceArea(bounds, node * 6);
+                double cost = BVHNode.TRAVERSAL_COST;
+                for (int child : new int[]{node + 1, offset}) {
+                    cost += area > 0 ? costs[child] * BVHBuilder.surfaceArea(bounds, child * 6) / area : costs[child];
+                }
+                costs[node] = cost;
+            }
+        }
+        return costs[0];
+    }
+
+    @Override
+    public BVHWidth getWidth() {
+        return BVHWidth.BINARY;
+    }
+
+    @Override
+    public void write(final DataOutputStream out) throws IOException {
+        out.writeInt(BVHWidth.BINARY.ordinal());
+        BinaryGeometry.writeDoubles(out, bounds);
+        BinaryGeometry.writeInts(out, nodes);
+    }
+
+    /**
+     * Add a subtree to the flattened arrays in depth-first order. The builder places the primitives with the lower
+     * centroids along the split axis in the first child, so the sign of the ray direction orders the visit.
+     *
+     * @param node The root of the subtree
+     */
+    private void flatten(final BVHBuilder.Node node) {
+        int index = nodeCount++;
+        System.arraycopy(node.getBounds(), 0, bounds, index * 6, 6);
+
+        if (node.isLeaf()) {
+            nodes[index * 2] = node.getStart();
+            nodes[index * 2 + 1] = node.getCount();
+        } else {
+            flatten(node.getLeft());
+            nodes[index * 2] = nodeCount;
+            nodes[index * 2 + 1] = -(node.getAxis() + 1);
+            flatten(node.getRight());
+        }
+    }
+}
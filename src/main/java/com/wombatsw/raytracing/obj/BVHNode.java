@@ -1,14 +1,14 @@
 package com.wombatsw.raytracing.obj;
 
 import com.wombatsw.raytracing.model.BoundingBox;
-import com.wombatsw.raytracing.model.Intersection;
 import com.wombatsw.raytracing.model.Interval;
 import com.wombatsw.raytracing.model.Ray;
 import lombok.Getter;
 import lombok.ToString;
 
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.List;
+
+import static java.lang.Double.POSITIVE_INFINITY;
 
 /**
  * Bounding Volume Hierarchy Node
@@ -17,95 +17,144 @@ import java.util.Comparator;
 @ToString(callSuper = true)
 public class BVHNode extends AbstractObj {
     /**
-     * A helper class to sort objects along a given axis
-     *
-     * @param axis The axis used for comparison
+     * The cost of traversing a node relative to intersecting an object, used for the SAH cost
      */
-    private record BoxCompare(int axis) implements Comparator<AbstractObj> {
-        @Override
-        public int compare(AbstractObj o1, AbstractObj o2) {
-            Interval i1 = o1.getBoundingBox().axisInterval(axis);
-            Interval i2 = o2.getBoundingBox().axisInterval(axis);
-            return Double.compare(i1.min(), i2.min());
-        }
-    }
+    static final double TRAVERSAL_COST = 0.125;
 
-    private static final BoxCompare[] COMPS = {
-            new BoxCompare(0), new BoxCompare(1), new BoxCompare(2)};
+    /**
+     * The cost of intersecting an object, used for the SAH cost
+     */
+    static final double INTERSECTION_COST = 1.0;
 
     private final AbstractObj left;
     private final AbstractObj right;
 
     /**
-     * Create a Bounding Volume Hierarchy Node from the given list of objects
+     * Create a Bounding Volume Hierarchy Node from the given list of objects, splitting at the median
      *
      * @param objList The object list
      */
     public BVHNode(final ObjectList objList) {
-        this(objList.getList().toArray(new AbstractObj[0]), 0, objList.getList().size());
+        this(objList, SplitMethod.MEDIAN);
     }
 
     /**
-     * Create a Bounding Volume Hierarchy Node from a subset of the given array of objects
+     * Create a Bounding Volume Hierarchy Node from the given list of objects
      *
-     * @param objects The object array
-     * @param start   The start of the subset, inclusive
-     * @param end     The end of the subset, exclusive
+     * @param objList     The object list
+     * @param splitMethod The strategy used to split the objects between child nodes
      */
-    private BVHNode(final AbstractObj[] objects, final int start, final int end) {
-        super(null, computeBoundingBox(objects, start, end));
+    public BVHNode(final ObjectList objList, final SplitMethod splitMethod) {
+        this(objList.getList(), new BVHBuilder(splitMethod));
+    }
 
-        int axis = getBoundingBox().longestAxis();
-        int span = end - start;
+    /**
+     * Create a Bounding Volume Hierarchy Node from the given list of objects
+     *
+     * @param objects The objects
+     * @param builder The {@link BVHBuilder}. Its leaf size must be no more than 2, since a node only has 2 children
+     */
+    public BVHNode(final List<AbstractObj> objects, final BVHBuilder builder) {
+        this(objects, builder.build(objects));
+
+        if (builder.getMaxLeafSize() > 2) {
+            throw new IllegalArgumentException("BVHNode leaves cannot hold more than 2 objects");
+        }
+    }
 
-        if (span == 1) {
-            left = right = objects[start];
-        } else if (span == 2) {
-            left = objects[start];
-            right = objects[start + 1];
+    private BVHNode(final List<AbstractObj> objects, final BVHBuilder.Result result) {
+        this(result.root(), result.order(), objects);
+    }
+
+    /**
+     * Create a Bounding Volume Hierarchy Node from a built node
+     *
+     * @param node    The built node
+     * @param order   The object indices in leaf order
+     * @param objects The objects
+     */
+    private BVHNode(final BVHBuilder.Node node, final int[] order, final List<AbstractObj> objects) {
+        super(null, node.toBoundingBox());
+
+        if (node.isLeaf()) {
+            left = objects.get(order[node.getStart()]);
+            right = node.getCount() == 1 ? left : objects.get(order[node.getStart() + 1]);
         } else {
-            Arrays.sort(objects, start, end, COMPS[axis]);
-            int mid = start + span / 2;
-            left = new BVHNode(objects, start, mid);
-            right = new BVHNode(objects, mid, end);
+            left = createChild(node.getLeft(), order, objects);
+            right = createChild(node.getRight(), order, objects);
         }
     }
 
     @Override
-    public Intersection intersect(Ray ray, Interval tRange) {
-        Interval rayInt = getBoundingBox().intersect(ray, tRange);
-        if (rayInt == null) {
-            return null;
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        if (getBoundingBox().intersect(ray, tMin, record.getT()) == POSITIVE_INFINITY) {
+            return false;
+        }
+
+        boolean hitLeft = left.hit(ray, tMin, record);
+        if (left == right) {
+            return hitLeft;
         }
+        return right.hit(ray, tMin, record) || hitLeft;
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
 
-        Intersection returnVal = null;
-        double closestT = rayInt.max();
-        Intersection intLeft = left.intersect(ray, new Interval(rayInt.min(), closestT));
-        if (intLeft != null) {
-            closestT = intLeft.getT();
-            returnVal = intLeft;
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        if (getBoundingBox().intersect(ray, tMin, tMax) == POSITIVE_INFINITY) {
+            return false;
         }
-        Intersection intRight = right.intersect(ray, new Interval(rayInt.min(), closestT));
-        if (intRight != null) {
-            returnVal = intRight;
+        return left.occluded(ray, tMin, tMax) || (right != left && right.occluded(ray, tMin, tMax));
+    }
+
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        left.collectLights(lights);
+        if (right != left) {
+            right.collectLights(lights);
         }
+    }
 
-        return returnVal;
+    /**
+     * Get the Surface Area Heuristic cost of this tree. This is the expected cost of intersecting a ray with the
+     * tree, relative to the cost of intersecting a single object, assuming that rays which hit this node are
+     * uniformly distributed. Lower is better, so it can be used to compare trees built for the same objects.
+     *
+     * @return The SAH cost
+     */
+    public double getSahCost() {
+        double area = getBoundingBox().surfaceArea();
+        double cost = TRAVERSAL_COST + getSahCost(left, area);
+        if (right != left) {
+            cost += getSahCost(right, area);
+        }
+        return cost;
     }
 
     /**
-     * Compute the bounding box for the given set of objects
+     * Get the SAH cost of a child, weighted by the probability that a ray hitting the parent also hits the child
      *
-     * @param objects The set of objects
-     * @param start The starting index of the elements to use, inclusive
-     * @param end The ending index of the elements to use, exclusive
-     * @return The {@link BoundingBox}
+     * @param child      The child object
+     * @param parentArea The surface area of the parent bounding box
+     * @return The weighted cost
+     */
+    private static double getSahCost(final AbstractObj child, final double parentArea) {
+        double cost = child instanceof BVHNode node ? node.getSahCost() : INTERSECTION_COST;
+        return parentArea > 0 ? cost * child.getBoundingBox().surfaceArea() / parentArea : cost;
+    }
+
+    /**
+     * Create the child for a built node. Leaves with a single object are replaced by the object
      */
-    private static BoundingBox computeBoundingBox(AbstractObj[] objects, int start, int end) {
-        BoundingBox bbox = new BoundingBox();
-        for (int i = start; i < end; i++) {
-            bbox = new BoundingBox(bbox, objects[i].getBoundingBox());
+    private static AbstractObj createChild(final BVHBuilder.Node node, final int[] order,
+                                           final List<AbstractObj> objects) {
+        if (node.isLeaf() && node.getCount() == 1) {
+            return objects.get(order[node.getStart()]);
         }
-        return bbox;
+        return new BVHNode(node, order, objects);
     }
 }
@@ -0,0 +1,16 @@
+package com.wombatsw.raytracing.obj;
+
+/**
+ * The number of children of each interior node when a built hierarchy is flattened for traversal
+ */
+public enum BVHWidth {
+    /**
+     * Two children, as built. See {@link BVHLayout}
+     */
+    BINARY,
+
+    /**
+     * Up to four children, collapsed from the built tree and tested together. See {@link QBVHLayout}
+     */
+    QUAD
+}
@@ -0,0 +1,271 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Material;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary form of objects with large arrays, together with their built hierarchies. The arrays are written with
+ * their length first and read back with bulk copies, so reading costs about as much as copying the bytes, and no
+ * hierarchy is built. Each array is stored in the same order as the object keeps it, which is the leaf order of the
+ * hierarchy.
+ * <p>
+ * Materials are not written. The caller keeps them and provides them again when reading, see
+ * {@link SphereSet#getMaterials}.
+ */
+public final class BinaryGeometry {
+    /**
+     * The size of the buffer used to convert arrays to bytes
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The length written for an array that is {@code null}
+     */
+    private static final int NO_ARRAY = -1;
+
+    private BinaryGeometry() {
+    }
+
+    /**
+     * Write a mesh with its hierarchy
+     *
+     * @param mesh The mesh
+     * @param out  The output
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeMesh(final TriangleMesh mesh, final DataOutputStream out) throws IOException {
+        writeFloats(out, mesh.getPositions());
+        writeFloats(out, mesh.getNormals());
+        writeFloats(out, mesh.getUvs());
+        writeInts(out, mesh.getLeafIndices());
+        mesh.getLayout().write(out);
+    }
+
+    /**
+     * Read a mesh written by {@link #writeMesh}
+     *
+     * @param in       The input, positioned at the start of the mesh
+     * @param filename The file the mesh was loaded from, or {@code null}
+     * @param material The material of the mesh
+     * @return The mesh
+     */
+    public static TriangleMesh readMesh(final ByteBuffer in, final String filename, final Material material) {
+        float[] positions = readFloats(in);
+        float[] normals = readFloats(in);
+        float[] uvs = readFloats(in);
+        int[] indices = readInts(in);
+        return new TriangleMesh(filename, positions, normals, uvs, indices, material, HierarchyLayout.read(in));
+    }
+
+    /**
+     * Write a set of spheres with its hierarchy. Each sphere refers to its material by its index in the list
+     *
+     * @param sphereSet The set of spheres
+     * @param materials The materials of the spheres, see {@link SphereSet#getMaterials}
+     * @param out       The output
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeSphereSet(final SphereSet sphereSet, final List<Material> materials,
+                                      final DataOutputStream out) throws IOException {
+        Map<Material, Integer> materialIndices = new IdentityHashMap<>();
+        for (int i = 0; i < materials.size(); i++) {
+            materialIndices.put(materials.get(i), i);
+        }
+        Material[] sphereMaterials = sphereSet.getSphereMaterials();
+        int[] indices = new int[sphereMaterials.length];
+        for (int i = 0; i < indices.length; i++) {
+            Integer index = materialIndices.get(sphereMaterials[i]);
+            if (index == null) {
+                throw new IllegalArgumentException("Missing material for sphere " + i);
+            }
+            indices[i] = index;
+        }
+
+        for (double[] values : sphereSet.getArrays()) {
+            writeDoubles(out, values);
+        }
+        writeInts(out, indices);
+        sphereSet.getLayout().write(out);
+    }
+
+    /**
+     * Read a set of spheres written by {@link #writeSphereSet}
+     *
+     * @param in        The input, positioned at the start of the set
+     * @param materials The materials of the spheres, in the order they were written
+     * @return The set of spheres
+     */
+    public static SphereSet readSphereSet(final ByteBuffer in, final List<Material> materials) {
+        double[][] arrays = new double[SphereSet.ARRAY_COUNT][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = readDoubles(in);
+        }
+        int[] indices = readInts(in);
+        Material[] sphereMaterials = new Material[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] < 0 || indices[i] >= materials.size()) {
+                throw new IllegalArgumentException("Unknown sphere material: " + indices[i]);
+            }
+            sphereMaterials[i] = materials.get(indices[i]);
+        }
+        return new SphereSet(arrays, sphereMaterials, HierarchyLayout.read(in));
+    }
+
+    /**
+     * Write the hierarchy of a BVH. The primitives are not written, and must be provided in the order of
+     * {@link LinearBVH#getPrimitives} when reading
+     *
+     * @param bvh The BVH
+     * @param out The output
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeBVH(final LinearBVH bvh, final DataOutputStream out) throws IOException {
+        bvh.getLayout().write(out);
+    }
+
+    /**
+     * Read a BVH written by {@link #writeBVH}
+     *
+     * @param in         The input, positioned at the start of the hierarchy
+     * @param primitives The primitives, in the order of {@link LinearBVH#getPrimitives} when it was written
+     * @return The BVH
+     */
+    public static LinearBVH readBVH(final ByteBuffer in, final List<AbstractObj> primitives) {
+        return new LinearBVH(HierarchyLayout.read(in), primitives.toArray(new AbstractObj[0]));
+    }
+
+    /**
+     * Write an array, preceded by its length
+     *
+     * @param out    The output
+     * @param values The values, or {@code null}
+     * @throws IOException if the output cannot be written
+     */
+    static void writeFloats(final DataOutputStream out, final float[] values) throws IOException {
+        if (writeLength(out, values == null ? NO_ARRAY : values.length)) {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            for (int i = 0; i < values.length; i += CHUNK_SIZE / Float.BYTES) {
+                int count = Math.min(CHUNK_SIZE / Float.BYTES, values.length - i);
+                chunk.clear();
+                chunk.asFloatBuffer().put(values, i, count);
+                out.write(chunk.array(), 0, count * Float.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Write an array, preceded by its length
+     *
+     * @param out    The output
+     * @param values The values, or {@code null}
+     * @throws IOException if the output cannot be written
+     */
+    static void writeInts(final DataOutputStream out, final int[] values) throws IOException {
+        if (writeLength(out, values == null ? NO_ARRAY : values.length)) {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            for (int i = 0; i < values.length; i += CHUNK_SIZE / Integer.BYTES) {
+                int count = Math.min(CHUNK_SIZE / Integer.BYTES, values.length - i);
+                chunk.clear();
+                chunk.asIntBuffer().put(values, i, count);
+                out.write(chunk.array(), 0, count * Integer.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Write an array, preceded by its length
+     *
+     * @param out    The output
+     * @param values The values, or {@code null}
+     * @throws IOException if the output cannot be written
+     */
+    static void writeDoubles(final DataOutputStream out, final double[] values) throws IOException {
+        if (writeLength(out, values == null ? NO_ARRAY : values.length)) {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            for (int i = 0; i < values.length; i += CHUNK_SIZE / Double.BYTES) {
+                int count = Math.min(CHUNK_SIZE / Double.BYTES, values.length - i);
+                chunk.clear();
+                chunk.asDoubleBuffer().put(values, i, count);
+                out.write(chunk.array(), 0, count * Double.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Read an array written by {@link #writeFloats}
+     *
+     * @param in The input
+     * @return The values, or {@code null}
+     */
+    static float[] readFloats(final ByteBuffer in) {
+        int length = readLength(in, Float.BYTES);
+        if (length == NO_ARRAY) {
+            return null;
+        }
+        float[] values = new float[length];
+        in.asFloatBuffer().get(values);
+        in.position(in.position() + length * Float.BYTES);
+        return values;
+    }
+
+    /**
+     * Read an array written by {@link #writeInts}
+     *
+     * @param in The input
+     * @return The values, or {@code null}
+     */
+    static int[] readInts(final ByteBuffer in) {
+        int length = readLength(in, Integer.BYTES);
+        if (length == NO_ARRAY) {
+            return null;
+        }
+        int[] values = new int[length];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + length * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Read an array written by {@link #writeDoubles}
+     *
+     * @param in The input
+     * @return The values, or {@code null}
+     */
+    static double[] readDoubles(final ByteBuffer in) {
+        int length = readLength(in, Double.BYTES);
+        if (length == NO_ARRAY) {
+            return null;
+        }
+        double[] values = new double[length];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + length * Double.BYTES);
+        return values;
+    }
+
+    /**
+     * Write the length of an array
+     *
+     * @return Whether there are values to write
+     */
+    private static boolean writeLength(final DataOutputStream out, final int length) throws IOException {
+        out.writeInt(length);
+        return length > 0;
+    }
+
+    /**
+     * Read the length of an array, and check that the input holds that many values
+     */
+    private static int readLength(final ByteBuffer in, final int valueSize) {
+        int length = in.getInt();
+        if (length < NO_ARRAY || (long) length * valueSize > in.remaining()) {
+            throw new IllegalArgumentException("Invalid array length: " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,39 @@
+package com.wombatsw.raytracing.obj;
+
+import java.util.Locale;
+
+/**
+ * The implementation used to test a ray against several bounding boxes or spheres at once, see {@link WideBoxTest}
+ * and {@link WideSphereTest}
+ */
+public enum BoxTestMode {
+    /**
+     * Test the boxes one after another with scalar arithmetic
+     */
+    SCALAR,
+
+    /**
+     * Test the boxes together with the Java Vector API. This needs the {@code jdk.incubator.vector} module, which
+     * is enabled with {@code --add-modules jdk.incubator.vector}
+     */
+    VECTOR;
+
+    /**
+     * Get the mode selected by a system property, ignoring case
+     *
+     * @param property The name of the system property
+     * @param fallback The mode to use when the property is not set
+     * @return The mode
+     */
+    static BoxTestMode fromProperty(final String property, final BoxTestMode fallback) {
+        String mode = System.getProperty(property);
+        if (mode == null) {
+            return fallback;
+        }
+        try {
+            return valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + property + ": " + mode, e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Ray;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A hierarchy flattened into arrays, which intersects its primitives through a {@link BVHLayout.LeafIntersector}.
+ * The primitives are referenced by their index in leaf order of the {@link BVHBuilder} result
+ */
+interface HierarchyLayout {
+    /**
+     * @return The bounding box of all the primitives
+     */
+    BoundingBox getBoundingBox();
+
+    /**
+     * @return The number of nodes
+     */
+    int getNodeCount();
+
+    /**
+     * Get the Surface Area Heuristic cost of this hierarchy. See {@link BVHBuilder#getSahCost}
+     *
+     * @return The SAH cost
+     */
+    double getSahCost();
+
+    /**
+     * Find the closest hit with the primitives of this hierarchy that is nearer than the hit already in the record
+     *
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param record The closest hit so far, whose location is the end of the range
+     * @param leaves Intersects the primitives of the leaf nodes
+     * @return Whether a closer hit was recorded
+     */
+    boolean hit(Ray ray, double tMin, HitRecord record, BVHLayout.LeafIntersector leaves);
+
+    /**
+     * Check if any primitive of this hierarchy is hit
+     *
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param leaves Intersects the primitives of the leaf nodes
+     * @return Whether any primitive is hit within the range
+     */
+    boolean occluded(Ray ray, double tMin, double tMax, BVHLayout.LeafIntersector leaves);
+
+    /**
+     * @return The number of children of each node
+     */
+    BVHWidth getWidth();
+
+    /**
+     * Write the arrays of this hierarchy, after its width. See {@link BinaryGeometry}
+     *
+     * @param out The output
+     * @throws IOException if the output cannot be written
+     */
+    void write(DataOutputStream out) throws IOException;
+
+    /**
+     * Read a hierarchy written by {@link #write}. The arrays are copied out of the input in bulk
+     *
+     * @param in The input, positioned at the start of the hierarchy
+     * @return The layout
+     * @throws IllegalArgumentException if the input does not hold a hierarchy
+     */
+    static HierarchyLayout read(final ByteBuffer in) {
+        int width = in.getInt();
+        if (width < 0 || width >= BVHWidth.values().length) {
+            throw new IllegalArgumentException("Unknown hierarchy width: " + width);
+        }
+        return switch (BVHWidth.values()[width]) {
+            case BINARY -> new BVHLayout(BinaryGeometry.readDoubles(in), BinaryGeometry.readInts(in));
+            case QUAD -> new QBVHLayout(BinaryGeometry.readDoubles(in), BinaryGeometry.readDoubles(in),
+                    BinaryGeometry.readInts(in), BinaryGeometry.readInts(in));
+        };
+    }
+
+    /**
+     * Flatten a built hierarchy
+     *
+     * @param root  The root of the built hierarchy
+     * @param width The number of children of each node of the flattened hierarchy
+     * @return The layout
+     */
+    static HierarchyLayout create(final BVHBuilder.Node root, final BVHWidth width) {
+        return switch (width) {
+            case BINARY -> new BVHLayout(root);
+            case QUAD -> new QBVHLayout(root);
+        };
+    }
+}
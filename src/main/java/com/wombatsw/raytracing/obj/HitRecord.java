@@ -0,0 +1,125 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Intersection;
+import com.wombatsw.raytracing.model.Ray;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * The closest hit found so far while tracing a ray. Traversal only records the location on the ray, the primitive
+ * that was hit and the values the primitive needs to finish the hit, so candidate hits that are replaced by closer
+ * ones never compute points, normals or texture coordinates. The {@link Intersection} is created for the final hit
+ * only, by {@link #createIntersection}.
+ * <p>
+ * The location of the current hit is also the end of the range for the rest of the search. When the hit is inside
+ * transformed objects, each {@link Transform} adds itself as the search returns through it, innermost first.
+ */
+public final class HitRecord {
+    /**
+     * The location on the ray of the closest hit, or the end of the range if there is no hit yet
+     */
+    @Getter
+    private double t;
+
+    /**
+     * The primitive that was hit, or {@code null} if there is no hit yet
+     */
+    @Getter
+    private AbstractObj primitive;
+
+    /**
+     * The index of the part of the primitive that was hit, such as a triangle of a mesh
+     */
+    @Getter
+    private int index;
+
+    /**
+     * The first surface coordinate of the hit, defined by the primitive
+     */
+    @Getter
+    private double u;
+
+    /**
+     * The second surface coordinate of the hit, defined by the primitive
+     */
+    @Getter
+    private double v;
+
+    /**
+     * The transforms containing the hit, innermost first. Only allocated once a hit inside a transform is recorded
+     */
+    private Transform[] transforms;
+    private int transformCount;
+
+    /**
+     * Create a hit record with no hit
+     *
+     * @param tMax The end of the range of points on the ray to consider
+     */
+    public HitRecord(final double tMax) {
+        this.t = tMax;
+    }
+
+    /**
+     * @return Whether a hit has been recorded
+     */
+    public boolean isHit() {
+        return primitive != null;
+    }
+
+    /**
+     * Record a closer hit, replacing the current one
+     *
+     * @param t         The location on the ray
+     * @param primitive The primitive that was hit
+     * @param index     The index of the part of the primitive that was hit
+     * @param u         The first surface coordinate
+     * @param v         The second surface coordinate
+     */
+    void set(final double t, final AbstractObj primitive, final int index, final double u, final double v) {
+        this.t = t;
+        this.primitive = primitive;
+        this.index = index;
+        this.u = u;
+        this.v = v;
+        transformCount = 0;
+    }
+
+    /**
+     * Add a transform that contains the current hit
+     *
+     * @param transform The transform
+     */
+    void addTransform(final Transform transform) {
+        if (transforms == null) {
+            transforms = new Transform[4];
+        } else if (transformCount == transforms.length) {
+            transforms = Arrays.copyOf(transforms, transformCount * 2);
+        }
+        transforms[transformCount++] = transform;
+    }
+
+    /**
+     * Create the intersection data for the recorded hit
+     *
+     * @param ray The ray that was traced
+     * @return The {@link Intersection}
+     */
+    public Intersection createIntersection(final Ray ray) {
+        if (primitive == null) {
+            throw new IllegalStateException("No hit has been recorded");
+        }
+
+        Ray objectRay = ray;
+        for (int i = transformCount - 1; i >= 0; i--) {
+            objectRay = transforms[i].toObjectSpace(objectRay);
+        }
+
+        Intersection intersection = primitive.createIntersection(objectRay, this);
+        for (int i = 0; i < transformCount; i++) {
+            intersection = transforms[i].toWorldSpace(intersection);
+        }
+        return intersection;
+    }
+}
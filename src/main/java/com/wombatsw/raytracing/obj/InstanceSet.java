@@ -0,0 +1,246 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Affine;
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A two-level hierarchy of placed copies of shared geometry. Each unique object is the bottom level, with its own
+ * hierarchy built once, and each instance is a {@link Transform} that places one of them in the scene. The top level
+ * is a {@link HierarchyLayout} over the bounds of the instances, so a ray only enters the instances it may hit.
+ * <p>
+ * Memory scales with the unique geometry, since the instances only reference it. {@link #place} moves the instances
+ * by rebuilding the top level only. An {@link ObjectList} has no hierarchy of its own, so it is replaced by a
+ * {@link LinearBVH} of its objects, once for all the instances that use it.
+ */
+@ToString(callSuper = true, onlyExplicitlyIncluded = true)
+public class InstanceSet extends AbstractObj implements BVHLayout.LeafIntersector {
+    /**
+     * The unique objects, as they were provided
+     */
+    private final List<AbstractObj> geometries;
+
+    /**
+     * The bottom level hierarchy for each unique object
+     */
+    private final List<AbstractObj> bottomLevels;
+
+    /**
+     * The index of the unique object of each instance, in leaf order
+     */
+    private final int[] geometryIndices;
+
+    /**
+     * The instances in leaf order, each transforming a bottom level hierarchy
+     */
+    private final Transform[] instances;
+
+    private final HierarchyLayout layout;
+    private final BVHBuilder builder;
+
+    /**
+     * Create a set of instances with a top level built using the Surface Area Heuristic
+     *
+     * @param instances The instances. Instances of the same object share its hierarchy
+     */
+    public InstanceSet(final List<Transform> instances) {
+        this(instances, new BVHBuilder(SplitMethod.SAH));
+    }
+
+    /**
+     * Create a set of instances
+     *
+     * @param instances The instances. Instances of the same object share its hierarchy
+     * @param builder   The {@link BVHBuilder} for the top level
+     */
+    public InstanceSet(final List<Transform> instances, final BVHBuilder builder) {
+        this(new Geometry(instances), builder);
+    }
+
+    private InstanceSet(final Geometry geometry, final BVHBuilder builder) {
+        this(geometry.geometries, geometry.bottomLevels,
+                buildTopLevel(geometry.bottomLevels, geometry.indices, geometry.affines, builder), builder);
+    }
+
+    private InstanceSet(final List<AbstractObj> geometries, final List<AbstractObj> bottomLevels,
+                        final TopLevel topLevel, final BVHBuilder builder) {
+        super(null, topLevel.layout().getBoundingBox());
+
+        this.geometries = geometries;
+        this.bottomLevels = bottomLevels;
+        this.geometryIndices = topLevel.indices();
+        this.instances = topLevel.instances();
+        this.layout = topLevel.layout();
+        this.builder = builder;
+    }
+
+    /**
+     * @return The number of instances
+     */
+    @ToString.Include
+    public int getInstanceCount() {
+        return instances.length;
+    }
+
+    /**
+     * @return The number of unique objects
+     */
+    @ToString.Include
+    public int getGeometryCount() {
+        return geometries.size();
+    }
+
+    /**
+     * @return The unique objects, as they were provided
+     */
+    public List<AbstractObj> getGeometries() {
+        return List.copyOf(geometries);
+    }
+
+    /**
+     * Get the index in {@link #getGeometries} of the object of an instance
+     *
+     * @param instance The index of the instance, in the order of {@link #getAffines}
+     * @return The index of the object
+     */
+    public int getGeometryIndex(final int instance) {
+        return geometryIndices[instance];
+    }
+
+    /**
+     * Get the placement of each instance. The instances are in the leaf order of the top level, which is not
+     * necessarily the order they were provided in.
+     *
+     * @return A new list of the transforms of the instances
+     */
+    public List<Affine> getAffines() {
+        List<Affine> affines = new ArrayList<>(instances.length);
+        for (Transform instance : instances) {
+            affines.add(instance.getAffine());
+        }
+        return affines;
+    }
+
+    /**
+     * Move the instances. The geometry and its hierarchies are shared with this set, and only the top level is built
+     *
+     * @param affines The new transform of each instance, in the order of {@link #getAffines}
+     * @return The new set of instances
+     */
+    public InstanceSet place(final List<Affine> affines) {
+        if (affines.size() != instances.length) {
+            throw new IllegalArgumentException("Expected " + instances.length + " transforms, found " + affines.size());
+        }
+        return new InstanceSet(geometries, bottomLevels,
+                buildTopLevel(bottomLevels, geometryIndices, affines, builder), builder);
+    }
+
+    @Override
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        return layout.hit(ray, tMin, record, this);
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return layout.occluded(ray, tMin, tMax, this);
+    }
+
+    @Override
+    public boolean hitLeaf(final int start, final int count, final Ray ray, final double tMin,
+                           final HitRecord record) {
+        boolean hit = false;
+        for (int i = start; i < start + count; i++) {
+            hit |= instances[i].hit(ray, tMin, record);
+        }
+        return hit;
+    }
+
+    @Override
+    public boolean occludedLeaf(final int start, final int count, final Ray ray,
+                                final double tMin, final double tMax) {
+        for (int i = start; i < start + count; i++) {
+            if (instances[i].occluded(ray, tMin, tMax)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        for (Transform instance : instances) {
+            instance.collectLights(lights);
+        }
+    }
+
+    /**
+     * Place the instances and build the top level over them
+     *
+     * @param bottomLevels The bottom level hierarchy for each unique object
+     * @param indices      The index of the unique object of each instance
+     * @param affines      The transform of each instance
+     * @param builder      The {@link BVHBuilder} for the top level
+     * @return The top level, with the instances and their object indices in leaf order
+     */
+    private static TopLevel buildTopLevel(final List<AbstractObj> bottomLevels, final int[] indices,
+                                          final List<Affine> affines, final BVHBuilder builder) {
+        List<Transform> placed = new ArrayList<>(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            placed.add(new Transform(bottomLevels.get(indices[i]), affines.get(i)));
+        }
+
+        BVHBuilder.Flattened flattened = builder.buildLayout(placed);
+        int[] order = flattened.order();
+        Transform[] instances = new Transform[order.length];
+        int[] orderedIndices = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            instances[i] = placed.get(order[i]);
+            orderedIndices[i] = indices[order[i]];
+        }
+        return new TopLevel(instances, orderedIndices, flattened.layout());
+    }
+
+    private record TopLevel(Transform[] instances, int[] indices, HierarchyLayout layout) {
+    }
+
+    /**
+     * The unique objects of a list of instances, with a bottom level hierarchy for each
+     */
+    private static final class Geometry {
+        private final List<AbstractObj> geometries = new ArrayList<>();
+        private final List<AbstractObj> bottomLevels = new ArrayList<>();
+        private final int[] indices;
+        private final List<Affine> affines;
+
+        private Geometry(final List<Transform> instances) {
+            if (instances.isEmpty()) {
+                throw new IllegalArgumentException("An instance set needs at least one instance");
+            }
+
+            Map<AbstractObj, Integer> indexMap = new IdentityHashMap<>();
+            indices = new int[instances.size()];
+            affines = new ArrayList<>(instances.size());
+            for (int i = 0; i < instances.size(); i++) {
+                AbstractObj object = instances.get(i).getObject();
+                indices[i] = indexMap.computeIfAbsent(object, obj -> {
+                    geometries.add(obj);
+                    bottomLevels.add(obj instanceof ObjectList list
+                            ? new LinearBVH(list.getList(), new BVHBuilder(SplitMethod.SAH)) : obj);
+                    return geometries.size() - 1;
+                });
+                affines.add(instances.get(i).getAffine());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The emissive objects of a scene that can be sampled directly. A light is chosen uniformly at random, and then a
+ * direction towards a random point on it. Emissive triangle meshes are not included, and are only found by
+ * scattered rays
+ */
+@ToString
+public final class LightList {
+    /**
+     * The relative tolerance for matching the location of a light hit
+     */
+    private static final double HIT_TOLERANCE = 1e-9;
+
+    private final AbstractObj[] lights;
+
+    /**
+     * Create a light list
+     *
+     * @param lights The lights
+     */
+    public LightList(final List<AbstractObj> lights) {
+        this.lights = lights.toArray(new AbstractObj[0]);
+    }
+
+    /**
+     * Collect the lights of a scene
+     *
+     * @param world The world data
+     * @return The lights
+     */
+    public static LightList collect(final AbstractObj world) {
+        List<AbstractObj> lights = new ArrayList<>();
+        world.collectLights(lights);
+        return new LightList(lights);
+    }
+
+    /**
+     * @return The number of lights
+     */
+    public int size() {
+        return lights.length;
+    }
+
+    /**
+     * @return Whether there are no lights
+     */
+    public boolean isEmpty() {
+        return lights.length == 0;
+    }
+
+    /**
+     * Choose a random light. Directions towards it are then chosen with {@link AbstractObj#random}
+     *
+     * @param u The random value in [0, 1)
+     * @return The light
+     */
+    public AbstractObj choose(final double u) {
+        return lights[Math.min((int) (u * lights.length), lights.length - 1)];
+    }
+
+    /**
+     * Get the probability density, with respect to solid angle, of choosing the direction of a ray that hits a
+     * light. Only the lights hit at the given location count, so a light hidden behind another one is not included
+     *
+     * @param ray The ray from the origin used to choose the direction
+     * @param t   The location on the ray where it hits the light
+     * @return The probability density, or 0 if the ray does not hit a light at that location
+     */
+    public double pdfValue(final Ray ray, final double t) {
+        Interval tRange = new Interval(t * (1 - HIT_TOLERANCE), t * (1 + HIT_TOLERANCE));
+        double sum = 0;
+        for (AbstractObj light : lights) {
+            sum += light.pdfValue(ray, tRange);
+        }
+        return sum / lights.length;
+    }
+}
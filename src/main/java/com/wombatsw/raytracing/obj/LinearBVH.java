@@ -0,0 +1,148 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A Bounding Volume Hierarchy of scene objects, flattened into arrays for fast traversal. See {@link BVHLayout} and
+ * {@link QBVHLayout}
+ */
+@ToString(callSuper = true, onlyExplicitlyIncluded = true)
+public class LinearBVH extends AbstractObj implements BVHLayout.LeafIntersector {
+    private final HierarchyLayout layout;
+
+    /**
+     * The primitives in leaf order
+     */
+    private final AbstractObj[] primitives;
+
+    /**
+     * Create a linear BVH from the given list of objects
+     *
+     * @param objList     The object list
+     * @param splitMethod The strategy used to split the objects between child nodes
+     */
+    public LinearBVH(final ObjectList objList, final SplitMethod splitMethod) {
+        this(objList.getList(), new BVHBuilder(splitMethod));
+    }
+
+    /**
+     * Create a linear BVH from the given list of objects
+     *
+     * @param objects The objects
+     * @param builder The {@link BVHBuilder}
+     */
+    public LinearBVH(final List<AbstractObj> objects, final BVHBuilder builder) {
+        this(objects, builder.buildLayout(objects));
+    }
+
+    private LinearBVH(final List<AbstractObj> objects, final BVHBuilder.Flattened flattened) {
+        this(flattened.layout(), reorder(objects, flattened.order()));
+    }
+
+    /**
+     * Create a BVH with a hierarchy that is already built, see {@link BinaryGeometry}
+     *
+     * @param layout     The hierarchy
+     * @param primitives The primitives in leaf order
+     */
+    LinearBVH(final HierarchyLayout layout, final AbstractObj[] primitives) {
+        super(null, layout.getBoundingBox());
+
+        this.layout = layout;
+        this.primitives = primitives;
+    }
+
+    /**
+     * Get the primitives referenced by the leaf nodes
+     *
+     * @return The list of primitives
+     */
+    public List<AbstractObj> getPrimitives() {
+        return List.of(primitives);
+    }
+
+    /**
+     * Get the Surface Area Heuristic cost of this hierarchy. See {@link BVHBuilder#getSahCost}
+     *
+     * @return The SAH cost
+     */
+    public double getSahCost() {
+        return layout.getSahCost();
+    }
+
+    /**
+     * @return The number of nodes in the hierarchy
+     */
+    public int getNodeCount() {
+        return layout.getNodeCount();
+    }
+
+    /**
+     * @return The hierarchy
+     */
+    HierarchyLayout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        return layout.hit(ray, tMin, record, this);
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return layout.occluded(ray, tMin, tMax, this);
+    }
+
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        for (AbstractObj primitive : primitives) {
+            primitive.collectLights(lights);
+        }
+    }
+
+    @Override
+    public boolean hitLeaf(final int start, final int count, final Ray ray, final double tMin,
+                           final HitRecord record) {
+        boolean hit = false;
+        for (int i = start; i < start + count; i++) {
+            hit |= primitives[i].hit(ray, tMin, record);
+        }
+        return hit;
+    }
+
+    @Override
+    public boolean occludedLeaf(final int start, final int count, final Ray ray,
+                                final double tMin, final double tMax) {
+        for (int i = start; i < start + count; i++) {
+            if (primitives[i].occluded(ray, tMin, tMax)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Put the objects in leaf order
+     *
+     * @param objects The objects
+     * @param order   The object indices in leaf order
+     * @return The objects in leaf order
+     */
+    private static AbstractObj[] reorder(final List<AbstractObj> objects, final int[] order) {
+        AbstractObj[] primitives = new AbstractObj[order.length];
+        for (int i = 0; i < order.length; i++) {
+            primitives[i] = objects.get(order[i]);
+        }
+        return primitives;
+    }
+}
@@ -1,7 +1,6 @@
 package com.wombatsw.raytracing.obj;
 
 import com.wombatsw.raytracing.model.BoundingBox;
-import com.wombatsw.raytracing.model.Intersection;
 import com.wombatsw.raytracing.model.Interval;
 import com.wombatsw.raytracing.model.Ray;
 import lombok.Getter;
@@ -30,18 +29,34 @@ public class ObjectList extends AbstractObj {
     }
 
     @Override
-    public Intersection intersect(final Ray ray, final Interval tRange) {
-        Intersection returnVal = null;
-        double closestT = tRange.max();
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        boolean hit = false;
+        for (AbstractObj obj : list) {
+            hit |= obj.hit(ray, tMin, record);
+        }
+        return hit;
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
 
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
         for (AbstractObj obj : list) {
-            Intersection intersection = obj.intersect(ray, new Interval(tRange.min(), closestT));
-            if (intersection != null) {
-                closestT = intersection.getT();
-                returnVal = intersection;
+            if (obj.occluded(ray, tMin, tMax)) {
+                return true;
             }
         }
-        return returnVal;
+        return false;
+    }
+
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        for (AbstractObj obj : list) {
+            obj.collectLights(lights);
+        }
     }
 
     /**
@@ -0,0 +1,341 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Ray;
+import lombok.Getter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.wombatsw.raytracing.obj.WideBoxTest.STRIDE;
+import static com.wombatsw.raytracing.obj.WideBoxTest.WIDTH;
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * A Bounding Volume Hierarchy with up to four children per node, collapsed from a built binary tree. Each node
+ * replaces the largest interior nodes below a binary node with their children until it has four, so the tree has
+ * about half the depth and a third of the nodes of the binary tree, and a ray visits fewer, wider nodes.
+ * <p>
+ * A node stores the bounds of its children together in the layout of {@link WideBoxTest}, so the four child boxes
+ * are tested with one call and no node bounds are loaded twice. The children that are hit are visited nearest
+ * first. The leaves of the binary tree are stored in the child slots of their parent, so a leaf is never a node of
+ * its own.
+ */
+public final class QBVHLayout implements HierarchyLayout {
+    /**
+     * The bounds of the children of each node, in the layout of {@link WideBoxTest}
+     */
+    private double[] bounds;
+
+    /**
+     * For each child slot, the index of the first primitive of a leaf, or the index of an interior node
+     */
+    private int[] children;
+
+    /**
+     * For each child slot, the number of primitives of a leaf, 0 for an interior node, or -1 for an empty slot
+     */
+    private int[] counts;
+
+    /**
+     * The bounds of the root, stored as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    private final double[] rootBounds;
+
+    private final WideBoxTest boxTest;
+
+    /**
+     * The number of nodes
+     */
+    @Getter
+    private int nodeCount;
+
+    /**
+     * Collapse a built hierarchy, using the default {@link WideBoxTest}
+     *
+     * @param root The root of the built hierarchy
+     */
+    public QBVHLayout(final BVHBuilder.Node root) {
+        this(root, WideBoxTest.getDefault());
+    }
+
+    /**
+     * Collapse a built hierarchy
+     *
+     * @param root    The root of the built hierarchy
+     * @param boxTest The test used for the child bounds
+     */
+    public QBVHLayout(final BVHBuilder.Node root, final WideBoxTest boxTest) {
+        // Every node of the collapsed tree uses up at least one interior node of the binary tree
+        int maxCount = Math.max(1, (root.getNodeCount() - 1) / 2);
+        bounds = new double[maxCount * STRIDE];
+        children = new int[maxCount * WIDTH];
+        counts = new int[maxCount * WIDTH];
+        if (root.isLeaf()) {
+            addNode(List.of(root));
+        } else {
+            collapse(root);
+        }
+        bounds = Arrays.copyOf(bounds, nodeCount * STRIDE);
+        children = Arrays.copyOf(children, nodeCount * WIDTH);
+        counts = Arrays.copyOf(counts, nodeCount * WIDTH);
+
+        this.rootBounds = root.getBounds().clone();
+        this.boxTest = boxTest;
+    }
+
+    /**
+     * Create a layout from the arrays of a collapsed hierarchy, see {@link #write}, using the default
+     * {@link WideBoxTest}
+     *
+     * @param rootBounds The bounds of the root
+     * @param bounds     The bounds of the children of each node
+     * @param children   The child or primitive reference of each child slot
+     * @param counts     The primitive count of each child slot
+     */
+    QBVHLayout(final double[] rootBounds, final double[] bounds, final int[] children, final int[] counts) {
+        int count = children.length / WIDTH;
+        if (rootBounds.length != 6 || count == 0 || bounds.length != count * STRIDE
+                || children.length != count * WIDTH || counts.length != children.length) {
+            throw new IllegalArgumentException("Hierarchy arrays do not match: " + bounds.length + " bounds, "
+                    + children.length + " children, " + counts.length + " counts");
+        }
+        this.rootBounds = rootBounds;
+        this.bounds = bounds;
+        this.children = children;
+        this.counts = counts;
+        this.nodeCount = count;
+        this.boxTest = WideBoxTest.getDefault();
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(rootBounds, 0);
+    }
+
+    /**
+     * @return The mode of the test used for the child bounds
+     */
+    public BoxTestMode getBoxTestMode() {
+        return boxTest.getMode();
+    }
+
+    @Override
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record,
+                       final BVHLayout.LeafIntersector leaves) {
+        if (BoundingBox.intersect(rootBounds, 0, ray, tMin, record.getT()) == POSITIVE_INFINITY) {
+            return false;
+        }
+        boolean hit = false;
+
+        TraversalStack stack = TraversalStack.get();
+        double[] distances = stack.getDistances();
+        int base = stack.size();
+        try {
+            int node = 0;
+            while (true) {
+                int mask = boxTest.intersect(bounds, node * STRIDE, ray, tMin, record.getT(), distances);
+
+                // Push the children that are hit farthest first, so the nearest is visited next
+                while (mask != 0) {
+                    int farthest = Integer.numberOfTrailingZeros(mask);
+                    for (int lane = farthest + 1; lane < WIDTH; lane++) {
+                        if ((mask & (1 << lane)) != 0 && distances[lane] > distances[farthest]) {
+                            farthest = lane;
+                        }
+                    }
+                    mask &= ~(1 << farthest);
+                    stack.push(node * WIDTH + farthest, distances[farthest]);
+                }
+
+                // Intersect leaves until the next interior node, skipping boxes entered beyond the closest hit
+                node = -1;
+                while (node < 0 && stack.size() > base) {
+                    boolean beyondHit = stack.peekDistance() >= record.getT();
+                    int slot = stack.pop();
+                    if (beyondHit) {
+                        continue;
+                    }
+                    if (counts[slot] > 0) {
+                        hit |= leaves.hitLeaf(children[slot], counts[slot], ray, tMin, record);
+                    } else {
+                        node = children[slot];
+                    }
+                }
+                if (node < 0) {
+                    break;
+                }
+            }
+        } finally {
+            stack.truncate(base);
+        }
+
+        return hit;
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final double tMin, final double tMax,
+                            final BVHLayout.LeafIntersector leaves) {
+        if (BoundingBox.intersect(rootBounds, 0, ray, tMin, tMax) == POSITIVE_INFINITY) {
+            return false;
+        }
+
+        TraversalStack stack = TraversalStack.get();
+        double[] distances = stack.getDistances();
+        int base = stack.size();
+        try {
+            int node = 0;
+            while (true) {
+                int mask = boxTest.intersect(bounds, node * STRIDE, ray, tMin, tMax, distances);
+
+                // Check the leaves right away, since any hit ends the search
+                for (int lane = 0; lane < WIDTH; lane++) {
+                    if ((mask & (1 << lane)) != 0) {
+                        int slot = node * WIDTH + lane;
+                        if (counts[slot] == 0) {
+                            stack.push(children[slot]);
+                        } else if (leaves.occludedLeaf(children[slot], counts[slot], ray, tMin, tMax)) {
+                            return true;
+                        }
+                    }
+                }
+
+                if (stack.size() == base) {
+                    return false;
+                }
+                node = stack.pop();
+            }
+        } finally {
+            stack.truncate(base);
+        }
+    }
+
+    /**
+     * Get the Surface Area Heuristic cost of this hierarchy, with the same costs as {@link BVHBuilder#getSahCost}.
+     * Each node costs one traversal step, even though it tests four boxes
+     *
+     * @return The SAH cost
+     */
+    @Override
+    public double getSahCost() {
+        // Children always follow their parent, so walk backwards to have the child costs ready
+        double[] costs = new double[nodeCount];
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            double[] union = new double[6];
+            Arrays.fill(union, 0, 3, POSITIVE_INFINITY);
+            Arrays.fill(union, 3, 6, Double.NEGATIVE_INFINITY);
+            double weightedCost = 0;
+            for (int lane = 0; lane < WIDTH; lane++) {
+                int slot = node * WIDTH + lane;
+                if (counts[slot] < 0) {
+                    continue;
+                }
+                double[] box = getChildBounds(node, lane);
+                for (int axis = 0; axis < 3; axis++) {
+                    union[axis] = Math.min(union[axis], box[axis]);
+                    union[axis + 3] = Math.max(union[axis + 3], box[axis + 3]);
+                }
+                double childCost = counts[slot] > 0 ? counts[slot] * BVHNode.INTERSECTION_COST
+                        : costs[children[slot]];
+                weightedCost += childCost * BVHBuilder.surfaceArea(box, 0);
+            }
+            double area = BVHBuilder.surfaceArea(union, 0);
+            costs[node] = BVHNode.TRAVERSAL_COST + (area > 0 ? weightedCost / area : weightedCost);
+        }
+        return costs[0];
+    }
+
+    @Override
+    public BVHWidth getWidth() {
+        return BVHWidth.QUAD;
+    }
+
+    @Override
+    public void write(final DataOutputStream out) throws IOException {
+        out.writeInt(BVHWidth.QUAD.ordinal());
+        BinaryGeometry.writeDoubles(out, rootBounds);
+        BinaryGeometry.writeDoubles(out, bounds);
+        BinaryGeometry.writeInts(out, children);
+        BinaryGeometry.writeInts(out, counts);
+    }
+
+    /**
+     * Add the nodes for an interior node of the built tree and the interior nodes below it
+     *
+     * @param node The interior node
+     * @return The index of the new node
+     */
+    private int collapse(final BVHBuilder.Node node) {
+        // Open the child with the largest area until there are enough children
+        List<BVHBuilder.Node> slots = new ArrayList<>(WIDTH);
+        slots.add(node.getLeft());
+        slots.add(node.getRight());
+        while (slots.size() < WIDTH) {
+            int largest = -1;
+            double largestArea = -1;
+            for (int i = 0; i < slots.size(); i++) {
+                BVHBuilder.Node child = slots.get(i);
+                double area = BVHBuilder.surfaceArea(child.getBounds(), 0);
+                if (!child.isLeaf() && area > largestArea) {
+                    largest = i;
+                    largestArea = area;
+                }
+            }
+            if (largest < 0) {
+                break;
+            }
+            BVHBuilder.Node opened = slots.get(largest);
+            slots.set(largest, opened.getLeft());
+            slots.add(largest + 1, opened.getRight());
+        }
+
+        return addNode(slots);
+    }
+
+    /**
+     * Add a node with the given children, followed by the nodes of the interior children
+     *
+     * @param slots The children
+     * @return The index of the new node
+     */
+    private int addNode(final List<BVHBuilder.Node> slots) {
+        int index = nodeCount++;
+        for (int lane = 0; lane < WIDTH; lane++) {
+            int slot = index * WIDTH + lane;
+            if (lane >= slots.size()) {
+                WideBoxTest.setEmpty(bounds, index * STRIDE, lane);
+                counts[slot] = -1;
+                continue;
+            }
+
+            BVHBuilder.Node child = slots.get(lane);
+            WideBoxTest.setBox(bounds, index * STRIDE, lane, child.getBounds(), 0);
+            if (child.isLeaf()) {
+                children[slot] = child.getStart();
+                counts[slot] = child.getCount();
+            } else {
+                children[slot] = collapse(child);
+                counts[slot] = 0;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the bounds of a child
+     *
+     * @param node The node
+     * @param lane The position of the child
+     * @return The bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    private double[] getChildBounds(final int node, final int lane) {
+        double[] box = new double[6];
+        for (int plane = 0; plane < 6; plane++) {
+            box[plane] = bounds[node * STRIDE + plane * WIDTH + lane];
+        }
+        return box;
+    }
+}
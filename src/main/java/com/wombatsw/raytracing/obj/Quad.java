@@ -9,6 +9,8 @@ import com.wombatsw.raytracing.model.Triplet;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.List;
+
 import static com.wombatsw.raytracing.Constants.EPSILON;
 import static com.wombatsw.raytracing.Constants.UNIT_INTERVAL;
 
@@ -27,6 +29,11 @@ public class Quad extends AbstractObj {
     private final Triplet n;
     private final Triplet w;
     private final double d;
+    private final double area;
+
+    // The plane coordinates of a point relative to q are its dot products with these vectors
+    private final Triplet uAxis;
+    private final Triplet vAxis;
 
     /**
      * Stationary quad
@@ -45,12 +52,15 @@ public class Quad extends AbstractObj {
 
         n = u.cross(v);
         w = n.copy().div(n.dot(n));
+        area = n.len();
         n.normalize();
 
         d = n.dot(q);
 
         n.setImmutable();
         w.setImmutable();
+        uAxis = v.cross(w).setImmutable();
+        vAxis = w.cross(u).setImmutable();
     }
 
     /**
@@ -85,30 +95,87 @@ public class Quad extends AbstractObj {
     }
 
     @Override
-    public Intersection intersect(final Ray ray, final Interval tRange) {
-        double nd = n.dot(ray.direction());
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        return hit(ray, tMin, record.getT(), record);
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return hit(ray, tMin, tMax, null);
+    }
+
+    @Override
+    Intersection createIntersection(final Ray ray, final HitRecord record) {
+        double t = record.getT();
+        return new Intersection(ray, t, ray.at(t), n.copy(), record.getU(), record.getV(), getMaterial());
+    }
+
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        collectIfEmissive(lights);
+    }
+
+    @Override
+    public double pdfValue(final Ray ray, final Interval tRange) {
+        HitRecord record = new HitRecord(tRange.max());
+        if (!hit(ray, tRange.min(), record)) {
+            return 0;
+        }
+
+        Triplet direction = ray.direction();
+        double distanceSquared = record.getT() * record.getT() * direction.lenSquared();
+        double cosine = Math.abs(direction.dot(n)) / direction.len();
+        return distanceSquared / (cosine * area);
+    }
+
+    @Override
+    public Triplet random(final Triplet origin, final double time, final double u1, final double u2) {
+        return q.copy().addScaled(u, u1, v, u2).sub(origin);
+    }
+
+    /**
+     * Check for a hit with the quad
+     *
+     * @param ray    The ray to check
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param record The record for the hit, or {@code null} to only check for one
+     * @return Whether there is a hit within the range
+     */
+    private boolean hit(final Ray ray, final double tMin, final double tMax, final HitRecord record) {
+        Triplet origin = ray.origin();
+        Triplet dir = ray.direction();
+        double nd = n.dot(dir);
 
         // If the ray is parallel to the plane, then no intersection
         if (Math.abs(nd) < EPSILON) {
-            return null;
+            return false;
         }
 
         // Plane intersection is out of range
-        double t = (d - ray.origin().dot(n)) / nd;
-        if (!tRange.contains(t)) {
-            return null;
+        double t = (d - origin.dot(n)) / nd;
+        if (t < tMin || t > tMax) {
+            return false;
         }
 
-        Triplet p = ray.at(t);
-        Triplet planarHit = p.copy().sub(q);
-        double a = w.dot(planarHit.cross(v));
-        double b = w.dot(u.cross(planarHit));
-
+        double px = origin.getX() + t * dir.getX() - q.getX();
+        double py = origin.getY() + t * dir.getY() - q.getY();
+        double pz = origin.getZ() + t * dir.getZ() - q.getZ();
+        double a = px * uAxis.getX() + py * uAxis.getY() + pz * uAxis.getZ();
+        double b = px * vAxis.getX() + py * vAxis.getY() + pz * vAxis.getZ();
         if (!UNIT_INTERVAL.contains(a) || !UNIT_INTERVAL.contains(b)) {
-            return null;
+            return false;
         }
 
-        return new Intersection(ray, t, p, n.copy(), a, b, getMaterial());
+        if (record != null) {
+            record.set(t, this, 0, a, b);
+        }
+        return true;
     }
 
     /**
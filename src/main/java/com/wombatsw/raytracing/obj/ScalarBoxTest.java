@@ -0,0 +1,51 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * Tests a group of boxes one after another. This is the fallback when the Vector API is not available
+ */
+final class ScalarBoxTest extends WideBoxTest {
+    @Override
+    public BoxTestMode getMode() {
+        return BoxTestMode.SCALAR;
+    }
+
+    @Override
+    public int intersect(final double[] group, final int offset, final Ray ray,
+                         final double tMin, final double tMax, final double[] tNear) {
+        Triplet origin = ray.origin();
+        double ox = origin.getX();
+        double oy = origin.getY();
+        double oz = origin.getZ();
+        double invX = ray.getInvX();
+        double invY = ray.getInvY();
+        double invZ = ray.getInvZ();
+
+        // The near and far planes of each axis, selected by the sign of the direction
+        int nearX = offset + ray.getSignX() * 3 * WIDTH;
+        int nearY = offset + (1 + ray.getSignY() * 3) * WIDTH;
+        int nearZ = offset + (2 + ray.getSignZ() * 3) * WIDTH;
+        int farX = offset + (3 - ray.getSignX() * 3) * WIDTH;
+        int farY = offset + (4 - ray.getSignY() * 3) * WIDTH;
+        int farZ = offset + (5 - ray.getSignZ() * 3) * WIDTH;
+
+        int mask = 0;
+        for (int lane = 0; lane < WIDTH; lane++) {
+            double near = Math.max(tMin, Math.max((group[nearX + lane] - ox) * invX,
+                    Math.max((group[nearY + lane] - oy) * invY, (group[nearZ + lane] - oz) * invZ)));
+            double far = Math.min(tMax, Math.min((group[farX + lane] - ox) * invX,
+                    Math.min((group[farY + lane] - oy) * invY, (group[farZ + lane] - oz) * invZ)));
+            if (near < far) {
+                tNear[lane] = near;
+                mask |= 1 << lane;
+            } else {
+                tNear[lane] = POSITIVE_INFINITY;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,63 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+
+/**
+ * Tests a range of spheres one after another. This is the fallback when the Vector API is not available
+ */
+final class ScalarSphereTest extends WideSphereTest {
+    @Override
+    BoxTestMode getMode() {
+        return BoxTestMode.SCALAR;
+    }
+
+    @Override
+    int intersect(final double[][] spheres, final int start, final int count, final Ray ray,
+                  final double tMin, final double tMax) {
+        double[] centerX = spheres[0];
+        double[] centerY = spheres[1];
+        double[] centerZ = spheres[2];
+        double[] motionX = spheres[3];
+        double[] motionY = spheres[4];
+        double[] motionZ = spheres[5];
+        double[] radius = spheres[6];
+
+        Triplet origin = ray.origin();
+        Triplet dir = ray.direction();
+        double ox = origin.getX();
+        double oy = origin.getY();
+        double oz = origin.getZ();
+        double dx = dir.getX();
+        double dy = dir.getY();
+        double dz = dir.getZ();
+        double a = dir.lenSquared();
+        double time = ray.time();
+
+        // The arithmetic is the same as WideSphereTest.distance, in the same order, so that the locations match
+        double closest = tMax;
+        int closestIndex = -1;
+        for (int i = start; i < start + count; i++) {
+            double ocx = centerX[i] - ox;
+            double ocy = centerY[i] - oy;
+            double ocz = centerZ[i] - oz;
+            if (motionX != null) {
+                ocx += time * motionX[i];
+                ocy += time * motionY[i];
+                ocz += time * motionZ[i];
+            }
+
+            double h = dx * ocx + dy * ocy + dz * ocz;
+            double c = ocx * ocx + ocy * ocy + ocz * ocz - radius[i] * radius[i];
+            double sqrtD = Math.sqrt(h * h - a * c);
+            double near = (h - sqrtD) / a;
+            double t = near > tMin ? near : (h + sqrtD) / a;
+
+            // Selected rather than branched on, since whether a sphere is hit is not predictable
+            boolean hit = t > tMin & t < closest;
+            closest = hit ? t : closest;
+            closestIndex = hit ? i : closestIndex;
+        }
+        return closestIndex;
+    }
+}
@@ -10,6 +10,8 @@ import lombok.Getter;
 import lombok.ToString;
 import org.jspecify.annotations.NonNull;
 
+import java.util.List;
+
 /**
  * A sphere
  */
@@ -50,32 +52,115 @@ public class Sphere extends AbstractObj {
     }
 
     @Override
-    public Intersection intersect(final Ray ray, final Interval tRange) {
-        Triplet curCenter = centerPath.at(ray.time());
-        Triplet oc = curCenter.copy().sub(ray.origin());
-        double a = ray.direction().lenSquared();
-        double h = ray.direction().dot(oc);
-        double c = oc.lenSquared() - radius * radius;
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        return hit(ray, tMin, record.getT(), record);
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return hit(ray, tMin, tMax, null);
+    }
+
+    @Override
+    Intersection createIntersection(final Ray ray, final HitRecord record) {
+        return getIntersection(centerPath.at(ray.time()), ray, record.getT());
+    }
+
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        collectIfEmissive(lights);
+    }
+
+    @Override
+    public double pdfValue(final Ray ray, final Interval tRange) {
+        if (!occluded(ray, tRange)) {
+            return 0;
+        }
+
+        double distanceSquared = new Triplet(centerPath.at(ray.time()), ray.origin()).lenSquared();
+        double radiusSquared = radius * radius;
+        if (distanceSquared <= radiusSquared) {
+            // Directions from inside the sphere are chosen uniformly
+            return 1 / (4 * Math.PI);
+        }
+
+        double cosThetaMax = Math.sqrt(1 - radiusSquared / distanceSquared);
+        return 1 / (2 * Math.PI * (1 - cosThetaMax));
+    }
+
+    /**
+     * Choose a direction uniformly from the cone of directions that hit the sphere
+     */
+    @Override
+    public Triplet random(final Triplet origin, final double time, final double u1, final double u2) {
+        Triplet w = new Triplet(centerPath.at(time), origin);
+        double distanceSquared = w.lenSquared();
+        double radiusSquared = radius * radius;
+        if (distanceSquared <= radiusSquared) {
+            return Triplet.unitVector(u1, u2);
+        }
+
+        double cosThetaMax = Math.sqrt(1 - radiusSquared / distanceSquared);
+        double z = 1 + u2 * (cosThetaMax - 1);
+        double r = Math.sqrt(1 - z * z);
+        double phi = 2 * Math.PI * u1;
+
+        // Build an orthonormal basis around the direction to the center
+        w.normalize();
+        Triplet a = Math.abs(w.getX()) > 0.9 ? new Triplet(0, 1, 0) : new Triplet(1, 0, 0);
+        Triplet v = w.cross(a).normalize();
+        Triplet u = w.cross(v);
+        return u.mul(r * Math.cos(phi)).addScaled(v, r * Math.sin(phi), w, z);
+    }
+
+    /**
+     * Check for a hit with the sphere
+     *
+     * @param ray    The ray to check
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param record The record for the hit, or {@code null} to only check for one
+     * @return Whether there is a hit within the range
+     */
+    private boolean hit(final Ray ray, final double tMin, final double tMax, final HitRecord record) {
+        Triplet origin = ray.origin();
+        Triplet dir = ray.direction();
+        Triplet center = centerPath.origin();
+        Triplet motion = centerPath.direction();
+        double time = ray.time();
+        double ocx = center.getX() + time * motion.getX() - origin.getX();
+        double ocy = center.getY() + time * motion.getY() - origin.getY();
+        double ocz = center.getZ() + time * motion.getZ() - origin.getZ();
+
+        double a = dir.lenSquared();
+        double h = dir.getX() * ocx + dir.getY() * ocy + dir.getZ() * ocz;
+        double c = ocx * ocx + ocy * ocy + ocz * ocz - radius * radius;
         double discriminant = h * h - a * c;
         if (discriminant < 0) {
-            return null;
+            return false;
         }
 
         double sqrtD = Math.sqrt(discriminant);
 
         // Note: Root 1 is smaller than Root 2, which makes it closer
-        // to the ray's origin when tRange.min() is non-negative.
-        double root1 = (h - sqrtD) / a;
-        if (tRange.surrounds(root1)) {
-            return getIntersection(curCenter, ray, root1);
+        // to the ray's origin when tMin is non-negative.
+        double t = (h - sqrtD) / a;
+        if (t <= tMin || t >= tMax) {
+            t = (h + sqrtD) / a;
+            if (t <= tMin || t >= tMax) {
+                return false;
+            }
         }
 
-        double root2 = (h + sqrtD) / a;
-        if (tRange.surrounds(root2)) {
-            return getIntersection(curCenter, ray, root2);
+        if (record != null) {
+            record.set(t, this, 0, 0, 0);
         }
-
-        return null;
+        return true;
     }
 
     /**
@@ -99,7 +184,7 @@ public class Sphere extends AbstractObj {
      * @param v The unit vector
      * @return the PHI coordinate normalized to the range 0-1
      */
-    private double getU(final Triplet v) {
+    static double getU(final Triplet v) {
         double phi = Math.atan2(-v.getZ(), v.getX()) + Math.PI;
         return phi / (2.0 * Math.PI);
     }
@@ -110,7 +195,7 @@ public class Sphere extends AbstractObj {
      * @param v The unit vector
      * @return the theta coordinate normalized to the range 0-1
      */
-    private double getV(final Triplet v) {
+    static double getV(final Triplet v) {
         double theta = Math.acos(-v.getY());
         return theta / Math.PI;
     }
@@ -0,0 +1,304 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Intersection;
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A set of spheres stored as a structure of arrays. The centers, motion vectors and radii are kept in parallel
+ * arrays, and each leaf of the internal {@link HierarchyLayout} is intersected in one loop over a contiguous range of
+ * them, instead of a virtual call and a {@link Sphere} object for each sphere. The arrays are kept in the leaf
+ * order of that hierarchy.
+ * <p>
+ * Each sphere keeps its own material. The hits and intersections are the same as for the equivalent {@link Sphere}
+ * objects. The leaves are tested with the default {@link WideSphereTest}.
+ */
+@ToString(callSuper = true, onlyExplicitlyIncluded = true)
+public class SphereSet extends AbstractObj implements BVHLayout.LeafIntersector {
+    /**
+     * The number of arrays returned by {@link #getArrays}
+     */
+    static final int ARRAY_COUNT = 7;
+
+    private final double[] centerX;
+    private final double[] centerY;
+    private final double[] centerZ;
+    /**
+     * The movement of the centers from t = 0 to t = 1, or {@code null} if no sphere is moving
+     */
+    private final double[] motionX;
+    private final double[] motionY;
+    private final double[] motionZ;
+    private final double[] radius;
+    private final Material[] materials;
+    /**
+     * The arrays above in the order of {@link #getArrays}, as used by {@link WideSphereTest}
+     */
+    private final double[][] arrays;
+    private final WideSphereTest sphereTest = WideSphereTest.getDefault();
+
+    private final HierarchyLayout layout;
+
+    /**
+     * Create a set of spheres with a hierarchy built using the Surface Area Heuristic
+     *
+     * @param spheres The spheres
+     */
+    public SphereSet(final List<Sphere> spheres) {
+        this(spheres, createBuilder());
+    }
+
+    /**
+     * Create a set of spheres
+     *
+     * @param spheres The spheres
+     * @param builder The {@link BVHBuilder} for the sphere hierarchy
+     */
+    public SphereSet(final List<Sphere> spheres, final BVHBuilder builder) {
+        this(spheres, builder.buildLayout(spheres));
+    }
+
+    private SphereSet(final List<Sphere> spheres, final BVHBuilder.Flattened flattened) {
+        this(spheres, flattened.order(), flattened.layout());
+    }
+
+    private SphereSet(final List<Sphere> spheres, final int[] order, final HierarchyLayout layout) {
+        super(null, layout.getBoundingBox());
+
+        int count = spheres.size();
+        boolean moving = spheres.stream().anyMatch(sphere -> sphere.getCenterPath().direction().lenSquared() > 0);
+        centerX = new double[count];
+        centerY = new double[count];
+        centerZ = new double[count];
+        motionX = moving ? new double[count] : null;
+        motionY = moving ? new double[count] : null;
+        motionZ = moving ? new double[count] : null;
+        radius = new double[count];
+        materials = new Material[count];
+
+        for (int i = 0; i < count; i++) {
+            Sphere sphere = spheres.get(order[i]);
+            Triplet center = sphere.getCenterPath().origin();
+            centerX[i] = center.getX();
+            centerY[i] = center.getY();
+            centerZ[i] = center.getZ();
+            if (moving) {
+                Triplet motion = sphere.getCenterPath().direction();
+                motionX[i] = motion.getX();
+                motionY[i] = motion.getY();
+                motionZ[i] = motion.getZ();
+            }
+            radius[i] = sphere.getRadius();
+            materials[i] = sphere.getMaterial();
+        }
+        arrays = new double[][]{centerX, centerY, centerZ, motionX, motionY, motionZ, radius};
+        this.layout = layout;
+    }
+
+    /**
+     * Create a set of spheres with a hierarchy that is already built, see {@link BinaryGeometry}
+     *
+     * @param arrays    The arrays in the order of {@link #getArrays}
+     * @param materials The material of each sphere
+     * @param layout    The hierarchy
+     */
+    SphereSet(final double[][] arrays, final Material[] materials, final HierarchyLayout layout) {
+        super(null, layout.getBoundingBox());
+
+        int count = materials.length;
+        boolean moving = arrays[3] != null;
+        for (int i = 0; i < ARRAY_COUNT; i++) {
+            boolean absent = i >= 3 && i < 6 && !moving;
+            if (absent ? arrays[i] != null : arrays[i] == null || arrays[i].length != count) {
+                throw new IllegalArgumentException("Sphere arrays do not match the " + count + " materials");
+            }
+        }
+        centerX = arrays[0];
+        centerY = arrays[1];
+        centerZ = arrays[2];
+        motionX = arrays[3];
+        motionY = arrays[4];
+        motionZ = arrays[5];
+        radius = arrays[6];
+        this.arrays = arrays;
+        this.materials = materials;
+        this.layout = layout;
+    }
+
+    /**
+     * @return The number of spheres
+     */
+    @ToString.Include
+    public int getSphereCount() {
+        return radius.length;
+    }
+
+    /**
+     * @return The number of nodes in the sphere hierarchy
+     */
+    public int getNodeCount() {
+        return layout.getNodeCount();
+    }
+
+    /**
+     * Get the spheres as separate objects. The spheres are in the leaf order of the hierarchy, which is not
+     * necessarily the order they were provided in.
+     *
+     * @return A new list of spheres
+     */
+    public List<Sphere> getSpheres() {
+        List<Sphere> spheres = new ArrayList<>(radius.length);
+        for (int i = 0; i < radius.length; i++) {
+            spheres.add(getSphere(i));
+        }
+        return spheres;
+    }
+
+    /**
+     * @return The distinct materials of the spheres, in the order they are first used
+     */
+    public List<Material> getMaterials() {
+        Set<Material> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Material> result = new ArrayList<>();
+        for (Material material : materials) {
+            if (distinct.add(material)) {
+                result.add(material);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The center, motion and radius arrays in leaf order, without copying. The motion arrays are
+     * {@code null} if no sphere is moving
+     */
+    double[][] getArrays() {
+        return arrays;
+    }
+
+    /**
+     * @return The material of each sphere in leaf order, without copying
+     */
+    Material[] getSphereMaterials() {
+        return materials;
+    }
+
+    /**
+     * @return The sphere hierarchy
+     */
+    HierarchyLayout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        return layout.hit(ray, tMin, record, this);
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return layout.occluded(ray, tMin, tMax, this);
+    }
+
+    @Override
+    public boolean hitLeaf(final int start, final int count, final Ray ray, final double tMin,
+                           final HitRecord record) {
+        return hitSpheres(start, count, ray, tMin, record.getT(), record);
+    }
+
+    @Override
+    public boolean occludedLeaf(final int start, final int count, final Ray ray,
+                                final double tMin, final double tMax) {
+        return hitSpheres(start, count, ray, tMin, tMax, null);
+    }
+
+    @Override
+    Intersection createIntersection(final Ray ray, final HitRecord record) {
+        int i = record.getIndex();
+        double time = ray.time();
+        Triplet center = new Triplet(centerX[i], centerY[i], centerZ[i]);
+        if (motionX != null) {
+            center.add(new Triplet(motionX[i], motionY[i], motionZ[i]).mul(time));
+        }
+
+        double t = record.getT();
+        Triplet p = ray.at(t);
+        Triplet n = new Triplet(p, center).div(radius[i]);
+        return new Intersection(ray, t, p, n, Sphere.getU(n), Sphere.getV(n), materials[i]);
+    }
+
+    /**
+     * Add a {@link Sphere} for each emissive sphere, so that it can be sampled as a light
+     */
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        for (int i = 0; i < radius.length; i++) {
+            if (materials[i] != null && materials[i].isEmissive()) {
+                lights.add(getSphere(i));
+            }
+        }
+    }
+
+    /**
+     * Find the closest hit with a range of spheres
+     *
+     * @param start  The index of the first sphere in leaf order
+     * @param count  The number of spheres
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param record The record for the closest hit, or {@code null} if only a hit is needed
+     * @return Whether there is a hit within the range
+     */
+    private boolean hitSpheres(final int start, final int count, final Ray ray, final double tMin,
+                               final double tMax, final HitRecord record) {
+        int closestIndex = sphereTest.intersect(arrays, start, count, ray, tMin, tMax);
+        if (closestIndex < 0) {
+            return false;
+        }
+        if (record != null) {
+            record.set(WideSphereTest.distance(arrays, closestIndex, ray, tMin), this, closestIndex, 0, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Create a separate object for a sphere
+     *
+     * @param i The index of the sphere in leaf order
+     * @return The {@link Sphere}
+     */
+    private Sphere getSphere(final int i) {
+        Triplet center = new Triplet(centerX[i], centerY[i], centerZ[i]);
+        if (motionX == null) {
+            return new Sphere(center, radius[i], materials[i]);
+        }
+        Triplet center2 = new Triplet(motionX[i], motionY[i], motionZ[i]).add(center);
+        return new Sphere(center, center2, radius[i], materials[i]);
+    }
+
+    /**
+     * Leaves are larger than for other hierarchies, since a sphere in the leaf loop costs less than a node visit.
+     *
+     * @return A builder using the Surface Area Heuristic with leaves of up to 8 spheres
+     */
+    private static BVHBuilder createBuilder() {
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        builder.setMaxLeafSize(8);
+        return builder;
+    }
+}
@@ -0,0 +1,16 @@
+package com.wombatsw.raytracing.obj;
+
+/**
+ * The strategy used to split a set of objects when building a Bounding Volume Hierarchy
+ */
+public enum SplitMethod {
+    /**
+     * Split the objects at the median centroid along the axis where the centroids are most spread out
+     */
+    MEDIAN,
+
+    /**
+     * Bin the object centroids along each axis and pick the split with the lowest Surface Area Heuristic cost
+     */
+    SAH
+}
@@ -9,6 +9,9 @@ import com.wombatsw.raytracing.model.Triplet;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * An object made from transforming another object.
  */
@@ -26,22 +29,104 @@ public class Transform extends AbstractObj {
     }
 
     @Override
-    public Intersection intersect(final Ray ray, final Interval tRange) {
-        // Transform ray to object space
-        Triplet newOrigin = affine.invert(ray.origin(), true);
-        Triplet newDir = affine.invert(ray.direction(), false);
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        // Reject rays that miss the transformed bounds before transforming anything
+        if (getBoundingBox().intersect(ray, tMin, record.getT()) == Double.POSITIVE_INFINITY) {
+            return false;
+        }
+
+        TraversalStack stack = TraversalStack.get();
+        try {
+            if (!object.hit(affine.invert(ray, stack.acquireRay()), tMin, record)) {
+                return false;
+            }
+        } finally {
+            stack.releaseRay();
+        }
+        record.addTransform(this);
+        return true;
+    }
+
+    /**
+     * Collect the lights of the transformed object, transforming each of them in the same way
+     */
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        List<AbstractObj> objectLights = new ArrayList<>();
+        object.collectLights(objectLights);
+        for (AbstractObj light : objectLights) {
+            lights.add(light == object ? this : new Transform(light, affine));
+        }
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        if (getBoundingBox().intersect(ray, tMin, tMax) == Double.POSITIVE_INFINITY) {
+            return false;
+        }
+        TraversalStack stack = TraversalStack.get();
+        try {
+            return object.occluded(affine.invert(ray, stack.acquireRay()), tMin, tMax);
+        } finally {
+            stack.releaseRay();
+        }
+    }
 
-        Ray rotatedRay = new Ray(newOrigin, newDir, ray.time());
+    @Override
+    public double pdfValue(final Ray ray, final Interval tRange) {
+        TraversalStack stack = TraversalStack.get();
+        try {
+            Ray objectRay = affine.invert(ray, stack.acquireRay());
+            double pdf = object.pdfValue(objectRay, tRange);
+            if (pdf == 0) {
+                return 0;
+            }
 
-        // Determine intersection
-        Intersection intersection = object.intersect(rotatedRay, tRange);
-        if (intersection == null) {
-            return null;
+            // The density is with respect to solid angle in object space. The linear part M of the transform maps an
+            // object space unit direction w to the world direction Mw / |Mw|, which scales solid angle by
+            // |det M| / |Mw|^3. This accounts for the distance and cosine terms, and is 1 for rigid transforms
+            double scale = objectRay.direction().len() / ray.direction().len();
+            return pdf / (Math.abs(affine.getDeterminant()) * scale * scale * scale);
+        } finally {
+            stack.releaseRay();
         }
+    }
+
+    /**
+     * Pick a direction towards the object in object space and transform it. A point on the object stays on the
+     * transformed object, so this is valid for any transform, with the density given by {@link #pdfValue}
+     */
+    @Override
+    public Triplet random(final Triplet origin, final double time, final double u1, final double u2) {
+        Triplet direction = object.random(affine.invert(origin, true), time, u1, u2);
+        return affine.apply(direction, false, direction);
+    }
+
+    /**
+     * Transform a ray to object space. The direction is not normalized, so locations on the ray are unchanged. This
+     * allocates a new ray that can be kept, for the intersection data of a hit
+     *
+     * @param ray The ray in world space
+     * @return The ray in object space
+     */
+    Ray toObjectSpace(final Ray ray) {
+        return new Ray(affine.invert(ray.origin(), true), affine.invert(ray.direction(), false), ray.time());
+    }
 
-        // Transform intersection from object space to world space
+    /**
+     * Transform an intersection from object space to world space
+     *
+     * @param intersection The intersection in object space
+     * @return The intersection in world space
+     */
+    Intersection toWorldSpace(final Intersection intersection) {
         Triplet p = affine.apply(intersection.getP(), true);
-        Triplet n = affine.invert(intersection.getN(), false);
+        Triplet n = affine.applyNormal(intersection.getN(), Triplet.newZeroVector()).normalize();
 
         return new Intersection(intersection, p, n);
     }
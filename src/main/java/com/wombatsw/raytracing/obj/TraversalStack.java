@@ -0,0 +1,140 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+
+import java.util.Arrays;
+
+/**
+ * A per-thread stack of node indices used for iterative tree traversal. Traversals are re-entrant: a traversal
+ * that starts while another is in progress on the same thread (for example, a transformed object inside a BVH)
+ * pushes above the entries of the outer traversal and must restore the stack to its starting size when done.
+ */
+final class TraversalStack {
+    private static final ThreadLocal<TraversalStack> STACKS = ThreadLocal.withInitial(TraversalStack::new);
+
+    private int[] entries = new int[64];
+
+    /**
+     * The distance along the ray to each entry, for entries pushed with one
+     */
+    private double[] entryDistances = new double[64];
+    private int size;
+
+    /**
+     * Scratch space for the distances to a group of boxes, see {@link WideBoxTest}. A traversal must read the
+     * distances before it intersects any primitives, since a nested traversal reuses them
+     */
+    private final double[] distances = new double[WideBoxTest.WIDTH];
+
+    /**
+     * Scratch rays for rays transformed to object space, one for each level of nested transforms
+     */
+    private Ray[] rays = new Ray[4];
+    private int rayCount;
+
+    /**
+     * Get the stack for the current thread
+     *
+     * @return The {@link TraversalStack}
+     */
+    static TraversalStack get() {
+        return STACKS.get();
+    }
+
+    /**
+     * @return The scratch space for the distances to a group of boxes
+     */
+    double[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Take a scratch ray for the next level of nested transforms. Each call must be matched by {@link #releaseRay}
+     * once the ray is no longer used
+     *
+     * @return The scratch ray
+     */
+    Ray acquireRay() {
+        if (rayCount == rays.length) {
+            rays = Arrays.copyOf(rays, rayCount * 2);
+        }
+        if (rays[rayCount] == null) {
+            rays[rayCount] = new Ray(Triplet.newZeroVector(), new Triplet(0, 0, 1));
+        }
+        return rays[rayCount++];
+    }
+
+    /**
+     * Return the scratch ray taken by the last call to {@link #acquireRay}
+     */
+    void releaseRay() {
+        rayCount--;
+    }
+
+    /**
+     * @return The number of entries on the stack
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Push a value onto the stack
+     *
+     * @param value The value
+     */
+    void push(final int value) {
+        if (size == entries.length) {
+            grow();
+        }
+        entries[size++] = value;
+    }
+
+    /**
+     * Push a value onto the stack, along with the distance along the ray at which it is entered
+     *
+     * @param value    The value
+     * @param distance The entry distance, see {@link #peekDistance}
+     */
+    void push(final int value, final double distance) {
+        if (size == entries.length) {
+            grow();
+        }
+        entryDistances[size] = distance;
+        entries[size++] = value;
+    }
+
+    /**
+     * Get the entry distance of the value on top of the stack. This is only defined for a value pushed with a
+     * distance
+     *
+     * @return The entry distance
+     */
+    double peekDistance() {
+        return entryDistances[size - 1];
+    }
+
+    /**
+     * Pop a value from the stack
+     *
+     * @return The value
+     */
+    int pop() {
+        return entries[--size];
+    }
+
+    /**
+     * Discard entries until the stack has the given size
+     *
+     * @param newSize The new size, which must not be larger than the current size
+     */
+    void truncate(final int newSize) {
+        size = newSize;
+    }
+
+    private void grow() {
+        entries = Arrays.copyOf(entries, size * 2);
+        entryDistances = Arrays.copyOf(entryDistances, size * 2);
+    }
+}
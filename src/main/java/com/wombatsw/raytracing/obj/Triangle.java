@@ -0,0 +1,162 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Intersection;
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A triangle. The texture coordinates are the barycentric coordinates of the intersection point, relative to
+ * vertex a
+ */
+@ToString(callSuper = true)
+public class Triangle extends AbstractObj {
+    @Getter
+    private final Triplet a;
+    @Getter
+    private final Triplet b;
+    @Getter
+    private final Triplet c;
+
+    private final Triplet e1;
+    private final Triplet e2;
+    private final Triplet n;
+    private final double area;
+
+    /**
+     * Stationary triangle
+     *
+     * @param a        The first vertex
+     * @param b        The second vertex
+     * @param c        The third vertex
+     * @param material Material the triangle is made of
+     */
+    public Triangle(final Triplet a, final Triplet b, final Triplet c, final Material material) {
+        super(material, createBoundingBox(a, b, c));
+
+        this.a = a;
+        this.b = b;
+        this.c = c;
+
+        e1 = new Triplet(b, a).setImmutable();
+        e2 = new Triplet(c, a).setImmutable();
+        Triplet cross = e1.cross(e2);
+        area = cross.len() / 2;
+        n = cross.normalize().setImmutable();
+    }
+
+    @Override
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        return hit(ray, tMin, record.getT(), record);
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return hit(ray, tMin, tMax, null);
+    }
+
+    @Override
+    Intersection createIntersection(final Ray ray, final HitRecord record) {
+        double t = record.getT();
+        return new Intersection(ray, t, ray.at(t), n.copy(), record.getU(), record.getV(), getMaterial());
+    }
+
+    @Override
+    public void collectLights(final List<AbstractObj> lights) {
+        collectIfEmissive(lights);
+    }
+
+    @Override
+    public double pdfValue(final Ray ray, final Interval tRange) {
+        HitRecord record = new HitRecord(tRange.max());
+        if (!hit(ray, tRange.min(), record)) {
+            return 0;
+        }
+
+        Triplet direction = ray.direction();
+        double distanceSquared = record.getT() * record.getT() * direction.lenSquared();
+        double cosine = Math.abs(direction.dot(n)) / direction.len();
+        return distanceSquared / (cosine * area);
+    }
+
+    @Override
+    public Triplet random(final Triplet origin, final double time, final double u1, final double u2) {
+        // Uniform barycentric coordinates
+        double su = Math.sqrt(u1);
+        return a.copy().addScaled(e1, su * (1 - u2), e2, su * u2).sub(origin);
+    }
+
+    /**
+     * Check for a hit with the triangle, using Möller–Trumbore
+     *
+     * @param ray    The ray to check
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param record The record for the hit, or {@code null} to only check for one
+     * @return Whether there is a hit within the range
+     */
+    private boolean hit(final Ray ray, final double tMin, final double tMax, final HitRecord record) {
+        Triplet origin = ray.origin();
+        Triplet dir = ray.direction();
+        double dx = dir.getX();
+        double dy = dir.getY();
+        double dz = dir.getZ();
+
+        double px = dy * e2.getZ() - dz * e2.getY();
+        double py = dz * e2.getX() - dx * e2.getZ();
+        double pz = dx * e2.getY() - dy * e2.getX();
+        double det = e1.getX() * px + e1.getY() * py + e1.getZ() * pz;
+        // If the ray is parallel to the plane, then no intersection. Any other determinant is usable, since tiny
+        // triangles have tiny determinants for every ray
+        double invDet = 1.0 / det;
+        if (!Double.isFinite(invDet)) {
+            return false;
+        }
+
+        double sx = origin.getX() - a.getX();
+        double sy = origin.getY() - a.getY();
+        double sz = origin.getZ() - a.getZ();
+        double u = (sx * px + sy * py + sz * pz) * invDet;
+        if (u < 0 || u > 1) {
+            return false;
+        }
+
+        double qx = sy * e1.getZ() - sz * e1.getY();
+        double qy = sz * e1.getX() - sx * e1.getZ();
+        double qz = sx * e1.getY() - sy * e1.getX();
+        double v = (dx * qx + dy * qy + dz * qz) * invDet;
+        if (v < 0 || u + v > 1) {
+            return false;
+        }
+
+        double t = (e2.getX() * qx + e2.getY() * qy + e2.getZ() * qz) * invDet;
+        if (t <= tMin || t >= tMax) {
+            return false;
+        }
+
+        if (record != null) {
+            record.set(t, this, 0, u, v);
+        }
+        return true;
+    }
+
+    /**
+     * Create the bounding box for this object
+     *
+     * @return The {@link BoundingBox}
+     */
+    private static BoundingBox createBoundingBox(final Triplet a, final Triplet b, final Triplet c) {
+        return new BoundingBox(new BoundingBox(a, b), new BoundingBox(a, c));
+    }
+}
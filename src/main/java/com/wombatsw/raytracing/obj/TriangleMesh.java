@@ -0,0 +1,431 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Intersection;
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import lombok.Getter;
+import lombok.ToString;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+
+/**
+ * An indexed triangle mesh with a single material. The vertex attributes are stored in flat arrays and the triangles
+ * reference them by index, so a mesh costs a few bytes per vertex and triangle instead of an object per triangle.
+ * The mesh has its own {@link HierarchyLayout} over the triangles, and the index array is kept in the leaf order of that
+ * hierarchy.
+ * <p>
+ * The normals and texture coordinates are optional. Without normals the face normal is used, and without texture
+ * coordinates the barycentric coordinates of the intersection are used, the same as {@link Triangle}.
+ */
+@ToString(callSuper = true, onlyExplicitlyIncluded = true)
+public class TriangleMesh extends AbstractObj implements BVHLayout.LeafIntersector {
+    /**
+     * The file the mesh was loaded from, or {@code null} if it was created in memory
+     */
+    @Getter
+    @ToString.Include
+    private final String filename;
+    /**
+     * The vertex positions, stored as (x, y, z) for each vertex
+     */
+    @Getter
+    private final float[] positions;
+    /**
+     * The vertex normals, stored as (x, y, z) for each vertex, or {@code null} for none
+     */
+    @Getter
+    private final float[] normals;
+    /**
+     * The vertex texture coordinates, stored as (u, v) for each vertex, or {@code null} for none
+     */
+    @Getter
+    private final float[] uvs;
+    /**
+     * The vertex indices, stored as 3 indices for each triangle in leaf order
+     */
+    private final int[] indices;
+
+    private final HierarchyLayout layout;
+
+    /**
+     * Create a mesh with a hierarchy built using the Surface Area Heuristic. The arrays are owned by the mesh after
+     * this call and must not be modified.
+     *
+     * @param positions The vertex positions, stored as (x, y, z) for each vertex
+     * @param normals   The vertex normals, stored as (x, y, z) for each vertex, or {@code null} for none
+     * @param uvs       The vertex texture coordinates, stored as (u, v) for each vertex, or {@code null} for none
+     * @param indices   The vertex indices, stored as 3 indices for each triangle with counter-clockwise winding
+     * @param material  Material the mesh is made of
+     */
+    public TriangleMesh(final float[] positions, final float[] normals, final float[] uvs, final int[] indices,
+                        final Material material) {
+        this(null, positions, normals, uvs, indices, material);
+    }
+
+    /**
+     * Create a mesh loaded from a file, with a hierarchy built using the Surface Area Heuristic. The arrays are owned
+     * by the mesh after this call and must not be modified.
+     *
+     * @param filename  The file the mesh was loaded from
+     * @param positions The vertex positions, stored as (x, y, z) for each vertex
+     * @param normals   The vertex normals, stored as (x, y, z) for each vertex, or {@code null} for none
+     * @param uvs       The vertex texture coordinates, stored as (u, v) for each vertex, or {@code null} for none
+     * @param indices   The vertex indices, stored as 3 indices for each triangle with counter-clockwise winding
+     * @param material  Material the mesh is made of
+     */
+    public TriangleMesh(final String filename, final float[] positions, final float[] normals, final float[] uvs,
+                        final int[] indices, final Material material) {
+        this(filename, positions, normals, uvs, indices, material, createBuilder());
+    }
+
+    /**
+     * Create a mesh. The arrays are owned by the mesh after this call and must not be modified.
+     *
+     * @param positions The vertex positions, stored as (x, y, z) for each vertex
+     * @param normals   The vertex normals, stored as (x, y, z) for each vertex, or {@code null} for none
+     * @param uvs       The vertex texture coordinates, stored as (u, v) for each vertex, or {@code null} for none
+     * @param indices   The vertex indices, stored as 3 indices for each triangle with counter-clockwise winding
+     * @param material  Material the mesh is made of
+     * @param builder   The {@link BVHBuilder} for the triangle hierarchy
+     */
+    public TriangleMesh(final float[] positions, final float[] normals, final float[] uvs, final int[] indices,
+                        final Material material, final BVHBuilder builder) {
+        this(null, positions, normals, uvs, indices, material, builder);
+    }
+
+    private TriangleMesh(final String filename, final float[] positions, final float[] normals, final float[] uvs,
+                         final int[] indices, final Material material, final BVHBuilder builder) {
+        this(filename, positions, normals, uvs, indices, material,
+                builder.buildLayout(triangleBounds(positions, normals, uvs, indices), indices.length / 3));
+    }
+
+    private TriangleMesh(final String filename, final float[] positions, final float[] normals, final float[] uvs,
+                         final int[] indices, final Material material, final BVHBuilder.Flattened flattened) {
+        this(filename, positions, normals, uvs, reorder(indices, flattened.order()), material, flattened.layout());
+    }
+
+    /**
+     * Create a mesh with a hierarchy that is already built, see {@link BinaryGeometry}
+     *
+     * @param filename  The file the mesh was loaded from, or {@code null}
+     * @param positions The vertex positions
+     * @param normals   The vertex normals, or {@code null} for none
+     * @param uvs       The vertex texture coordinates, or {@code null} for none
+     * @param indices   The vertex indices, in the leaf order of the hierarchy
+     * @param material  Material the mesh is made of
+     * @param layout    The hierarchy
+     */
+    TriangleMesh(final String filename, final float[] positions, final float[] normals, final float[] uvs,
+                 final int[] indices, final Material material, final HierarchyLayout layout) {
+        super(material, layout.getBoundingBox());
+
+        this.filename = filename;
+        this.positions = positions;
+        this.normals = normals;
+        this.uvs = uvs;
+        this.indices = indices;
+        this.layout = layout;
+    }
+
+    /**
+     * @return The number of vertices
+     */
+    @ToString.Include
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+
+    /**
+     * @return The number of triangles
+     */
+    @ToString.Include
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+
+    /**
+     * Get the vertex indices. The triangles are in the leaf order of the hierarchy, which is not necessarily the
+     * order they were provided in, but each triangle keeps its winding.
+     *
+     * @return A copy of the vertex indices, stored as 3 indices for each triangle
+     */
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * @return The vertex indices in leaf order, without copying
+     */
+    int[] getLeafIndices() {
+        return indices;
+    }
+
+    /**
+     * @return The triangle hierarchy
+     */
+    HierarchyLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return The number of nodes in the triangle hierarchy
+     */
+    public int getNodeCount() {
+        return layout.getNodeCount();
+    }
+
+    @Override
+    public boolean hit(final Ray ray, final double tMin, final HitRecord record) {
+        return layout.hit(ray, tMin, record, this);
+    }
+
+    @Override
+    public boolean occluded(final Ray ray, final Interval tRange) {
+        return occluded(ray, tRange.min(), tRange.max());
+    }
+
+    @Override
+    boolean occluded(final Ray ray, final double tMin, final double tMax) {
+        return layout.occluded(ray, tMin, tMax, this);
+    }
+
+    @Override
+    public boolean hitLeaf(final int start, final int count, final Ray ray, final double tMin,
+                           final HitRecord record) {
+        return hitTriangles(start, count, ray, tMin, record.getT(), record);
+    }
+
+    @Override
+    public boolean occludedLeaf(final int start, final int count, final Ray ray,
+                                final double tMin, final double tMax) {
+        return hitTriangles(start, count, ray, tMin, tMax, null);
+    }
+
+    @Override
+    Intersection createIntersection(final Ray ray, final HitRecord record) {
+        return getIntersection(ray, record.getT(), record.getIndex(), record.getU(), record.getV());
+    }
+
+    /**
+     * Find the closest hit with a range of triangles, using Möller–Trumbore on the packed vertex positions
+     *
+     * @param start  The index of the first triangle in leaf order
+     * @param count  The number of triangles
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param record The record for the closest hit, or {@code null} to stop at the first hit
+     * @return Whether there is a hit within the range
+     */
+    private boolean hitTriangles(final int start, final int count, final Ray ray, final double tMin,
+                                 final double tMax, final HitRecord record) {
+        Triplet origin = ray.origin();
+        Triplet dir = ray.direction();
+        double ox = origin.getX();
+        double oy = origin.getY();
+        double oz = origin.getZ();
+        double dx = dir.getX();
+        double dy = dir.getY();
+        double dz = dir.getZ();
+
+        double closest = tMax;
+        boolean hit = false;
+        for (int tri = start; tri < start + count; tri++) {
+            int a = indices[tri * 3] * 3;
+            int b = indices[tri * 3 + 1] * 3;
+            int c = indices[tri * 3 + 2] * 3;
+
+            double ax = positions[a];
+            double ay = positions[a + 1];
+            double az = positions[a + 2];
+            double e1x = positions[b] - ax;
+            double e1y = positions[b + 1] - ay;
+            double e1z = positions[b + 2] - az;
+            double e2x = positions[c] - ax;
+            double e2y = positions[c + 1] - ay;
+            double e2z = positions[c + 2] - az;
+
+            double px = dy * e2z - dz * e2y;
+            double py = dz * e2x - dx * e2z;
+            double pz = dx * e2y - dy * e2x;
+            double det = e1x * px + e1y * py + e1z * pz;
+
+            // If the ray is parallel to the plane, then no intersection. Any other determinant is usable, since tiny
+            // triangles have tiny determinants for every ray
+            double invDet = 1.0 / det;
+            if (!Double.isFinite(invDet)) {
+                continue;
+            }
+
+            double sx = ox - ax;
+            double sy = oy - ay;
+            double sz = oz - az;
+            double u = (sx * px + sy * py + sz * pz) * invDet;
+            if (u < 0 || u > 1) {
+                continue;
+            }
+
+            double qx = sy * e1z - sz * e1y;
+            double qy = sz * e1x - sx * e1z;
+            double qz = sx * e1y - sy * e1x;
+            double v = (dx * qx + dy * qy + dz * qz) * invDet;
+            if (v < 0 || u + v > 1) {
+                continue;
+            }
+
+            double t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+            if (t <= tMin || t >= closest) {
+                continue;
+            }
+
+            if (record == null) {
+                return true;
+            }
+            closest = t;
+            hit = true;
+            record.set(t, this, tri, u, v);
+        }
+        return hit;
+    }
+
+    /**
+     * Get the intersection with a triangle
+     *
+     * @param ray The ray
+     * @param t   The location on the ray
+     * @param tri The index of the triangle in leaf order
+     * @param u   The barycentric coordinate of the second vertex
+     * @param v   The barycentric coordinate of the third vertex
+     * @return The {@link Intersection}
+     */
+    private Intersection getIntersection(final Ray ray, final double t, final int tri,
+                                         final double u, final double v) {
+        int ia = indices[tri * 3];
+        int ib = indices[tri * 3 + 1];
+        int ic = indices[tri * 3 + 2];
+        double w = 1 - u - v;
+
+        Triplet n;
+        if (normals != null) {
+            n = new Triplet(interpolate(normals, 3, 0, ia, ib, ic, w, u, v),
+                    interpolate(normals, 3, 1, ia, ib, ic, w, u, v),
+                    interpolate(normals, 3, 2, ia, ib, ic, w, u, v));
+        } else {
+            Triplet e1 = new Triplet(positions[ib * 3] - positions[ia * 3],
+                    positions[ib * 3 + 1] - positions[ia * 3 + 1],
+                    positions[ib * 3 + 2] - positions[ia * 3 + 2]);
+            Triplet e2 = new Triplet(positions[ic * 3] - positions[ia * 3],
+                    positions[ic * 3 + 1] - positions[ia * 3 + 1],
+                    positions[ic * 3 + 2] - positions[ia * 3 + 2]);
+            n = e1.cross(e2);
+        }
+        n.normalize();
+
+        double texU = u;
+        double texV = v;
+        if (uvs != null) {
+            texU = interpolate(uvs, 2, 0, ia, ib, ic, w, u, v);
+            texV = interpolate(uvs, 2, 1, ia, ib, ic, w, u, v);
+        }
+
+        return new Intersection(ray, t, ray.at(t), n, texU, texV, getMaterial());
+    }
+
+    /**
+     * Interpolate a vertex attribute using barycentric coordinates
+     *
+     * @param values    The packed attribute values
+     * @param stride    The number of values per vertex
+     * @param component The component of the attribute
+     * @param ia        The index of the first vertex
+     * @param ib        The index of the second vertex
+     * @param ic        The index of the third vertex
+     * @param w         The barycentric coordinate of the first vertex
+     * @param u         The barycentric coordinate of the second vertex
+     * @param v         The barycentric coordinate of the third vertex
+     * @return The interpolated value
+     */
+    private static double interpolate(final float[] values, final int stride, final int component,
+                                      final int ia, final int ib, final int ic,
+                                      final double w, final double u, final double v) {
+        return w * values[ia * stride + component]
+                + u * values[ib * stride + component]
+                + v * values[ic * stride + component];
+    }
+
+    /**
+     * Validate the mesh arrays and compute the bounds of each triangle. Flat bounds are padded, the same as
+     * {@link com.wombatsw.raytracing.model.BoundingBox}, so that the slab test can hit axis aligned triangles.
+     *
+     * @return The triangle bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ) for each triangle
+     */
+    private static double[] triangleBounds(final float[] positions, final float[] normals, final float[] uvs,
+                                           final int[] indices) {
+        if (positions.length % 3 != 0) {
+            throw new IllegalArgumentException("Positions must have 3 values per vertex");
+        }
+        int vertexCount = positions.length / 3;
+        if (normals != null && normals.length != positions.length) {
+            throw new IllegalArgumentException("Normals must have 3 values per vertex");
+        }
+        if (uvs != null && uvs.length != vertexCount * 2) {
+            throw new IllegalArgumentException("Texture coordinates must have 2 values per vertex");
+        }
+        if (indices.length == 0 || indices.length % 3 != 0) {
+            throw new IllegalArgumentException("Indices must have 3 values per triangle");
+        }
+
+        int count = indices.length / 3;
+        double[] bounds = new double[count * 6];
+        for (int tri = 0; tri < count; tri++) {
+            for (int axis = 0; axis < 3; axis++) {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int corner = 0; corner < 3; corner++) {
+                    int index = indices[tri * 3 + corner];
+                    if (index < 0 || index >= vertexCount) {
+                        throw new IllegalArgumentException("Vertex index out of range: " + index);
+                    }
+                    min = Math.min(min, positions[index * 3 + axis]);
+                    max = Math.max(max, positions[index * 3 + axis]);
+                }
+                if (max - min < EPSILON) {
+                    min -= EPSILON / 2;
+                    max += EPSILON / 2;
+                }
+                bounds[tri * 6 + axis] = min;
+                bounds[tri * 6 + 3 + axis] = max;
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Put the triangles in leaf order
+     *
+     * @param indices The vertex indices
+     * @param order   The triangle indices in leaf order
+     * @return The vertex indices in leaf order
+     */
+    private static int[] reorder(final int[] indices, final int[] order) {
+        int[] result = new int[indices.length];
+        for (int i = 0; i < order.length; i++) {
+            System.arraycopy(indices, order[i] * 3, result, i * 3, 3);
+        }
+        return result;
+    }
+
+    /**
+     * Meshes can have millions of triangles, where the 4-wide layout needs a quarter of the nodes.
+     *
+     * @return A builder using the Surface Area Heuristic with leaves of up to 4 triangles and a 4-wide layout
+     */
+    private static BVHBuilder createBuilder() {
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        builder.setMaxLeafSize(4);
+        builder.setWidth(BVHWidth.QUAD);
+        return builder;
+    }
+}
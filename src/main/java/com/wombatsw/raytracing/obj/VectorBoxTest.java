@@ -0,0 +1,72 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static java.lang.Double.POSITIVE_INFINITY;
+
+/**
+ * Tests a group of boxes together, with one vector lane for each box. Only load this class after checking
+ * {@link WideBoxTest#isVectorAvailable()}, since it cannot be linked without the {@code jdk.incubator.vector} module
+ */
+final class VectorBoxTest extends WideBoxTest {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+    private static final DoubleVector MISS = DoubleVector.broadcast(SPECIES, POSITIVE_INFINITY);
+
+    /**
+     * @return Whether the hardware has vectors of at least {@value WideBoxTest#WIDTH} doubles. Without them the
+     * Vector API still works, but is much slower than scalar arithmetic
+     */
+    static boolean isSupported() {
+        return DoubleVector.SPECIES_PREFERRED.length() >= WIDTH;
+    }
+
+    @Override
+    public BoxTestMode getMode() {
+        return BoxTestMode.VECTOR;
+    }
+
+    @Override
+    public int intersect(final double[] group, final int offset, final Ray ray,
+                         final double tMin, final double tMax, final double[] tNear) {
+        Triplet origin = ray.origin();
+
+        // The near and far planes of each axis, selected by the sign of the direction
+        DoubleVector near = slab(group, offset + ray.getSignX() * 3 * WIDTH, origin.getX(), ray.getInvX())
+                .max(slab(group, offset + (1 + ray.getSignY() * 3) * WIDTH, origin.getY(), ray.getInvY()))
+                .max(slab(group, offset + (2 + ray.getSignZ() * 3) * WIDTH, origin.getZ(), ray.getInvZ()))
+                .max(tMin);
+        DoubleVector far = slab(group, offset + (3 - ray.getSignX() * 3) * WIDTH, origin.getX(), ray.getInvX())
+                .min(slab(group, offset + (4 - ray.getSignY() * 3) * WIDTH, origin.getY(), ray.getInvY()))
+                .min(slab(group, offset + (5 - ray.getSignZ() * 3) * WIDTH, origin.getZ(), ray.getInvZ()))
+                .min(tMax);
+
+        MISS.blend(near, near.compare(VectorOperators.LT, far)).intoArray(tNear, 0);
+
+        // The mask is built from the stored locations, since VectorMask.toLong is not an intrinsic in Java 17 and
+        // would allocate
+        int mask = 0;
+        for (int lane = 0; lane < WIDTH; lane++) {
+            if (tNear[lane] != POSITIVE_INFINITY) {
+                mask |= 1 << lane;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Get the locations on the ray where it crosses a plane of each box
+     *
+     * @param group  The array of groups
+     * @param offset The offset of the plane values within the array
+     * @param origin The origin of the ray along the axis of the plane
+     * @param inv    The inverse of the ray direction along the axis of the plane
+     * @return The locations on the ray
+     */
+    private static DoubleVector slab(final double[] group, final int offset, final double origin, final double inv) {
+        return DoubleVector.fromArray(SPECIES, group, offset).sub(origin).mul(inv);
+    }
+}
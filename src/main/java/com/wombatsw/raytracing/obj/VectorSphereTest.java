@@ -0,0 +1,97 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tests a range of spheres 4 at a time, with one vector lane for each sphere. Each lane keeps the closest hit it
+ * has seen, and the lanes are reduced once at the end of the range. The spheres left over after the last full
+ * vector are tested with scalar arithmetic. Only load this class after checking
+ * {@link WideBoxTest#isVectorAvailable()}, since it cannot be linked without the {@code jdk.incubator.vector} module
+ */
+final class VectorSphereTest extends WideSphereTest {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+    private static final int LANES = SPECIES.length();
+    private static final DoubleVector LANE_INDEX = DoubleVector.fromArray(SPECIES, new double[]{0, 1, 2, 3}, 0);
+    private static final DoubleVector NO_INDEX = DoubleVector.broadcast(SPECIES, Integer.MAX_VALUE);
+
+    @Override
+    BoxTestMode getMode() {
+        return BoxTestMode.VECTOR;
+    }
+
+    @Override
+    int intersect(final double[][] spheres, final int start, final int count, final Ray ray,
+                  final double tMin, final double tMax) {
+        int end = start + count;
+        int i = start;
+        double closest = tMax;
+        int closestIndex = -1;
+
+        if (count >= LANES) {
+            double[] centerX = spheres[0];
+            double[] centerY = spheres[1];
+            double[] centerZ = spheres[2];
+            double[] motionX = spheres[3];
+            double[] motionY = spheres[4];
+            double[] motionZ = spheres[5];
+            double[] radius = spheres[6];
+
+            Triplet origin = ray.origin();
+            Triplet dir = ray.direction();
+            double ox = origin.getX();
+            double oy = origin.getY();
+            double oz = origin.getZ();
+            double dx = dir.getX();
+            double dy = dir.getY();
+            double dz = dir.getZ();
+            double a = dir.lenSquared();
+            double time = ray.time();
+
+            // The arithmetic is the same as WideSphereTest.distance, in the same order, so that the locations match
+            DoubleVector nearest = DoubleVector.broadcast(SPECIES, tMax);
+            DoubleVector nearestIndex = DoubleVector.broadcast(SPECIES, -1);
+            for (; i <= end - LANES; i += LANES) {
+                DoubleVector ocx = DoubleVector.fromArray(SPECIES, centerX, i).sub(ox);
+                DoubleVector ocy = DoubleVector.fromArray(SPECIES, centerY, i).sub(oy);
+                DoubleVector ocz = DoubleVector.fromArray(SPECIES, centerZ, i).sub(oz);
+                if (motionX != null) {
+                    ocx = ocx.add(DoubleVector.fromArray(SPECIES, motionX, i).mul(time));
+                    ocy = ocy.add(DoubleVector.fromArray(SPECIES, motionY, i).mul(time));
+                    ocz = ocz.add(DoubleVector.fromArray(SPECIES, motionZ, i).mul(time));
+                }
+
+                DoubleVector r = DoubleVector.fromArray(SPECIES, radius, i);
+                DoubleVector h = ocx.mul(dx).add(ocy.mul(dy)).add(ocz.mul(dz));
+                DoubleVector c = ocx.mul(ocx).add(ocy.mul(ocy)).add(ocz.mul(ocz)).sub(r.mul(r));
+
+                DoubleVector sqrtD = h.mul(h).sub(c.mul(a)).sqrt();
+                DoubleVector near = h.sub(sqrtD).div(a);
+                DoubleVector t = h.add(sqrtD).div(a).blend(near, near.compare(VectorOperators.GT, tMin));
+
+                VectorMask<Double> hit = t.compare(VectorOperators.GT, tMin)
+                        .and(t.compare(VectorOperators.LT, nearest));
+                nearest = nearest.blend(t, hit);
+                nearestIndex = nearestIndex.blend(LANE_INDEX.add(i), hit);
+            }
+
+            closest = nearest.reduceLanes(VectorOperators.MIN);
+            if (closest < tMax) {
+                closestIndex = (int) NO_INDEX.blend(nearestIndex, nearest.compare(VectorOperators.EQ, closest))
+                        .reduceLanes(VectorOperators.MIN);
+            }
+        }
+
+        for (; i < end; i++) {
+            double t = distance(spheres, i, ray, tMin);
+            boolean hit = t > tMin & t < closest;
+            closest = hit ? t : closest;
+            closestIndex = hit ? i : closestIndex;
+        }
+        return closestIndex;
+    }
+}
@@ -0,0 +1,127 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Ray;
+
+/**
+ * Tests a ray against {@value #WIDTH} bounding boxes at once, such as the children of a node in a 4-ary hierarchy.
+ * The boxes of a group are stored as a structure of arrays, so each plane of the slab test is a contiguous run of
+ * {@value #WIDTH} values:
+ * <pre>
+ * minX[4], minY[4], minZ[4], maxX[4], maxY[4], maxZ[4]
+ * </pre>
+ * The result is the same as {@link BoundingBox#intersect(double[], int, Ray, double, double)} for each box.
+ * <p>
+ * The implementation is chosen at runtime. {@link #getDefault()} uses the Vector API when the
+ * {@code jdk.incubator.vector} module is enabled and the hardware has {@value #WIDTH} double lanes, unless the
+ * {@value #MODE_PROPERTY} system property selects a mode.
+ */
+public abstract class WideBoxTest {
+    /**
+     * The number of boxes in a group
+     */
+    public static final int WIDTH = 4;
+
+    /**
+     * The number of values used to store a group of boxes
+     */
+    public static final int STRIDE = WIDTH * 6;
+
+    /**
+     * The system property that selects the {@link BoxTestMode} of {@link #getDefault()}, ignoring case
+     */
+    public static final String MODE_PROPERTY = "raytracing.boxTest";
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final WideBoxTest DEFAULT = create(BoxTestMode.fromProperty(MODE_PROPERTY, getPreferredMode()));
+
+    WideBoxTest() {
+    }
+
+    /**
+     * @return The box test selected for this JVM
+     */
+    public static WideBoxTest getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a box test. The Vector API can only be used when its module is enabled, otherwise the scalar test is
+     * used instead
+     *
+     * @param mode The requested mode
+     * @return The box test
+     */
+    public static WideBoxTest create(final BoxTestMode mode) {
+        if (mode == BoxTestMode.VECTOR && isVectorAvailable()) {
+            return new VectorBoxTest();
+        }
+        return new ScalarBoxTest();
+    }
+
+    /**
+     * @return Whether the {@code jdk.incubator.vector} module is enabled
+     */
+    public static boolean isVectorAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Store a box in a group
+     *
+     * @param group       The array of groups
+     * @param groupOffset The offset of the group within the array
+     * @param lane        The position of the box in the group
+     * @param bounds      The array of bounds, stored as (minX, minY, minZ, maxX, maxY, maxZ)
+     * @param offset      The offset of the box within the bounds array
+     */
+    public static void setBox(final double[] group, final int groupOffset, final int lane,
+                              final double[] bounds, final int offset) {
+        for (int plane = 0; plane < 6; plane++) {
+            group[groupOffset + plane * WIDTH + lane] = bounds[offset + plane];
+        }
+    }
+
+    /**
+     * Store an empty box in a group, which is never hit
+     *
+     * @param group       The array of groups
+     * @param groupOffset The offset of the group within the array
+     * @param lane        The position of the box in the group
+     */
+    public static void setEmpty(final double[] group, final int groupOffset, final int lane) {
+        for (int axis = 0; axis < 3; axis++) {
+            group[groupOffset + axis * WIDTH + lane] = Double.POSITIVE_INFINITY;
+            group[groupOffset + (axis + 3) * WIDTH + lane] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * @return The mode of this box test
+     */
+    public abstract BoxTestMode getMode();
+
+    /**
+     * Intersect a group of boxes with the given ray and within the given range
+     *
+     * @param group  The array of groups
+     * @param offset The offset of the group within the array
+     * @param ray    The ray
+     * @param tMin   The start of the range of points on the ray to consider
+     * @param tMax   The end of the range of points on the ray to consider
+     * @param tNear  Receives the location on the ray where it enters each box, clamped to tMin, or
+     *               {@link Double#POSITIVE_INFINITY} if there is no intersection
+     * @return A mask with bit {@code i} set if box {@code i} is hit
+     */
+    public abstract int intersect(final double[] group, final int offset, final Ray ray,
+                                  final double tMin, final double tMax, final double[] tNear);
+
+    /**
+     * @return The mode to use when none is selected: {@link BoxTestMode#VECTOR} if the module is enabled and the
+     * hardware supports it, otherwise {@link BoxTestMode#SCALAR}
+     */
+    static BoxTestMode getPreferredMode() {
+        return isVectorAvailable() && VectorBoxTest.isSupported() ? BoxTestMode.VECTOR : BoxTestMode.SCALAR;
+    }
+}
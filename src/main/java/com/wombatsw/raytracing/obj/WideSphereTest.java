@@ -0,0 +1,106 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+
+/**
+ * Finds the closest hit of a ray with a range of spheres stored as a structure of arrays, such as a leaf of a
+ * {@link SphereSet}. The spheres are given as the arrays of {@link SphereSet#getArrays}:
+ * <pre>
+ * centerX[], centerY[], centerZ[], motionX[], motionY[], motionZ[], radius[]
+ * </pre>
+ * Every sphere of the range is tested, and the closest hit is selected without branching on the result of each
+ * test. The hits are the same as for {@link Sphere}.
+ * <p>
+ * The implementation is chosen at runtime in the same way as {@link WideBoxTest}. {@link #getDefault()} uses the
+ * Vector API when the {@code jdk.incubator.vector} module is enabled and the hardware has 4 double lanes, unless
+ * the {@value #MODE_PROPERTY} system property selects a mode.
+ */
+abstract class WideSphereTest {
+    /**
+     * The system property that selects the {@link BoxTestMode} of {@link #getDefault()}, ignoring case
+     */
+    static final String MODE_PROPERTY = "raytracing.sphereTest";
+
+    private static final WideSphereTest DEFAULT =
+            create(BoxTestMode.fromProperty(MODE_PROPERTY, WideBoxTest.getPreferredMode()));
+
+    WideSphereTest() {
+    }
+
+    /**
+     * @return The sphere test selected for this JVM
+     */
+    static WideSphereTest getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a sphere test. The Vector API can only be used when its module is enabled, otherwise the scalar test
+     * is used instead
+     *
+     * @param mode The requested mode
+     * @return The sphere test
+     */
+    static WideSphereTest create(final BoxTestMode mode) {
+        if (mode == BoxTestMode.VECTOR && WideBoxTest.isVectorAvailable()) {
+            return new VectorSphereTest();
+        }
+        return new ScalarSphereTest();
+    }
+
+    /**
+     * Get the location on a ray where it hits a sphere. This is the arithmetic of each lane of the sphere tests
+     *
+     * @param spheres The sphere arrays
+     * @param i       The index of the sphere
+     * @param ray     The ray
+     * @param tMin    The start of the range of points on the ray to consider
+     * @return The closest location on the ray after {@code tMin} that is on the sphere, a location before
+     * {@code tMin} if there is none, or {@code NaN} if the ray misses the sphere
+     */
+    static double distance(final double[][] spheres, final int i, final Ray ray, final double tMin) {
+        Triplet origin = ray.origin();
+        Triplet dir = ray.direction();
+        double ocx = spheres[0][i] - origin.getX();
+        double ocy = spheres[1][i] - origin.getY();
+        double ocz = spheres[2][i] - origin.getZ();
+        if (spheres[3] != null) {
+            double time = ray.time();
+            ocx += time * spheres[3][i];
+            ocy += time * spheres[4][i];
+            ocz += time * spheres[5][i];
+        }
+
+        double radius = spheres[6][i];
+        double a = dir.lenSquared();
+        double h = dir.getX() * ocx + dir.getY() * ocy + dir.getZ() * ocz;
+        double c = ocx * ocx + ocy * ocy + ocz * ocz - radius * radius;
+
+        // The root of a negative discriminant is NaN, which fails every comparison
+        double sqrtD = Math.sqrt(h * h - a * c);
+        double near = (h - sqrtD) / a;
+        return near > tMin ? near : (h + sqrtD) / a;
+    }
+
+    /**
+     * @return The mode of this sphere test
+     */
+    abstract BoxTestMode getMode();
+
+    /**
+     * Find the closest sphere hit by a ray within the given range. When several spheres are hit at the same
+     * location, the one with the lowest index is returned
+     *
+     * @param spheres The sphere arrays
+     * @param start   The index of the first sphere
+     * @param count   The number of spheres
+     * @param ray     The ray
+     * @param tMin    The start of the range of points on the ray to consider
+     * @param tMax    The end of the range of points on the ray to consider
+     * @return The index of the closest sphere hit, or -1 if there is none. The location of the hit is given by
+     * {@link #distance}
+     */
+    abstract int intersect(final double[][] spheres, final int start, final int count, final Ray ray,
+                           final double tMin, final double tMax);
+}
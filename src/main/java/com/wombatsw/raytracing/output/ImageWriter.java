@@ -1,5 +1,8 @@
 package com.wombatsw.raytracing.output;
 
+import com.wombatsw.raytracing.engine.HDRImage;
+import com.wombatsw.raytracing.engine.ToneMapper;
+
 import java.io.File;
 import java.io.IOException;
 
@@ -8,4 +11,15 @@ import java.io.IOException;
  */
 public interface ImageWriter {
     void write(File name, int width, int height, byte[] data) throws IOException;
+
+    /**
+     * Write a high dynamic range image. Formats with 8 bits per channel convert it with a default {@link ToneMapper}
+     *
+     * @param name  The file
+     * @param image The image
+     * @throws IOException if the file cannot be written
+     */
+    default void write(File name, HDRImage image) throws IOException {
+        write(name, image.getWidth(), image.getHeight(), new ToneMapper().toBytes(image));
+    }
 }
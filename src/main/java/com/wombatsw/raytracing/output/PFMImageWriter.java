@@ -0,0 +1,62 @@
+package com.wombatsw.raytracing.output;
+
+import com.wombatsw.raytracing.engine.HDRImage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Image writer for the Portable Float Map (PF) color format, which keeps the linear colors of a {@link HDRImage}
+ * without clamping. The rows are stored from the bottom of the image to the top, with little-endian floats.
+ */
+public class PFMImageWriter implements ImageWriter {
+    /**
+     * Write an 8-bit image, undoing the gamma correction so the colors are linear
+     */
+    @Override
+    public void write(File name, int width, int height, byte[] data) throws IOException {
+        float[] row = new float[width * 3];
+        try (OutputStream out = open(name, width, height)) {
+            for (int y = height - 1; y >= 0; y--) {
+                for (int i = 0; i < row.length; i++) {
+                    float value = (data[y * row.length + i] & 0xff) / 255f;
+                    row[i] = value * value;
+                }
+                writeRow(out, row);
+            }
+        }
+    }
+
+    @Override
+    public void write(File name, HDRImage image) throws IOException {
+        float[] row = new float[image.getWidth() * 3];
+        try (OutputStream out = open(name, image.getWidth(), image.getHeight())) {
+            for (int y = image.getHeight() - 1; y >= 0; y--) {
+                image.getRow(y, row);
+                writeRow(out, row);
+            }
+        }
+    }
+
+    /**
+     * Open the file and write the header. A negative scale marks the data as little-endian
+     */
+    private static OutputStream open(final File name, final int width, final int height) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(name));
+        String header = String.format("PF\n%d %d\n-1.0\n", width, height);
+        out.write(header.getBytes(StandardCharsets.UTF_8));
+        return out;
+    }
+
+    private static void writeRow(final OutputStream out, final float[] row) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(row.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(row);
+        out.write(buffer.array());
+    }
+}
@@ -0,0 +1,93 @@
+package com.wombatsw.raytracing.scene;
+
+import com.wombatsw.raytracing.scene.dto.SceneDTO;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import static com.wombatsw.raytracing.scene.CompiledSceneWriter.MAGIC;
+import static com.wombatsw.raytracing.scene.CompiledSceneWriter.TRAILER_SIZE;
+import static com.wombatsw.raytracing.scene.CompiledSceneWriter.VERSION;
+
+/**
+ * Read compiled scene files written by {@link CompiledSceneWriter}. Only the YAML scene description is parsed. The
+ * sections of the meshes, sets of spheres and hierarchies are memory mapped and their arrays are copied out in bulk,
+ * so the world is ready without building any hierarchy.
+ */
+public class CompiledSceneReader {
+    /**
+     * Read a compiled scene file
+     *
+     * @param file The file
+     * @return The scene, whose world is a single {@link com.wombatsw.raytracing.obj.LinearBVH}
+     * @throws IllegalArgumentException if the file cannot be read or is not a compiled scene file
+     */
+    public Scene read(final File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 2 * Integer.BYTES + TRAILER_SIZE) {
+                throw new IllegalArgumentException("Not a compiled scene file: " + file);
+            }
+            ByteBuffer start = read(channel, 0, 2 * Integer.BYTES);
+            if (start.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a compiled scene file: " + file);
+            }
+            int version = start.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported compiled scene version " + version + ": " + file);
+            }
+
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long headerOffset = trailer.getLong();
+            int headerLength = trailer.getInt();
+            int sectionCount = trailer.getInt();
+            long tableOffset = headerOffset + headerLength;
+            if (trailer.getInt() != MAGIC || headerOffset < 0 || headerLength < 0 || sectionCount < 0
+                    || tableOffset + (long) sectionCount * 2 * Long.BYTES != size - TRAILER_SIZE) {
+                throw new IllegalArgumentException("Corrupt compiled scene file: " + file);
+            }
+
+            ByteBuffer table = read(channel, tableOffset, sectionCount * 2 * Long.BYTES);
+            long[] offsets = new long[sectionCount];
+            long[] lengths = new long[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                offsets[i] = table.getLong();
+                lengths[i] = table.getLong();
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > headerOffset) {
+                    throw new IllegalArgumentException("Corrupt compiled scene file: " + file);
+                }
+            }
+
+            String header = StandardCharsets.UTF_8.decode(read(channel, headerOffset, headerLength)).toString();
+            SceneDTO sceneDTO = new SceneReader().readDTO(new StringReader(header));
+            return sceneDTO.toScene(new SceneSections(channel, offsets, lengths));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read compiled scene file " + file, e);
+        }
+    }
+
+    /**
+     * Read part of a file
+     *
+     * @param channel The file
+     * @param offset  The location of the part
+     * @param length  The length of the part
+     * @return The content, ready to be read
+     * @throws IOException if the file cannot be read
+     */
+    private static ByteBuffer read(final FileChannel channel, final long offset, final int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        return buffer.flip();
+    }
+}
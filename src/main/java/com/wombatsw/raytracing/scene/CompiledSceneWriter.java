@@ -0,0 +1,91 @@
+package com.wombatsw.raytracing.scene;
+
+import com.wombatsw.raytracing.obj.BVHBuilder;
+import com.wombatsw.raytracing.obj.LinearBVH;
+import com.wombatsw.raytracing.obj.SplitMethod;
+import com.wombatsw.raytracing.scene.dto.SceneDTO;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Write compiled scene files. The hierarchy of the world is built when the scene is written, and the meshes, sets
+ * of spheres and hierarchies are stored in binary sections, see {@link SceneSections}, so reading the scene with
+ * {@link CompiledSceneReader} does not parse or build them again.
+ * <p>
+ * The file starts with a magic number and a version, followed by the sections. The YAML scene description follows
+ * the sections, with the camera, materials, textures and the other objects as in a scene file, and the compiled
+ * objects referring to their sections by index. Then come the location and length of each section, and a trailer
+ * with the location and length of the description, the number of sections and the magic number again.
+ */
+@Getter
+@Setter
+public class CompiledSceneWriter {
+    /**
+     * The extension of compiled scene files
+     */
+    public static final String EXTENSION = ".rtsc";
+
+    /**
+     * The magic number, "RTSC"
+     */
+    static final int MAGIC = 0x52545343;
+
+    static final int VERSION = 1;
+
+    /**
+     * The size of the trailer at the end of the file
+     */
+    static final int TRAILER_SIZE = Long.BYTES + 3 * Integer.BYTES;
+
+    /**
+     * The builder for the hierarchy of the world
+     */
+    private BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+
+    /**
+     * Write a compiled scene file
+     *
+     * @param file  The file
+     * @param scene The scene
+     * @throws IllegalArgumentException if the file cannot be written, or the scene has objects that cannot be saved
+     */
+    public void write(final File file, final Scene scene) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            SceneSections sections = new SceneSections(channel, out);
+            LinearBVH world = new LinearBVH(scene.getWorld().getList(), builder);
+            StringWriter description = new StringWriter();
+            new SceneWriter().write(description, new SceneDTO(scene.getCamera(), world, sections));
+            byte[] header = description.toString().getBytes(StandardCharsets.UTF_8);
+
+            out.flush();
+            long headerOffset = channel.position();
+            out.write(header);
+            for (int i = 0; i < sections.size(); i++) {
+                out.writeLong(sections.getOffset(i));
+                out.writeLong(sections.getLength(i));
+            }
+            out.writeLong(headerOffset);
+            out.writeInt(header.length);
+            out.writeInt(sections.size());
+            out.writeInt(MAGIC);
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot write compiled scene file " + file, e);
+        }
+    }
+}
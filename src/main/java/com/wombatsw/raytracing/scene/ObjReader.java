@@ -0,0 +1,545 @@
+package com.wombatsw.raytracing.scene;
+
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.obj.TriangleMesh;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read Wavefront OBJ files into a {@link TriangleMesh}. Only the vertex positions, texture coordinates, normals and
+ * faces are read, polygons are split into triangle fans, and all other statements are ignored.
+ * <p>
+ * The file is memory mapped and split into chunks at line boundaries, which are parsed in parallel. Numbers are
+ * parsed directly from the mapped bytes into growable primitive arrays, so parsing does not allocate per line.
+ * Negative (relative) indices are resolved against the vertex counts of the earlier chunks when the chunks are
+ * merged. Faces in OBJ files index positions, texture coordinates and normals separately, so the distinct
+ * combinations are then merged into the single index used by the mesh.
+ */
+@Getter
+@Setter
+public class ObjReader {
+    /**
+     * Marks a missing texture coordinate or normal index in a face corner
+     */
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    /**
+     * Offset which makes the stored relative indices negative
+     */
+    private static final int RELATIVE = 1 << 30;
+
+    /**
+     * The maximum number of significant digits kept while parsing a number
+     */
+    private static final int MAX_DIGITS = 18;
+
+    private static final double[] POWERS_OF_TEN = new double[309];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * The minimum size of a chunk which is parsed on its own thread
+     */
+    private long chunkSize = 1 << 24;
+
+    /**
+     * Read an OBJ file
+     *
+     * @param filename The OBJ file
+     * @param material The material of the mesh
+     * @return The mesh
+     */
+    public TriangleMesh read(final String filename, final Material material) {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel);
+            chunks.parallelStream().forEach(Chunk::parse);
+            return merge(filename, chunks, material);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read OBJ file: " + filename, e);
+        }
+    }
+
+    /**
+     * Split a file into memory mapped chunks which end at line boundaries
+     *
+     * @param channel The file channel
+     * @return The chunks
+     * @throws IOException If the file can't be read
+     */
+    private List<Chunk> split(final FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunkCount = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L,
+                size / Math.max(1, chunkSize)));
+        // Each chunk must fit in a single mapping
+        chunkCount = (int) Math.max(chunkCount, size / (Integer.MAX_VALUE / 2) + 1);
+
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer scan = ByteBuffer.allocate(256);
+        long start = 0;
+        for (int i = 1; i <= chunkCount && start < size; i++) {
+            long end = i == chunkCount ? size : nextLine(channel, scan, Math.max(start, size * i / chunkCount));
+            if (end > start) {
+                chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+            }
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Find the start of the next line
+     *
+     * @param channel  The file channel
+     * @param scan     A buffer used for scanning the file
+     * @param position The position to start searching from
+     * @return The position after the next newline, or the file size if there is none
+     * @throws IOException If the file can't be read
+     */
+    private static long nextLine(final FileChannel channel, final ByteBuffer scan, final long position)
+            throws IOException {
+        long pos = position;
+        while (true) {
+            scan.clear();
+            int read = channel.read(scan, pos);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+    }
+
+    /**
+     * Merge the parsed chunks into a mesh
+     *
+     * @param filename The OBJ file
+     * @param chunks   The parsed chunks
+     * @param material The material of the mesh
+     * @return The mesh
+     */
+    private static TriangleMesh merge(final String filename, final List<Chunk> chunks, final Material material) {
+        FloatArray positions = new FloatArray();
+        FloatArray uvs = new FloatArray();
+        FloatArray normals = new FloatArray();
+        IntArray corners = new IntArray();
+
+        for (Chunk chunk : chunks) {
+            int positionOffset = positions.size / 3;
+            int uvOffset = uvs.size / 2;
+            int normalOffset = normals.size / 3;
+
+            positions.addAll(chunk.positions);
+            uvs.addAll(chunk.uvs);
+            normals.addAll(chunk.normals);
+
+            int[] values = chunk.corners.values;
+            for (int i = 0; i < chunk.corners.size; i += 3) {
+                corners.add(resolve(values[i], positionOffset));
+                corners.add(resolve(values[i + 1], uvOffset));
+                corners.add(resolve(values[i + 2], normalOffset));
+            }
+        }
+
+        if (corners.size == 0) {
+            throw new IllegalArgumentException("OBJ file has no faces: " + filename);
+        }
+
+        return index(filename, positions, uvs, normals, corners, material);
+    }
+
+    /**
+     * Resolve an index stored by a chunk into an index into the merged arrays
+     *
+     * @param value  The stored index, which is either absolute, an index relative to the start of the chunk minus
+     *               {@link #RELATIVE}, or {@link #MISSING}
+     * @param offset The number of values of the same type in the earlier chunks
+     * @return The resolved index
+     */
+    private static int resolve(final int value, final int offset) {
+        return value >= 0 || value == MISSING ? value : offset + value + RELATIVE;
+    }
+
+    /**
+     * Create the mesh vertices from the distinct combinations of position, texture coordinate and normal indices
+     * used by the face corners. Texture coordinates and normals are only kept if every corner has them.
+     *
+     * @param filename  The OBJ file
+     * @param positions The positions
+     * @param uvs       The texture coordinates
+     * @param normals   The normals
+     * @param corners   The position, texture coordinate and normal index of each triangle corner
+     * @param material  The material of the mesh
+     * @return The mesh
+     */
+    private static TriangleMesh index(final String filename, final FloatArray positions, final FloatArray uvs,
+                                      final FloatArray normals, final IntArray corners, final Material material) {
+        int cornerCount = corners.size / 3;
+        int positionCount = positions.size / 3;
+        int uvCount = uvs.size / 2;
+        int normalCount = normals.size / 3;
+
+        boolean hasUvs = true;
+        boolean hasNormals = true;
+        int[] c = corners.values;
+        for (int i = 0; i < corners.size; i += 3) {
+            checkIndex(c[i], positionCount, "position");
+            if (c[i + 1] == MISSING) {
+                hasUvs = false;
+            } else {
+                checkIndex(c[i + 1], uvCount, "texture coordinate");
+            }
+            if (c[i + 2] == MISSING) {
+                hasNormals = false;
+            } else {
+                checkIndex(c[i + 2], normalCount, "normal");
+            }
+        }
+
+        int[] indices = new int[cornerCount];
+        if (!hasUvs && !hasNormals) {
+            for (int i = 0; i < cornerCount; i++) {
+                indices[i] = c[i * 3];
+            }
+            return new TriangleMesh(filename, positions.toArray(), null, null, indices, material);
+        }
+
+        // Open addressing hash table from corner attribute indices to vertex index
+        int capacity = Integer.highestOneBit(Math.max(cornerCount, 8) * 2 - 1) << 1;
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        int[] vertexCorners = new int[cornerCount];
+        int vertexCount = 0;
+
+        for (int i = 0; i < cornerCount; i++) {
+            int p = c[i * 3];
+            int t = hasUvs ? c[i * 3 + 1] : 0;
+            int n = hasNormals ? c[i * 3 + 2] : 0;
+
+            int slot = hash(p, t, n) & (capacity - 1);
+            while (true) {
+                int vertex = table[slot];
+                if (vertex < 0) {
+                    table[slot] = vertexCount;
+                    vertexCorners[vertexCount] = i;
+                    indices[i] = vertexCount++;
+                    break;
+                }
+                int j = vertexCorners[vertex] * 3;
+                if (c[j] == p && (!hasUvs || c[j + 1] == t) && (!hasNormals || c[j + 2] == n)) {
+                    indices[i] = vertex;
+                    break;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+        }
+
+        float[] vertexPositions = new float[vertexCount * 3];
+        float[] vertexUvs = hasUvs ? new float[vertexCount * 2] : null;
+        float[] vertexNormals = hasNormals ? new float[vertexCount * 3] : null;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int j = vertexCorners[vertex] * 3;
+            System.arraycopy(positions.values, c[j] * 3, vertexPositions, vertex * 3, 3);
+            if (hasUvs) {
+                System.arraycopy(uvs.values, c[j + 1] * 2, vertexUvs, vertex * 2, 2);
+            }
+            if (hasNormals) {
+                System.arraycopy(normals.values, c[j + 2] * 3, vertexNormals, vertex * 3, 3);
+            }
+        }
+
+        return new TriangleMesh(filename, vertexPositions, vertexNormals, vertexUvs, indices, material);
+    }
+
+    private static void checkIndex(final int index, final int count, final String type) {
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("OBJ face references a missing " + type + ": " + (index + 1));
+        }
+    }
+
+    private static int hash(final int p, final int t, final int n) {
+        int h = p * 0x9E3779B1 + t * 0x85EBCA77 + n * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A memory mapped section of the file and the values parsed from it
+     */
+    private static final class Chunk {
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private int pos;
+
+        private final FloatArray positions = new FloatArray();
+        private final FloatArray uvs = new FloatArray();
+        private final FloatArray normals = new FloatArray();
+        /**
+         * The position, texture coordinate and normal index of each triangle corner. Absolute indices are stored
+         * 0-based, and relative indices as the index relative to the start of the chunk minus {@link #RELATIVE}.
+         */
+        private final IntArray corners = new IntArray();
+
+        Chunk(final MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        void parse() {
+            while (pos < limit) {
+                skipSpaces();
+                if (pos >= limit) {
+                    break;
+                }
+                byte b = buffer.get(pos);
+                byte next = pos + 1 < limit ? buffer.get(pos + 1) : (byte) '\n';
+                if (b == 'v' && isSpace(next)) {
+                    pos++;
+                    readFloats(positions, 3);
+                } else if (b == 'v' && next == 't') {
+                    pos += 2;
+                    readFloats(uvs, 2);
+                } else if (b == 'v' && next == 'n') {
+                    pos += 2;
+                    readFloats(normals, 3);
+                } else if (b == 'f' && isSpace(next)) {
+                    pos++;
+                    readFace();
+                }
+                skipLine();
+            }
+        }
+
+        /**
+         * Read a fixed number of values, ignoring any extra values such as the w coordinate. Missing values are 0,
+         * which is the default for the optional v texture coordinate.
+         */
+        private void readFloats(final FloatArray dest, final int count) {
+            for (int i = 0; i < count; i++) {
+                skipSpaces();
+                dest.add(pos < limit && !isEndOfLine(buffer.get(pos)) ? (float) readDouble() : 0);
+            }
+        }
+
+        /**
+         * Read a polygon and split it into a fan of triangles around the first corner
+         */
+        private void readFace() {
+            int first = corners.size;
+            int cornerCount = 0;
+            while (true) {
+                skipSpaces();
+                if (pos >= limit || isEndOfLine(buffer.get(pos))) {
+                    break;
+                }
+                if (cornerCount >= 3) {
+                    // Start a new triangle from the first and previous corners
+                    corners.addCopy(first);
+                    corners.addCopy(corners.size - 6);
+                }
+                readCorner();
+                cornerCount++;
+            }
+            if (cornerCount < 3) {
+                throw new IllegalArgumentException("OBJ face has fewer than 3 vertices");
+            }
+        }
+
+        /**
+         * Read a face corner in the form p, p/t, p//n or p/t/n
+         */
+        private void readCorner() {
+            int p = readIndex(positions.size / 3);
+            int t = MISSING;
+            int n = MISSING;
+            if (pos < limit && buffer.get(pos) == '/') {
+                pos++;
+                if (pos < limit && buffer.get(pos) != '/') {
+                    t = readIndex(uvs.size / 2);
+                }
+                if (pos < limit && buffer.get(pos) == '/') {
+                    pos++;
+                    n = readIndex(normals.size / 3);
+                }
+            }
+            corners.add(p);
+            corners.add(t);
+            corners.add(n);
+        }
+
+        /**
+         * Read a 1-based index, or a negative index relative to the current end of the list
+         *
+         * @param count The number of values read so far by this chunk
+         * @return The 0-based absolute index, or the index relative to the start of this chunk minus {@link #RELATIVE}
+         */
+        private int readIndex(final int count) {
+            boolean negative = pos < limit && buffer.get(pos) == '-';
+            if (negative) {
+                pos++;
+            }
+            int start = pos;
+            int value = 0;
+            while (pos < limit && isDigit(buffer.get(pos))) {
+                value = value * 10 + buffer.get(pos++) - '0';
+            }
+            if (pos == start || value == 0) {
+                throw new IllegalArgumentException("Invalid OBJ index");
+            }
+            return negative ? count - value - RELATIVE : value - 1;
+        }
+
+        /**
+         * Read a decimal number with an optional sign, fraction and exponent
+         *
+         * @return The number
+         */
+        private double readDouble() {
+            boolean negative = false;
+            if (pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+                negative = buffer.get(pos++) == '-';
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            int start = pos;
+            while (pos < limit && isDigit(buffer.get(pos))) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + buffer.get(pos) - '0';
+                    digits += mantissa > 0 ? 1 : 0;
+                } else {
+                    exponent++;
+                }
+                pos++;
+            }
+            if (pos < limit && buffer.get(pos) == '.') {
+                pos++;
+                while (pos < limit && isDigit(buffer.get(pos))) {
+                    if (digits < MAX_DIGITS) {
+                        mantissa = mantissa * 10 + buffer.get(pos) - '0';
+                        digits += mantissa > 0 ? 1 : 0;
+                        exponent--;
+                    }
+                    pos++;
+                }
+            }
+            if (pos == start || (pos == start + 1 && buffer.get(start) == '.')) {
+                throw new IllegalArgumentException("Invalid OBJ number");
+            }
+            if (pos < limit && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')) {
+                pos++;
+                boolean negativeExponent = false;
+                if (pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+                    negativeExponent = buffer.get(pos++) == '-';
+                }
+                int value = 0;
+                while (pos < limit && isDigit(buffer.get(pos))) {
+                    value = Math.min(value * 10 + buffer.get(pos++) - '0', 1000);
+                }
+                exponent += negativeExponent ? -value : value;
+            }
+
+            double result = mantissa;
+            if (exponent < 0) {
+                result = -exponent < POWERS_OF_TEN.length ? result / POWERS_OF_TEN[-exponent] : 0;
+            } else if (exponent > 0) {
+                result = exponent < POWERS_OF_TEN.length ? result * POWERS_OF_TEN[exponent]
+                        : Double.POSITIVE_INFINITY;
+            }
+            return negative ? -result : result;
+        }
+
+        private void skipSpaces() {
+            while (pos < limit && isSpace(buffer.get(pos))) {
+                pos++;
+            }
+        }
+
+        private void skipLine() {
+            while (pos < limit && buffer.get(pos++) != '\n') {
+                // Skip the rest of the line
+            }
+        }
+
+        private static boolean isSpace(final byte b) {
+            return b == ' ' || b == '\t';
+        }
+
+        private static boolean isEndOfLine(final byte b) {
+            return b == '\n' || b == '\r' || b == '#';
+        }
+
+        private static boolean isDigit(final byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+
+    /**
+     * A growable array of floats
+     */
+    private static final class FloatArray {
+        private float[] values = new float[1024];
+        private int size;
+
+        void add(final float value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(final FloatArray other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        float[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * A growable array of ints
+     */
+    private static final class IntArray {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Append a copy of the 3 values starting at the given index
+         */
+        void addCopy(final int index) {
+            for (int i = 0; i < 3; i++) {
+                add(values[index + i]);
+            }
+        }
+    }
+}
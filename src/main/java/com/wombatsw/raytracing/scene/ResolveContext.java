@@ -12,6 +12,7 @@ import com.wombatsw.raytracing.scene.ref.TextureRef;
 import com.wombatsw.raytracing.scene.ref.TripletRef;
 import com.wombatsw.raytracing.texture.Texture;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +35,12 @@ public class ResolveContext {
     private int textureIndex = 1;
     private int materialIndex = 1;
 
+    /**
+     * The binary sections of the compiled scene file being written or read, or {@code null} for a YAML scene file
+     */
+    @Setter
+    private SceneSections sections;
+
     /**
      * Register the provided maps of named {@link DTO}s. The maps may be null.
      *
@@ -55,6 +62,24 @@ public class ResolveContext {
         }
     }
 
+    /**
+     * @return Whether this is the context of a compiled scene file, see {@link CompiledSceneWriter}
+     */
+    public boolean hasSections() {
+        return sections != null;
+    }
+
+    /**
+     * @return The binary sections of the compiled scene file
+     * @throws IllegalArgumentException if this is not the context of a compiled scene file
+     */
+    public SceneSections getSections() {
+        if (sections == null) {
+            throw new IllegalArgumentException("Compiled objects can only be used in compiled scene files");
+        }
+        return sections;
+    }
+
     /**
      * Lookup a {@link DTO} by type and name
      *
@@ -32,6 +32,16 @@ public class SceneReader {
     }
 
     public Scene read(final Reader in) {
+        return readDTO(in).toScene();
+    }
+
+    /**
+     * Read the DTO of a scene without resolving it
+     *
+     * @param in The YAML scene description
+     * @return The {@link SceneDTO}
+     */
+    SceneDTO readDTO(final Reader in) {
         try {
             ObjectMapper mapper = new YAMLMapper();
 
@@ -39,8 +49,7 @@ public class SceneReader {
             module.addDeserializer(Triplet.class, new TripletDeserializer());
             mapper.registerModule(module);
 
-            SceneDTO sceneDTO = mapper.readValue(in, SceneDTO.class);
-            return sceneDTO.toScene();
+            return mapper.readValue(in, SceneDTO.class);
         } catch (IOException e) {
             throw new IllegalArgumentException("Cannot read scene file", e);
         }
@@ -0,0 +1,132 @@
+package com.wombatsw.raytracing.scene;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary sections of a compiled scene file, see {@link CompiledSceneWriter}. While a scene is written, each
+ * section is appended to the file and its location is recorded. While a scene is read, each section is memory
+ * mapped when it is requested, so only the sections of the objects in the scene are touched.
+ */
+public class SceneSections {
+    /**
+     * Writes the content of a section
+     */
+    @FunctionalInterface
+    public interface Content {
+        /**
+         * Write the content
+         *
+         * @param out The output
+         * @throws IOException if the output cannot be written
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private final FileChannel channel;
+
+    /**
+     * The output for the sections, or {@code null} if the sections are being read
+     */
+    private final DataOutputStream out;
+
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Long> lengths = new ArrayList<>();
+
+    /**
+     * Create the sections of a file that is being written
+     *
+     * @param channel The file, positioned after the sections that are already written
+     * @param out     The buffered output for the file
+     */
+    SceneSections(final FileChannel channel, final DataOutputStream out) {
+        this.channel = channel;
+        this.out = out;
+    }
+
+    /**
+     * Create the sections of a file that is being read
+     *
+     * @param channel The file
+     * @param offsets The location of each section in the file
+     * @param lengths The length of each section
+     */
+    SceneSections(final FileChannel channel, final long[] offsets, final long[] lengths) {
+        this.channel = channel;
+        this.out = null;
+        for (int i = 0; i < offsets.length; i++) {
+            this.offsets.add(offsets[i]);
+            this.lengths.add(lengths[i]);
+        }
+    }
+
+    /**
+     * @return The number of sections
+     */
+    public int size() {
+        return offsets.size();
+    }
+
+    /**
+     * Append a section to the file
+     *
+     * @param content Writes the content of the section
+     * @return The index of the section
+     * @throws IllegalStateException if the sections are being read
+     */
+    public int add(final Content content) {
+        if (out == null) {
+            throw new IllegalStateException("Sections can only be added while a scene is written");
+        }
+        try {
+            out.flush();
+            long offset = channel.position();
+            content.write(out);
+            out.flush();
+
+            offsets.add(offset);
+            lengths.add(channel.position() - offset);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot write compiled scene section", e);
+        }
+        return offsets.size() - 1;
+    }
+
+    /**
+     * Map a section of the file into memory
+     *
+     * @param index The index of the section
+     * @return The content of the section
+     * @throws IllegalArgumentException if there is no such section, or it cannot be mapped
+     */
+    public ByteBuffer get(final int index) {
+        if (index < 0 || index >= offsets.size()) {
+            throw new IllegalArgumentException("Unknown compiled scene section: " + index);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offsets.get(index), lengths.get(index));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot map compiled scene section " + index, e);
+        }
+    }
+
+    /**
+     * @param index The index of the section
+     * @return The location of the section in the file
+     */
+    long getOffset(final int index) {
+        return offsets.get(index);
+    }
+
+    /**
+     * @param index The index of the section
+     * @return The length of the section
+     */
+    long getLength(final int index) {
+        return lengths.get(index);
+    }
+}
@@ -31,6 +31,9 @@ public class SceneSelector {
             throw new RuntimeException(String.format("Scene %s not found", sceneName));
         }
 
+        if (sceneName.endsWith(CompiledSceneWriter.EXTENSION)) {
+            return new CompiledSceneReader().read(sceneFile);
+        }
         return new SceneReader().read(sceneFile);
     }
 }
@@ -30,6 +30,16 @@ public class SceneWriter {
     }
 
     public void write(final Writer out, final Scene scene) {
+        write(out, new SceneDTO(scene));
+    }
+
+    /**
+     * Write the DTO of a scene
+     *
+     * @param out      The output for the YAML scene description
+     * @param sceneDTO The {@link SceneDTO}
+     */
+    void write(final Writer out, final SceneDTO sceneDTO) {
         try {
             YAMLMapper mapper = new YAMLMapper();
             mapper.enable(YAMLGenerator.Feature.MINIMIZE_QUOTES);
@@ -41,7 +51,7 @@ public class SceneWriter {
             module.addSerializer(new RefSerializer());
             mapper.registerModule(module);
 
-            mapper.writer().writeValue(out, new SceneDTO(scene));
+            mapper.writer().writeValue(out, sceneDTO);
         } catch (IOException e) {
             throw new IllegalArgumentException("Cannot write scene file", e);
         }
@@ -6,10 +6,12 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.wombatsw.raytracing.engine.Camera;
 import com.wombatsw.raytracing.obj.AbstractObj;
 import com.wombatsw.raytracing.obj.BVHNode;
+import com.wombatsw.raytracing.obj.LinearBVH;
 import com.wombatsw.raytracing.obj.ObjectList;
 import com.wombatsw.raytracing.scene.ResolveContext;
 import com.wombatsw.raytracing.scene.Scene;
 import com.wombatsw.raytracing.scene.SceneFile;
+import com.wombatsw.raytracing.scene.SceneSections;
 import com.wombatsw.raytracing.scene.dto.material.MaterialDTO;
 import com.wombatsw.raytracing.scene.dto.obj.ObjectDTO;
 import com.wombatsw.raytracing.scene.dto.texture.TextureDTO;
@@ -58,6 +60,21 @@ public class SceneDTO extends DTO<Scene> {
         mapToDTO(this.objectDTOList, scene.getWorld());
     }
 
+    /**
+     * Create the DTO for a compiled scene file, see {@link com.wombatsw.raytracing.scene.CompiledSceneWriter}
+     *
+     * @param camera   The camera
+     * @param world    The world, with its hierarchy already built
+     * @param sections The binary sections of the file
+     */
+    public SceneDTO(final Camera camera, final AbstractObj world, final SceneSections sections) {
+        super(DTOType.SCENE);
+
+        this.camera = camera;
+        context.setSections(sections);
+        this.objectDTOList = List.of(ObjectDTO.toDTO(world, context));
+    }
+
     @JsonProperty
     public Map<String, ? extends TripletDTO> getTriplets() {
         return context.getTriplets();
@@ -83,6 +100,18 @@ public class SceneDTO extends DTO<Scene> {
         return resolve(context);
     }
 
+    /**
+     * Convert the DTO of a compiled scene file into a {@link Scene}
+     *
+     * @param sections The binary sections of the file
+     * @return The {@link Scene}
+     * @throws IllegalArgumentException if the scene be constructed due to missing data
+     */
+    public Scene toScene(final SceneSections sections) {
+        context.setSections(sections);
+        return resolve(context);
+    }
+
     @Override
     protected Scene createFromDTO(ResolveContext context) {
         List<AbstractObj> world = objectDTOList.stream()
@@ -103,6 +132,9 @@ public class SceneDTO extends DTO<Scene> {
             if (bvhNode.getLeft() != bvhNode.getRight()) {
                 mapToDTO(objectDTOList, bvhNode.getRight());
             }
+        } else if (object instanceof LinearBVH linearBVH) {
+            linearBVH.getPrimitives()
+                    .forEach(obj -> mapToDTO(objectDTOList, obj));
         } else {
             objectDTOList.add(ObjectDTO.toDTO(object, context));
         }
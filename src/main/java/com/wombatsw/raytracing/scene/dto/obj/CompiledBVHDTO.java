@@ -0,0 +1,48 @@
+package com.wombatsw.raytracing.scene.dto.obj;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.wombatsw.raytracing.obj.AbstractObj;
+import com.wombatsw.raytracing.obj.BinaryGeometry;
+import com.wombatsw.raytracing.obj.LinearBVH;
+import com.wombatsw.raytracing.scene.ResolveContext;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A DTO for {@link LinearBVH} objects in compiled scene files. The hierarchy is stored in a binary section, see
+ * {@link BinaryGeometry}, and the objects are listed in its leaf order
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@JsonPropertyOrder({"section", "objects"})
+public class CompiledBVHDTO extends ObjectDTO<LinearBVH> {
+    private final int section;
+    private final List<? extends ObjectDTO<?>> objects;
+
+    public CompiledBVHDTO(@JsonProperty("section") final int section,
+                          @JsonProperty("objects") final List<ObjectDTO<?>> objects) {
+        this.section = section;
+        this.objects = objects;
+    }
+
+    public CompiledBVHDTO(final LinearBVH bvh, final ResolveContext context) {
+        this.section = context.getSections().add(out -> BinaryGeometry.writeBVH(bvh, out));
+        this.objects = bvh.getPrimitives().stream()
+                .map(obj -> ObjectDTO.toDTO(obj, context))
+                .toList();
+    }
+
+    @Override
+    protected LinearBVH createFromDTO(final ResolveContext context) {
+        List<AbstractObj> objectList = objects.stream()
+                .map(obj -> (AbstractObj) obj.resolve(context))
+                .toList();
+
+        return BinaryGeometry.readBVH(context.getSections().get(section), objectList);
+    }
+}
@@ -0,0 +1,46 @@
+package com.wombatsw.raytracing.scene.dto.obj;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.wombatsw.raytracing.obj.BinaryGeometry;
+import com.wombatsw.raytracing.obj.TriangleMesh;
+import com.wombatsw.raytracing.scene.ResolveContext;
+import com.wombatsw.raytracing.scene.ref.MaterialRef;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A DTO for {@link TriangleMesh} objects in compiled scene files. The mesh and its hierarchy are stored in a binary
+ * section, see {@link BinaryGeometry}
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"section", "filename", "material"})
+public class CompiledMeshDTO extends ObjectDTO<TriangleMesh> {
+    private final int section;
+    private final String filename;
+    private final MaterialRef material;
+
+    public CompiledMeshDTO(@JsonProperty("section") final int section,
+                           @JsonProperty("filename") final String filename,
+                           @JsonProperty("material") final MaterialRef material) {
+        this.section = section;
+        this.filename = filename;
+        this.material = material;
+    }
+
+    public CompiledMeshDTO(final TriangleMesh mesh, final ResolveContext context) {
+        this(context.getSections().add(out -> BinaryGeometry.writeMesh(mesh, out)),
+                mesh.getFilename(),
+                context.getMaterialRef(mesh.getMaterial()));
+    }
+
+    @Override
+    protected TriangleMesh createFromDTO(final ResolveContext context) {
+        return BinaryGeometry.readMesh(context.getSections().get(section), filename, material.resolve(context));
+    }
+}
@@ -0,0 +1,54 @@
+package com.wombatsw.raytracing.scene.dto.obj;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.obj.BinaryGeometry;
+import com.wombatsw.raytracing.obj.SphereSet;
+import com.wombatsw.raytracing.scene.ResolveContext;
+import com.wombatsw.raytracing.scene.ref.MaterialRef;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A DTO for {@link SphereSet} objects in compiled scene files. The spheres and their hierarchy are stored in a
+ * binary section, see {@link BinaryGeometry}, and refer to their materials by their index in the list
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@JsonPropertyOrder({"section", "materials"})
+public class CompiledSphereSetDTO extends ObjectDTO<SphereSet> {
+    private final int section;
+    private final List<MaterialRef> materials;
+
+    public CompiledSphereSetDTO(@JsonProperty("section") final int section,
+                                @JsonProperty("materials") final List<MaterialRef> materials) {
+        this.section = section;
+        this.materials = materials;
+    }
+
+    public CompiledSphereSetDTO(final SphereSet sphereSet, final ResolveContext context) {
+        this(sphereSet, sphereSet.getMaterials(), context);
+    }
+
+    private CompiledSphereSetDTO(final SphereSet sphereSet, final List<Material> materials,
+                                 final ResolveContext context) {
+        this(context.getSections().add(out -> BinaryGeometry.writeSphereSet(sphereSet, materials, out)),
+                materials.stream()
+                        .map(context::getMaterialRef)
+                        .toList());
+    }
+
+    @Override
+    protected SphereSet createFromDTO(final ResolveContext context) {
+        List<Material> materialList = materials.stream()
+                .map(material -> material.resolve(context))
+                .toList();
+
+        return BinaryGeometry.readSphereSet(context.getSections().get(section), materialList);
+    }
+}
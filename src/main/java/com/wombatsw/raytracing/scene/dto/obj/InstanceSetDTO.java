@@ -0,0 +1,83 @@
+package com.wombatsw.raytracing.scene.dto.obj;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.wombatsw.raytracing.model.Affine;
+import com.wombatsw.raytracing.obj.AbstractObj;
+import com.wombatsw.raytracing.obj.InstanceSet;
+import com.wombatsw.raytracing.obj.Transform;
+import com.wombatsw.raytracing.scene.ResolveContext;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for {@link InstanceSet} objects. Each object is written once, and the instances refer to it by its index
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@JsonPropertyOrder({"objects", "instances"})
+public class InstanceSetDTO extends ObjectDTO<InstanceSet> {
+    private final List<? extends ObjectDTO<?>> objects;
+    private final List<Instance> instances;
+
+    public InstanceSetDTO(@JsonProperty("objects") final List<ObjectDTO<?>> objects,
+                          @JsonProperty("instances") final List<Instance> instances) {
+        this.objects = objects;
+        this.instances = instances;
+    }
+
+    public InstanceSetDTO(final InstanceSet instanceSet, final ResolveContext context) {
+        this.objects = instanceSet.getGeometries().stream()
+                .map(obj -> ObjectDTO.toDTO(obj, context))
+                .toList();
+
+        List<Affine> affines = instanceSet.getAffines();
+        this.instances = new ArrayList<>(affines.size());
+        for (int i = 0; i < affines.size(); i++) {
+            instances.add(new Instance(instanceSet.getGeometryIndex(i), affines.get(i).serialize()));
+        }
+    }
+
+    @Override
+    protected InstanceSet createFromDTO(final ResolveContext context) {
+        List<AbstractObj> objectList = objects.stream()
+                .map(obj -> (AbstractObj) obj.resolve(context))
+                .toList();
+
+        List<Transform> transforms = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            if (instance.getObject() < 0 || instance.getObject() >= objectList.size()) {
+                throw new IllegalArgumentException("Unknown instance object: " + instance.getObject());
+            }
+            transforms.add(new Transform(objectList.get(instance.getObject()),
+                    Affine.deserialize(instance.getMatrix())));
+        }
+        return new InstanceSet(transforms);
+    }
+
+    /**
+     * The placement of one instance
+     */
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @JsonPropertyOrder({"object", "matrix"})
+    public static class Instance {
+        /**
+         * The index of the object in the list of objects
+         */
+        private final int object;
+        private final String matrix;
+
+        public Instance(@JsonProperty("object") final int object,
+                        @JsonProperty("matrix") final String matrix) {
+            this.object = object;
+            this.matrix = matrix;
+        }
+    }
+}
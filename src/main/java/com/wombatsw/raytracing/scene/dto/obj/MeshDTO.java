@@ -0,0 +1,45 @@
+package com.wombatsw.raytracing.scene.dto.obj;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.wombatsw.raytracing.obj.TriangleMesh;
+import com.wombatsw.raytracing.scene.ObjReader;
+import com.wombatsw.raytracing.scene.ResolveContext;
+import com.wombatsw.raytracing.scene.ref.MaterialRef;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A DTO for {@link TriangleMesh} objects loaded from Wavefront OBJ files
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@JsonPropertyOrder({"filename", "material"})
+public class MeshDTO extends ObjectDTO<TriangleMesh> {
+    private final String filename;
+    private final MaterialRef material;
+
+    public MeshDTO(@JsonProperty("filename") final String filename,
+                   @JsonProperty("material") final MaterialRef material) {
+        this.filename = filename;
+        this.material = material;
+    }
+
+    public MeshDTO(final TriangleMesh mesh, final ResolveContext context) {
+        this(getFilename(mesh), context.getMaterialRef(mesh.getMaterial()));
+    }
+
+    @Override
+    protected TriangleMesh createFromDTO(final ResolveContext context) {
+        return new ObjReader().read(filename, material.resolve(context));
+    }
+
+    private static String getFilename(final TriangleMesh mesh) {
+        if (mesh.getFilename() == null) {
+            throw new IllegalArgumentException("Only meshes loaded from a file can be saved in a scene");
+        }
+        return mesh.getFilename();
+    }
+}
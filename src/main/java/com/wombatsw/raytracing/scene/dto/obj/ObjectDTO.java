@@ -3,10 +3,15 @@ package com.wombatsw.raytracing.scene.dto.obj;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.wombatsw.raytracing.obj.AbstractObj;
+import com.wombatsw.raytracing.obj.InstanceSet;
+import com.wombatsw.raytracing.obj.LinearBVH;
 import com.wombatsw.raytracing.obj.ObjectList;
 import com.wombatsw.raytracing.obj.Quad;
 import com.wombatsw.raytracing.obj.Sphere;
+import com.wombatsw.raytracing.obj.SphereSet;
 import com.wombatsw.raytracing.obj.Transform;
+import com.wombatsw.raytracing.obj.Triangle;
+import com.wombatsw.raytracing.obj.TriangleMesh;
 import com.wombatsw.raytracing.scene.ResolveContext;
 import com.wombatsw.raytracing.scene.dto.DTO;
 import com.wombatsw.raytracing.scene.dto.DTOType;
@@ -24,10 +29,17 @@ import lombok.ToString;
 )
 @JsonSubTypes({
         @JsonSubTypes.Type(value = BoxDTO.class, name = "Box"),
+        @JsonSubTypes.Type(value = CompiledBVHDTO.class, name = "CompiledBVH"),
+        @JsonSubTypes.Type(value = CompiledMeshDTO.class, name = "CompiledMesh"),
+        @JsonSubTypes.Type(value = CompiledSphereSetDTO.class, name = "CompiledSphereSet"),
+        @JsonSubTypes.Type(value = InstanceSetDTO.class, name = "InstanceSet"),
+        @JsonSubTypes.Type(value = MeshDTO.class, name = "Mesh"),
         @JsonSubTypes.Type(value = ObjectListDTO.class, name = "ObjectList"),
         @JsonSubTypes.Type(value = QuadDTO.class, name = "Quad"),
         @JsonSubTypes.Type(value = SphereDTO.class, name = "Sphere"),
-        @JsonSubTypes.Type(value = TransformDTO.class, name = "Transform")
+        @JsonSubTypes.Type(value = SphereSetDTO.class, name = "SphereSet"),
+        @JsonSubTypes.Type(value = TransformDTO.class, name = "Transform"),
+        @JsonSubTypes.Type(value = TriangleDTO.class, name = "Triangle")
 })
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
@@ -37,18 +49,42 @@ public abstract class ObjectDTO<T extends AbstractObj> extends DTO<T> {
     }
 
     public static ObjectDTO<? extends AbstractObj> toDTO(AbstractObj value, final ResolveContext context) {
+        if (context.hasSections()) {
+            // Compiled scene files keep the large arrays and the built hierarchies in binary sections
+            if (value instanceof TriangleMesh obj) {
+                return new CompiledMeshDTO(obj, context);
+            }
+            if (value instanceof SphereSet obj) {
+                return new CompiledSphereSetDTO(obj, context);
+            }
+            if (value instanceof LinearBVH obj) {
+                return new CompiledBVHDTO(obj, context);
+            }
+        }
+        if (value instanceof InstanceSet obj) {
+            return new InstanceSetDTO(obj, context);
+        }
         if (value instanceof ObjectList obj) {
             return new ObjectListDTO(obj, context);
         }
+        if (value instanceof TriangleMesh obj) {
+            return new MeshDTO(obj, context);
+        }
         if (value instanceof Quad obj) {
             return new QuadDTO(obj, context);
         }
         if (value instanceof Sphere obj) {
             return new SphereDTO(obj, context);
         }
+        if (value instanceof SphereSet obj) {
+            return new SphereSetDTO(obj, context);
+        }
         if (value instanceof Transform obj) {
             return new TransformDTO(obj, context);
         }
+        if (value instanceof Triangle obj) {
+            return new TriangleDTO(obj, context);
+        }
         // Note: Box does not have its own object, it is a collection of quads. If that changes, add it here
         throw new IllegalArgumentException("Unknown object type: " + value.getClass().getSimpleName());
     }
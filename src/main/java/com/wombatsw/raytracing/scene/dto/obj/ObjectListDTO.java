@@ -33,7 +33,7 @@ public class ObjectListDTO extends ObjectDTO<ObjectList> {
     @Override
     protected ObjectList createFromDTO(final ResolveContext context) {
         List<AbstractObj> objectList = new ArrayList<>(objects.size());
-        objects.forEach(obj -> obj.resolve(context));
+        objects.forEach(obj -> objectList.add((AbstractObj) obj.resolve(context)));
 
         return new ObjectList(objectList);
     }
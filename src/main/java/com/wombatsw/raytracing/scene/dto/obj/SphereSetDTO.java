@@ -0,0 +1,40 @@
+package com.wombatsw.raytracing.scene.dto.obj;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.wombatsw.raytracing.obj.Sphere;
+import com.wombatsw.raytracing.obj.SphereSet;
+import com.wombatsw.raytracing.scene.ResolveContext;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A DTO for {@link SphereSet} objects
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class SphereSetDTO extends ObjectDTO<SphereSet> {
+    private final List<SphereDTO> spheres;
+
+    public SphereSetDTO(@JsonProperty("spheres") final List<SphereDTO> spheres) {
+        this.spheres = spheres;
+    }
+
+    public SphereSetDTO(final SphereSet sphereSet, final ResolveContext context) {
+        this.spheres = sphereSet.getSpheres().stream()
+                .map(sphere -> new SphereDTO(sphere, context))
+                .toList();
+    }
+
+    @Override
+    protected SphereSet createFromDTO(final ResolveContext context) {
+        List<Sphere> sphereList = spheres.stream()
+                .map(sphere -> sphere.resolve(context))
+                .toList();
+
+        return new SphereSet(sphereList);
+    }
+}
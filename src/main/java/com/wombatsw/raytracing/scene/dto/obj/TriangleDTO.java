@@ -0,0 +1,51 @@
+package com.wombatsw.raytracing.scene.dto.obj;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.wombatsw.raytracing.obj.Triangle;
+import com.wombatsw.raytracing.scene.ResolveContext;
+import com.wombatsw.raytracing.scene.dto.TripletDTO;
+import com.wombatsw.raytracing.scene.ref.MaterialRef;
+import com.wombatsw.raytracing.scene.ref.TripletRef;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A DTO for {@link Triangle} objects
+ */
+@Getter
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@JsonPropertyOrder({"a", "b", "c", "material"})
+public class TriangleDTO extends ObjectDTO<Triangle> {
+    private final TripletRef a;
+    private final TripletRef b;
+    private final TripletRef c;
+    private final MaterialRef material;
+
+    public TriangleDTO(@JsonProperty("a") final TripletRef a,
+                       @JsonProperty("b") final TripletRef b,
+                       @JsonProperty("c") final TripletRef c,
+                       @JsonProperty("material") final MaterialRef material) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.material = material;
+    }
+
+    public TriangleDTO(final Triangle triangle, final ResolveContext context) {
+        this(new TripletRef(new TripletDTO(triangle.getA())),
+                new TripletRef(new TripletDTO(triangle.getB())),
+                new TripletRef(new TripletDTO(triangle.getC())),
+                context.getMaterialRef(triangle.getMaterial()));
+    }
+
+    @Override
+    protected Triangle createFromDTO(final ResolveContext context) {
+        return new Triangle(a.resolve(context),
+                b.resolve(context),
+                c.resolve(context),
+                material.resolve(context));
+    }
+}
@@ -11,12 +11,14 @@ import com.wombatsw.raytracing.model.Triplet;
 import com.wombatsw.raytracing.obj.AbstractObj;
 import com.wombatsw.raytracing.obj.ObjectList;
 import com.wombatsw.raytracing.obj.Sphere;
+import com.wombatsw.raytracing.obj.SphereSet;
 import com.wombatsw.raytracing.scene.Scene;
 import com.wombatsw.raytracing.texture.CheckerTexture;
 import com.wombatsw.raytracing.texture.SolidColor;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class RandomSpheresScene implements Scene {
@@ -46,6 +48,8 @@ public class RandomSpheresScene implements Scene {
         Material matGround = new Lambertian(checkered);
         list.add(new Sphere(new Triplet(0, -1000, 0), 1000, matGround));
 
+        // The small spheres are intersected as one set
+        List<Sphere> spheres = new ArrayList<>();
         for (int a = -11; a < 11; a++) {
             for (int b = -11; b < 11; b++) {
                 double selection = MathUtils.randomDouble();
@@ -60,29 +64,31 @@ public class RandomSpheresScene implements Scene {
                     Triplet albedo = Triplet.random().mul(Triplet.random());
                     Material material = new Lambertian(albedo);
                     Triplet center2 = new Triplet(0, MathUtils.randomDouble(0, 0.5), 0).add(center);
-                    list.add(new Sphere(center, center2, 0.2, material));
+                    spheres.add(new Sphere(center, center2, 0.2, material));
                 } else if (selection < 0.95) {
                     // metal
                     Triplet albedo = Triplet.random(0.5, 1);
                     double fuzz = MathUtils.randomDouble(0, 0.5);
                     Material material = new Metal(albedo, fuzz);
-                    list.add(new Sphere(center, 0.2, material));
+                    spheres.add(new Sphere(center, 0.2, material));
                 } else {
                     // glass
                     Material material = new Dielectric(1.5);
-                    list.add(new Sphere(center, 0.2, material));
+                    spheres.add(new Sphere(center, 0.2, material));
                 }
             }
         }
 
         Material material1 = new Dielectric(1.5);
-        list.add(new Sphere(new Triplet(0, 1, 0), 1.0, material1));
+        spheres.add(new Sphere(new Triplet(0, 1, 0), 1.0, material1));
 
         Material material2 = new Lambertian(new Triplet(0.4, 0.2, 0.1));
-        list.add(new Sphere(new Triplet(-4, 1, 0), 1.0, material2));
+        spheres.add(new Sphere(new Triplet(-4, 1, 0), 1.0, material2));
 
         Material material3 = new Metal(new Triplet(0.7, 0.6, 0.5), 0.0);
-        list.add(new Sphere(new Triplet(4, 1, 0), 1.0, material3));
+        spheres.add(new Sphere(new Triplet(4, 1, 0), 1.0, material3));
+
+        list.add(new SphereSet(spheres));
 
         return new ObjectList(list);
     }
@@ -25,4 +25,4 @@ class ColorUtilsTest {
         assertEquals((byte) (255/2), data[4]); // value is due to gamma correction
         assertEquals((byte) 0, data[5]);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HDRImageTest {
+    @Test
+    public void testMerge() {
+        HDRImage image = new HDRImage(2, 1);
+        image.setColor(0, 0, new Triplet(1, 2, 3), 1);
+        HDRImage other = new HDRImage(2, 1);
+        other.setColor(0, 0, new Triplet(5, 2, 0), 3);
+        other.setColor(1, 0, new Triplet(0.5, 0.5, 0.5), 2);
+
+        image.merge(other);
+        assertEquals(4, image.getSamples(0, 0));
+        assertEquals(new Triplet(4, 2, 0.75), image.getColor(0, 0, Triplet.newZeroVector()));
+        assertEquals(2, image.getSamples(1, 0));
+        assertEquals(new Triplet(0.5, 0.5, 0.5), image.getColor(1, 0, Triplet.newZeroVector()));
+        assertThrows(IllegalArgumentException.class, () -> image.merge(new HDRImage(1, 2)));
+    }
+
+    @Test
+    public void testGetRow() {
+        HDRImage image = new HDRImage(2, 2);
+        image.setColor(0, 1, new Triplet(1, 2, 3), 1);
+        image.setColor(1, 1, new Triplet(100, 0, -1), 1);
+
+        // Colors are kept unclamped
+        float[] row = new float[6];
+        image.getRow(1, row);
+        assertArrayEquals(new float[]{1, 2, 3, 100, 0, -1}, row);
+    }
+}
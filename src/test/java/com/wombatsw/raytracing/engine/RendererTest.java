@@ -0,0 +1,100 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.model.Triplet;
+import com.wombatsw.raytracing.obj.ObjectList;
+import com.wombatsw.raytracing.obj.Sphere;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RendererTest {
+    private static final ObjectList WORLD = new ObjectList(
+            new Sphere(new Triplet(0, 0, -10), 2, new Lambertian(new Triplet(0.5, 0.5, 0.5))));
+
+    @Test
+    public void testProgressivePasses() {
+        List<Integer> samples = new ArrayList<>();
+        HDRImage image = new Renderer().renderProgressive(WORLD, createCamera(), 3, 2,
+                (pass, samplesPerPixel, snapshot) -> {
+                    assertEquals(samples.size() + 1, pass);
+                    assertEquals(samplesPerPixel, snapshot.getSamples(5, 7));
+                    samples.add(samplesPerPixel);
+                });
+
+        assertEquals(List.of(2, 4, 6), samples);
+        assertEquals(16, image.getWidth());
+        assertEquals(16 * 16 * 3, new ToneMapper().toBytes(image).length);
+    }
+
+    @Test
+    public void testProgressiveCancel() {
+        Renderer renderer = new Renderer();
+        List<HDRImage> snapshots = new ArrayList<>();
+        HDRImage image = renderer.renderProgressive(WORLD, createCamera(), 10, 1,
+                (pass, samplesPerPixel, snapshot) -> {
+                    snapshots.add(snapshot);
+                    if (pass == 2) {
+                        renderer.cancel();
+                    }
+                });
+
+        assertEquals(2, snapshots.size());
+        ToneMapper toneMapper = new ToneMapper();
+        assertArrayEquals(toneMapper.toBytes(snapshots.get(1)), toneMapper.toBytes(image));
+    }
+
+    @Test
+    public void testAdaptiveSampling() {
+        Renderer renderer = new Renderer();
+        renderer.setAntialiasAdaptive(4, 32, 0.05);
+
+        // Only the background is visible, so every pixel converges after the minimum
+        Camera camera = createCamera();
+        camera.setCameraCenter(new Triplet(0, 0, -5));
+        renderer.render(WORLD, camera);
+        assertEquals(16 * 16 * 4, renderer.getSampleCount());
+
+        // The diffuse sphere is noisy, so those pixels get more samples
+        renderer.render(WORLD, createCamera());
+        assertTrue(renderer.getSampleCount() > 16 * 16 * 4);
+        assertTrue(renderer.getSampleCount() <= 16 * 16 * 32);
+    }
+
+    @Test
+    public void testAdaptiveConvergence() {
+        AdaptiveSampling adaptive = new AdaptiveSampling(4, 16, 0.1);
+        assertFalse(adaptive.isConverged(3, 1, 0));
+        assertTrue(adaptive.isConverged(4, 1, 0));
+        assertFalse(adaptive.isConverged(4, 0, 0));
+        assertFalse(adaptive.isConverged(4, 1, 1));
+        assertTrue(adaptive.isConverged(16, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveSampling(1, 16, 0.1));
+    }
+
+    @Test
+    public void testAccumulationBuffer() {
+        AccumulationBuffer buffer = new AccumulationBuffer(2, 1);
+        buffer.add(1, 0, new Triplet(1, 2, 3), 5, 2);
+        buffer.add(1, 0, new Triplet(0, 1, 1), 1, 2);
+
+        assertEquals(0, buffer.getSamples(0, 0));
+        assertEquals(4, buffer.getSamples(1, 0));
+        assertEquals(new Triplet(0.25, 0.75, 1), buffer.getColor(1, 0, Triplet.newZeroVector()));
+        assertEquals(new Triplet(0, 0, 0), buffer.getColor(0, 0, Triplet.newZeroVector()));
+
+        AdaptiveSampling adaptive = new AdaptiveSampling(2, 8, 0.1);
+        assertFalse(buffer.isConverged(0, 0, adaptive));
+        assertFalse(buffer.isConverged(1, 0, adaptive));
+    }
+
+    private static Camera createCamera() {
+        Camera camera = new Camera();
+        camera.setImageWidth(16);
+        camera.setBackground(new Triplet(0.7, 0.8, 1.0));
+        return camera;
+    }
+}
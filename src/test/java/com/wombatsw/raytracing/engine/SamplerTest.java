@@ -0,0 +1,101 @@
+package com.wombatsw.raytracing.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SamplerTest {
+    @Test
+    public void testRange() {
+        for (SamplerType type : SamplerType.values()) {
+            Sampler sampler = type.create(16);
+            for (int i = 0; i < 64; i++) {
+                sampler.startSample(3, 7, i);
+                for (int d = 0; d < 40; d++) {
+                    double value = sampler.get1D();
+                    assertTrue(value >= 0 && value < 1, type + " value out of range: " + value);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStratification() {
+        // Every power of two prefix of the 2D points of a pixel covers each cell of a matching grid exactly once
+        assertStratified(new SobolSampler(), 4, 2);
+        assertStratified(new SobolSampler(), 16, 4);
+        assertStratified(new StratifiedSampler(16), 16, 4);
+    }
+
+    @Test
+    public void testPairAfterSingleDimensions() {
+        // As in a path without defocus: the pixel offset and the ray time, then a scattering direction after any
+        // number of single decisions
+        for (int singleDimensions = 1; singleDimensions <= 4; singleDimensions++) {
+            assertPairStratified(new SobolSampler(), 16, 4, singleDimensions);
+            assertPairStratified(new StratifiedSampler(16), 16, 4, singleDimensions);
+        }
+    }
+
+    @Test
+    public void testDecorrelatedPixels() {
+        Sampler sampler = new SobolSampler();
+        sampler.startSample(0, 0, 0);
+        double a = sampler.get1D();
+        sampler.startSample(1, 0, 0);
+        double b = sampler.get1D();
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    public void testRadicalInverse() {
+        assertEquals(0, HaltonSampler.radicalInverse(2, 0));
+        assertEquals(0.5, HaltonSampler.radicalInverse(2, 1));
+        assertEquals(0.75, HaltonSampler.radicalInverse(2, 3));
+        assertEquals(1.0 / 9, HaltonSampler.radicalInverse(3, 3), 1e-15);
+    }
+
+    @Test
+    public void testPermute() {
+        Set<Integer> values = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            values.add(StratifiedSampler.permute(i, 10, 12345));
+        }
+        assertEquals(10, values.size());
+        assertTrue(values.stream().allMatch(v -> v >= 0 && v < 10));
+    }
+
+    private static void assertStratified(final Sampler sampler, final int samples, final int grid) {
+        for (int dimension = 0; dimension < 8; dimension += 2) {
+            Set<Integer> cells = new HashSet<>();
+            for (int i = 0; i < samples; i++) {
+                sampler.startSample(5, 9, i);
+                for (int d = 0; d < dimension; d++) {
+                    sampler.get1D();
+                }
+                int cx = (int) (sampler.get1D() * grid);
+                int cy = (int) (sampler.get1D() * grid);
+                cells.add(cy * grid + cx);
+            }
+            assertEquals(samples, cells.size(), "Dimensions " + dimension + " are not stratified");
+        }
+    }
+
+    private static void assertPairStratified(final Sampler sampler, final int samples, final int grid,
+                                             final int singleDimensions) {
+        Set<Integer> cells = new HashSet<>();
+        for (int i = 0; i < samples; i++) {
+            sampler.startSample(5, 9, i);
+            sampler.get2D();
+            for (int d = 0; d < singleDimensions; d++) {
+                sampler.get1D();
+            }
+            Sampler.Sample2D sample = sampler.get2D();
+            cells.add((int) (sample.v() * grid) * grid + (int) (sample.u() * grid));
+        }
+        assertEquals(samples, cells.size(), "Pair after " + singleDimensions + " dimensions is not stratified");
+    }
+}
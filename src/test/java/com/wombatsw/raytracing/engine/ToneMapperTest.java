@@ -0,0 +1,44 @@
+package com.wombatsw.raytracing.engine;
+
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToneMapperTest {
+    @Test
+    public void testClipping() {
+        // Without a curve, values above 1 are clipped
+        byte[] clipped = new ToneMapper().toBytes(createImage());
+        assertEquals((byte) (255 / 2), clipped[0]);
+        assertEquals((byte) 255, clipped[1]);
+        assertEquals((byte) 255, clipped[2]);
+    }
+
+    @Test
+    public void testCurves() {
+        // The curves keep the bright values apart
+        HDRImage image = createImage();
+        for (ToneMapping toneMapping : new ToneMapping[]{ToneMapping.REINHARD, ToneMapping.ACES}) {
+            byte[] mapped = new ToneMapper(toneMapping).toBytes(image);
+            assertTrue((mapped[1] & 0xff) < (mapped[2] & 0xff));
+            assertTrue((mapped[2] & 0xff) < (mapped[3] & 0xff));
+            assertEquals(0, mapped[5]);
+            assertEquals(0, mapped[8]);
+        }
+    }
+
+    @Test
+    public void testExposure() {
+        ToneMapper exposed = new ToneMapper();
+        exposed.setExposure(0.25);
+        assertEquals(new Triplet(0.0625, 0.25, 1), exposed.map(new Triplet(0.25, 1, 4)));
+    }
+
+    private static HDRImage createImage() {
+        HDRImage image = new HDRImage(3, 1);
+        image.setColor(0, 0, new Triplet(0.25, 1, 4), 1);
+        image.setColor(1, 0, new Triplet(100, 0, -1), 1);
+        return image;
+    }
+}
@@ -0,0 +1,75 @@
+package com.wombatsw.raytracing.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AffineTest {
+    private final Affine affine = new Affine().rotateY(30).rotateX(-20).translate(new Triplet(1, 2, 3));
+
+    @Test
+    public void testInvert() {
+        Triplet p = new Triplet(0.5, -2, 4);
+
+        assertClose(p, affine.invert(affine.apply(p, true), true));
+        assertClose(p, affine.invert(affine.apply(p, false), false));
+        assertClose(new Triplet(1, 2, 3), affine.apply(new Triplet(0, 0, 0), true));
+        assertClose(new Triplet(0, 0, 0), affine.apply(new Triplet(0, 0, 0), false));
+    }
+
+    @Test
+    public void testApplyInPlace() {
+        Triplet p = new Triplet(0.5, -2, 4);
+        Triplet expected = affine.apply(p, true);
+
+        assertSame(p, affine.apply(p, true, p));
+        assertClose(expected, p);
+    }
+
+    @Test
+    public void testSerialize() {
+        Affine copy = Affine.deserialize(affine.serialize());
+        Triplet p = new Triplet(0.5, -2, 4);
+
+        assertEquals(affine.serialize(), copy.serialize());
+        assertClose(affine.apply(p, true), copy.apply(p, true));
+        assertClose(affine.invert(p, true), copy.invert(p, true));
+        assertThrows(IllegalArgumentException.class, () -> Affine.deserialize("1,0,0,0"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Affine.deserialize("1,0,0,0,0,0,0,0,0,0,1,0,0,0,0,1"));
+    }
+
+    @Test
+    public void testNormalStaysPerpendicular() {
+        // A non-uniform scale and shear, where transforming the normal like a vector would tilt it
+        Affine scaled = Affine.deserialize("2,0.5,0,1,0,1,0,0,0,0,3,-1,0,0,0,1");
+        Triplet tangent = new Triplet(1, 1, 0);
+        Triplet normal = new Triplet(1, -1, 0.5);
+        assertEquals(0, tangent.dot(normal), 1e-12);
+
+        Triplet worldTangent = scaled.apply(tangent, false);
+        Triplet worldNormal = scaled.applyNormal(normal, Triplet.newZeroVector());
+        assertEquals(0, worldTangent.dot(worldNormal), 1e-12);
+        assertClose(normal, scaled.invert(scaled.apply(normal, true), true));
+    }
+
+    @Test
+    public void testInvertRay() {
+        Ray ray = new Ray(new Triplet(0.5, -2, 4), new Triplet(1, 2, -3), 0.25);
+        Ray scratch = new Ray(Triplet.newZeroVector(), new Triplet(0, 0, 1));
+
+        assertSame(scratch, affine.invert(ray, scratch));
+        assertClose(affine.invert(ray.origin(), true), scratch.origin());
+        assertClose(affine.invert(ray.direction(), false), scratch.direction());
+        assertEquals(0.25, scratch.time());
+        assertEquals(1 / scratch.direction().getX(), scratch.getInvX());
+        assertEquals(1 / scratch.direction().getZ(), scratch.getInvZ());
+        assertEquals(scratch.direction().getY() < 0 ? 1 : 0, scratch.getSignY());
+        assertThrows(IllegalStateException.class, () -> scratch.origin().set(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> affine.invert(scratch, scratch));
+    }
+
+    private static void assertClose(final Triplet expected, final Triplet actual) {
+        assertEquals(0, new Triplet(expected, actual).len(), 1e-12);
+    }
+}
@@ -0,0 +1,65 @@
+package com.wombatsw.raytracing.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundingBoxTest {
+    private final BoundingBox box = new BoundingBox(new Triplet(-1, -1, -1), new Triplet(1, 1, 1));
+
+    @Test
+    public void testIntersectHit() {
+        Ray ray = new Ray(new Triplet(-5, 0, 0), new Triplet(1, 0, 0));
+
+        assertEquals(4, box.intersect(ray, 0, Double.POSITIVE_INFINITY));
+        assertEquals(new Interval(4, 6), box.intersect(ray, new Interval(0, Double.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    public void testIntersectNegativeDirection() {
+        Ray ray = new Ray(new Triplet(0, 0, 5), new Triplet(0, 0, -2));
+
+        assertEquals(2, box.intersect(ray, 0, Double.POSITIVE_INFINITY));
+        assertEquals(new Interval(2, 3), box.intersect(ray, new Interval(0, Double.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    public void testIntersectFromInside() {
+        Ray ray = new Ray(new Triplet(0, 0, 0), new Triplet(1, 1, 0));
+
+        assertEquals(0.5, box.intersect(ray, 0.5, Double.POSITIVE_INFINITY));
+        assertEquals(new Interval(0.5, 1), box.intersect(ray, new Interval(0.5, Double.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    public void testIntersectMiss() {
+        Ray ray = new Ray(new Triplet(-5, 2, 0), new Triplet(1, 0, 0));
+
+        assertEquals(Double.POSITIVE_INFINITY, box.intersect(ray, 0, Double.POSITIVE_INFINITY));
+        assertNull(box.intersect(ray, new Interval(0, Double.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    public void testIntersectOutOfRange() {
+        Ray ray = new Ray(new Triplet(-5, 0, 0), new Triplet(1, 0, 0));
+
+        assertEquals(Double.POSITIVE_INFINITY, box.intersect(ray, 0, 3));
+        assertEquals(Double.POSITIVE_INFINITY, box.intersect(ray, 7, 10));
+    }
+
+    @Test
+    public void testTransformedBox() {
+        BoundingBox rotated = new BoundingBox(box, new Affine().rotateY(45));
+
+        double halfDiagonal = Math.sqrt(2);
+        assertEquals(halfDiagonal, rotated.axisInterval(0).max(), 1e-9);
+        assertEquals(-halfDiagonal, rotated.axisInterval(2).min(), 1e-9);
+        assertEquals(1, rotated.axisInterval(1).max(), 1e-9);
+    }
+
+    @Test
+    public void testSurfaceArea() {
+        assertEquals(24, box.surfaceArea());
+        assertEquals(0, new BoundingBox().surfaceArea());
+    }
+}
@@ -25,4 +25,16 @@ class RayTest {
         assertThrows(IllegalStateException.class, () -> ray.origin().mul(2));
         assertThrows(IllegalStateException.class, () -> ray.direction().mul(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testInverseDirection() {
+        Ray ray = new Ray(new Triplet(0, 0, 0), new Triplet(2, -4, 0));
+
+        assertEquals(0.5, ray.getInvX());
+        assertEquals(-0.25, ray.getInvY());
+        assertEquals(Double.POSITIVE_INFINITY, ray.getInvZ());
+        assertEquals(0, ray.getSignX());
+        assertEquals(1, ray.getSignY());
+        assertEquals(0, ray.getSignZ());
+    }
+}
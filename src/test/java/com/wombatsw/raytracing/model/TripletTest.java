@@ -50,6 +50,21 @@ class TripletTest {
         }
     }
 
+    @Test
+    public void sampledUnitVectorAndDisc() {
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 16; j++) {
+                double u1 = (i + 0.5) / 16;
+                double u2 = (j + 0.5) / 16;
+                assertEquals(1, Triplet.unitVector(u1, u2).lenSquared(), 1e-10);
+
+                Triplet p = Triplet.inUnitDisc(u1, u2);
+                assertEquals(0, p.getZ());
+                assertTrue(p.lenSquared() < 1);
+            }
+        }
+    }
+
     @Test
     public void randomOnHemisphere() {
         Triplet n = new Triplet(1, 0, 0);
@@ -63,6 +78,15 @@ class TripletTest {
         }
     }
 
+    @Test
+    public void testSet() {
+        Triplet v1 = createVector(1, 2, 3);
+
+        Triplet result = v1.set(-1, 0, 5);
+        assertSame(v1, result);
+        assertVectorEquals(-1, 0, 5, result);
+    }
+
     @Test
     public void testAdd() {
         Triplet v1 = createVector(1, 2, 3);
@@ -141,6 +165,16 @@ class TripletTest {
         assertEquals(v3orig, v3);
     }
 
+    @Test
+    public void testAddProduct() {
+        Triplet v1 = createVector(1, 2, 3);
+        Triplet v2 = createVector(-1, 1, -2);
+        Triplet v3 = createVector(2, 2, 2);
+
+        Triplet result = v1.addProduct(v2, v3);
+        assertVectorEquals(-1, 4, -1, result);
+    }
+
     @Test
     public void testNormalize() {
         Triplet v1 = createVector(1, 2, 3);
@@ -225,6 +259,13 @@ class TripletTest {
         assertEquals(3, len);
     }
 
+    @Test
+    public void testMaxComponent() {
+        assertEquals(3, createVector(1, 2, 3).maxComponent());
+        assertEquals(2, createVector(1, 2, -3).maxComponent());
+        assertEquals(1, createVector(1, -2, 0).maxComponent());
+    }
+
     @Test
     public void testNearZero() {
         Triplet v1 = createVector(1e-100, 1e-100, 1e-100);
@@ -0,0 +1,133 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BVHCacheTest {
+    private static final Material MATERIAL = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testHitMatchesBuild() {
+        BVHCache cache = createCache(Long.MAX_VALUE);
+        BVHBuilder builder = createBuilder(cache);
+        float[] positions = randomPositions(new Random(42), 3000);
+        int[] indices = sequence(3000);
+
+        TriangleMesh built = new TriangleMesh(positions, null, null, indices.clone(), MATERIAL, builder);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        TriangleMesh cached = new TriangleMesh(positions, null, null, indices.clone(), MATERIAL, builder);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertArrayEquals(built.getLeafIndices(), cached.getLeafIndices());
+        assertEquals(built.getLayout().getNodeCount(), cached.getLayout().getNodeCount());
+        assertEquals(built.getLayout().getSahCost(), cached.getLayout().getSahCost());
+
+        // The settings which change the hierarchy are part of the key
+        builder.setMaxLeafSize(2);
+        new TriangleMesh(positions, null, null, indices.clone(), MATERIAL, builder);
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException {
+        Random random = new Random(7);
+        BVHCache cache = createCache(Long.MAX_VALUE);
+        float[][] meshes = new float[3][];
+        for (int i = 0; i < meshes.length; i++) {
+            meshes[i] = randomPositions(random, 2000);
+            new TriangleMesh(meshes[i], null, null, sequence(2000), MATERIAL, createBuilder(cache));
+        }
+        long entrySize = cache.getSize() / meshes.length;
+
+        // Make the first mesh the most recently used, then fit only two entries
+        setAges(cache, 1000);
+        new TriangleMesh(meshes[0], null, null, sequence(2000), MATERIAL, createBuilder(cache));
+        BVHCache small = new BVHCache(cache.getDirectory(), entrySize * 2 + entrySize / 2);
+        new TriangleMesh(randomPositions(random, 2000), null, null, sequence(2000), MATERIAL, createBuilder(small));
+        assertTrue(small.getSize() <= small.getMaxSize());
+
+        new TriangleMesh(meshes[0], null, null, sequence(2000), MATERIAL, createBuilder(small));
+        new TriangleMesh(meshes[1], null, null, sequence(2000), MATERIAL, createBuilder(small));
+        assertEquals(1, small.getHits());
+        assertEquals(2, small.getMisses());
+    }
+
+    @Test
+    public void testInvalidEntryIsRebuilt() throws IOException {
+        BVHCache cache = createCache(Long.MAX_VALUE);
+        float[] positions = randomPositions(new Random(3), 2000);
+        new TriangleMesh(positions, null, null, sequence(2000), MATERIAL, createBuilder(cache));
+        for (Path path : listEntries(cache)) {
+            Files.write(path, new byte[]{1, 2, 3});
+        }
+
+        new TriangleMesh(positions, null, null, sequence(2000), MATERIAL, createBuilder(cache));
+        new TriangleMesh(positions, null, null, sequence(2000), MATERIAL, createBuilder(cache));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    private BVHCache createCache(final long maxSize) {
+        BVHCache cache = new BVHCache(tempDir, maxSize);
+        cache.setMinPrimitives(1);
+        return cache;
+    }
+
+    private static BVHBuilder createBuilder(final BVHCache cache) {
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        builder.setMaxLeafSize(4);
+        builder.setWidth(BVHWidth.QUAD);
+        builder.setCache(cache);
+        return builder;
+    }
+
+    /**
+     * Make every entry older than now, so that the entries used next are the most recent
+     */
+    private static void setAges(final BVHCache cache, final long ageMillis) throws IOException {
+        long time = System.currentTimeMillis() - ageMillis;
+        for (Path path : listEntries(cache)) {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(time--));
+        }
+    }
+
+    private static List<Path> listEntries(final BVHCache cache) throws IOException {
+        try (Stream<Path> paths = Files.list(cache.getDirectory())) {
+            return paths.toList();
+        }
+    }
+
+    private static float[] randomPositions(final Random random, final int triangleCount) {
+        float[] positions = new float[triangleCount * 9];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 10 - 5;
+        }
+        return positions;
+    }
+
+    private static int[] sequence(final int triangleCount) {
+        int[] indices = new int[triangleCount * 3];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+}
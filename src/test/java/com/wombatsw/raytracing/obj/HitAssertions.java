@@ -0,0 +1,151 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Intersection;
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks shared by the tests which compare an object against a reference made from the same primitives, such as a
+ * hierarchy against a brute force search. The rays and scenes come from a seeded {@link Random}, so a failure can be
+ * reproduced
+ */
+public final class HitAssertions {
+    public static final int RAY_COUNT = 2000;
+    public static final Interval RANGE = new Interval(EPSILON, Double.POSITIVE_INFINITY);
+
+    /**
+     * Checks that both hits have the same normal
+     */
+    public static final HitCheck SAME_NORMAL = (ray, expectedHit, actualHit) ->
+            assertEquals(0, new Triplet(expectedHit.getN(), actualHit.getN()).len(), 1e-9);
+
+    private static final long SEED = 42;
+    private static final HitCheck NO_CHECKS = (ray, expectedHit, actualHit) -> {
+    };
+
+    private HitAssertions() {
+    }
+
+    /**
+     * @return A new random number generator with the seed shared by the tests
+     */
+    public static Random newRandom() {
+        return new Random(SEED);
+    }
+
+    /**
+     * Get a random point in a cube
+     *
+     * @param random The random number generator
+     * @param min    The minimum of each coordinate
+     * @param max    The maximum of each coordinate
+     * @return The point
+     */
+    public static Triplet randomPoint(final Random random, final double min, final double max) {
+        return new Triplet(random.nextDouble(min, max), random.nextDouble(min, max), random.nextDouble(min, max));
+    }
+
+    /**
+     * Get a random ray from a point, in a direction uniformly distributed over the sphere and at a random time
+     *
+     * @param random The random number generator
+     * @param origin The origin of the ray
+     * @return The ray
+     */
+    public static Ray randomRay(final Random random, final Triplet origin) {
+        return new Ray(origin, Triplet.unitVector(random.nextDouble(), random.nextDouble()), random.nextDouble());
+    }
+
+    /**
+     * Verify that an object gives the same closest hits and occlusion as a reference, for random rays from a point
+     *
+     * @param expected The reference object
+     * @param actual   The object to check
+     * @param origin   The origin of the rays
+     */
+    public static void assertMatches(final AbstractObj expected, final AbstractObj actual, final Triplet origin) {
+        assertMatches(expected, actual, origin, NO_CHECKS);
+    }
+
+    /**
+     * Verify that an object gives the same closest hits and occlusion as a reference, for random rays from a point
+     *
+     * @param expected The reference object
+     * @param actual   The object to check
+     * @param origin   The origin of the rays
+     * @param checks   Further checks for each pair of hits
+     */
+    public static void assertMatches(final AbstractObj expected, final AbstractObj actual, final Triplet origin,
+                                     final HitCheck checks) {
+        assertMatches(expected, actual, random -> randomRay(random, origin), checks);
+    }
+
+    /**
+     * Verify that an object gives the same closest hits and occlusion as a reference
+     *
+     * @param expected The reference object
+     * @param actual   The object to check
+     * @param rays     Creates each ray from the random number generator
+     */
+    public static void assertMatches(final AbstractObj expected, final AbstractObj actual,
+                                     final Function<Random, Ray> rays) {
+        assertMatches(expected, actual, rays, NO_CHECKS);
+    }
+
+    /**
+     * Verify that an object gives the same closest hits and occlusion as a reference. The hits must be at the same
+     * location, nothing may occlude a ray before its hit, and some of the rays must hit
+     *
+     * @param expected The reference object
+     * @param actual   The object to check
+     * @param rays     Creates each ray from the random number generator
+     * @param checks   Further checks for each pair of hits
+     */
+    public static void assertMatches(final AbstractObj expected, final AbstractObj actual,
+                                     final Function<Random, Ray> rays, final HitCheck checks) {
+        Random random = newRandom();
+        int hits = 0;
+        for (int i = 0; i < RAY_COUNT; i++) {
+            Ray ray = rays.apply(random);
+
+            Intersection expectedHit = expected.intersect(ray, RANGE);
+            Intersection actualHit = actual.intersect(ray, RANGE);
+            assertEquals(expectedHit != null, expected.occluded(ray, RANGE));
+            assertEquals(expectedHit != null, actual.occluded(ray, RANGE));
+            if (expectedHit == null) {
+                assertNull(actualHit);
+                continue;
+            }
+
+            hits++;
+            assertNotNull(actualHit);
+            assertEquals(expectedHit.getT(), actualHit.getT(), 1e-9);
+
+            Interval beforeHit = new Interval(EPSILON, expectedHit.getT() * (1 - 1e-6));
+            assertFalse(expected.occluded(ray, beforeHit));
+            assertFalse(actual.occluded(ray, beforeHit));
+            checks.check(ray, expectedHit, actualHit);
+        }
+        assertTrue(hits > 0);
+    }
+
+    /**
+     * A check for a ray which hit both objects
+     */
+    @FunctionalInterface
+    public interface HitCheck {
+        /**
+         * @param ray         The ray
+         * @param expectedHit The hit with the reference object
+         * @param actualHit   The hit with the object being checked
+         */
+        void check(Ray ray, Intersection expectedHit, Intersection actualHit);
+    }
+}
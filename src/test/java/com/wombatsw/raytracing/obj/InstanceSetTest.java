@@ -0,0 +1,80 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.DiffuseLight;
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.model.Affine;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.wombatsw.raytracing.obj.HitAssertions.assertMatches;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceSetTest {
+    private static final Triplet ORIGIN = new Triplet(0, 0, 20);
+
+    @Test
+    public void testMatchesTransforms() {
+        Lambertian white = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+        AbstractObj box = Quad.createBox(new Triplet(-0.5, -0.5, -0.5), new Triplet(0.5, 0.5, 0.5), white);
+        Sphere sphere = new Sphere(new Triplet(0, 0, 0), 0.4, white);
+
+        List<Transform> transforms = createTransforms(HitAssertions.newRandom(), List.of(box, sphere), 300);
+        InstanceSet instanceSet = new InstanceSet(transforms);
+        assertEquals(300, instanceSet.getInstanceCount());
+        assertEquals(2, instanceSet.getGeometryCount());
+        assertMatches(new ObjectList(new ArrayList<>(transforms)), instanceSet, ORIGIN, HitAssertions.SAME_NORMAL);
+    }
+
+    @Test
+    public void testPlaceSharesGeometry() {
+        Lambertian white = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+        AbstractObj box = Quad.createBox(new Triplet(-0.5, -0.5, -0.5), new Triplet(0.5, 0.5, 0.5), white);
+        Random random = HitAssertions.newRandom();
+        InstanceSet instanceSet = new InstanceSet(createTransforms(random, List.of(box), 100));
+
+        List<Affine> affines = new ArrayList<>();
+        List<Transform> moved = new ArrayList<>();
+        for (int i = 0; i < instanceSet.getInstanceCount(); i++) {
+            Affine affine = randomAffine(random);
+            affines.add(affine);
+            moved.add(new Transform(box, affine));
+        }
+        InstanceSet placed = instanceSet.place(affines);
+
+        assertEquals(instanceSet.getGeometries(), placed.getGeometries());
+        assertSame(box, placed.getGeometries().get(0));
+        assertMatches(new ObjectList(new ArrayList<>(moved)), placed, ORIGIN, HitAssertions.SAME_NORMAL);
+        assertThrows(IllegalArgumentException.class, () -> instanceSet.place(affines.subList(0, 10)));
+    }
+
+    @Test
+    public void testCollectLights() {
+        DiffuseLight light = new DiffuseLight(new Triplet(4, 4, 4));
+        Sphere lamp = new Sphere(new Triplet(0, 0, 0), 0.5, light);
+        InstanceSet instanceSet = new InstanceSet(createTransforms(HitAssertions.newRandom(), List.of(lamp), 3));
+
+        LightList lights = LightList.collect(instanceSet);
+        assertEquals(3, lights.size());
+        assertSame(light, lights.choose(0).getMaterial());
+    }
+
+    /**
+     * Place copies of the objects at random positions and rotations, using the objects in turn
+     */
+    private static List<Transform> createTransforms(final Random random, final List<AbstractObj> objects,
+                                                    final int count) {
+        List<Transform> transforms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            transforms.add(new Transform(objects.get(i % objects.size()), randomAffine(random)));
+        }
+        return transforms;
+    }
+
+    private static Affine randomAffine(final Random random) {
+        return new Affine().rotateY(random.nextDouble(0, 360)).translate(HitAssertions.randomPoint(random, -8, 8));
+    }
+}
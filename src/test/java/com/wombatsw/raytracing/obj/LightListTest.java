@@ -0,0 +1,99 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.DiffuseLight;
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Affine;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.wombatsw.raytracing.Constants.RAY_RANGE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LightListTest {
+    private static final int SAMPLE_COUNT = 200_000;
+    private static final Material LIGHT = new DiffuseLight(new Triplet(4, 4, 4));
+    private static final Material WHITE = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+    private static final Triplet ORIGIN = new Triplet(0.2, -0.3, 0.1);
+
+    @Test
+    public void testCollect() {
+        AbstractObj quad = new Quad(new Triplet(-1, 2, -1), new Triplet(2, 0, 0), new Triplet(0, 0, 2), LIGHT);
+        AbstractObj sphere = new Sphere(new Triplet(0, 0, -3), 0.5, LIGHT);
+        ObjectList world = new ObjectList(quad, sphere, new Sphere(new Triplet(0, -10, 0), 9, WHITE),
+                new Transform(new Quad(new Triplet(0, 0, 0), new Triplet(1, 0, 0), new Triplet(0, 1, 0), LIGHT),
+                        new Affine().rotateY(30).translate(new Triplet(3, 0, 0))));
+
+        assertEquals(3, LightList.collect(world).size());
+        assertEquals(3, LightList.collect(new LinearBVH(world, SplitMethod.SAH)).size());
+        assertTrue(LightList.collect(new Sphere(new Triplet(0, 0, 0), 1, WHITE)).isEmpty());
+    }
+
+    @Test
+    public void testQuadDensity() {
+        assertDensity(new Quad(new Triplet(-1, 2, -1), new Triplet(2, 0, 0), new Triplet(0, 0, 2), LIGHT));
+    }
+
+    @Test
+    public void testSphereDensity() {
+        assertDensity(new Sphere(new Triplet(0, 0, -3), 0.5, LIGHT));
+    }
+
+    @Test
+    public void testTriangleDensity() {
+        assertDensity(new Triangle(new Triplet(-1, 1, -1), new Triplet(2, 1, 0), new Triplet(0, 2, 1), LIGHT));
+    }
+
+    @Test
+    public void testTransformDensity() {
+        AbstractObj quad = new Quad(new Triplet(0, 0, 0), new Triplet(1, 0, 0), new Triplet(0, 1, 0), LIGHT);
+        assertDensity(new Transform(quad, new Affine().rotateY(30).rotateX(20).translate(new Triplet(0.5, 0, -2))));
+    }
+
+    @Test
+    public void testScaledTransformDensity() {
+        // Scaled and sheared, so the transform changes solid angles
+        AbstractObj quad = new Quad(new Triplet(0, 0, 0), new Triplet(1, 0, 0), new Triplet(0, 1, 0), LIGHT);
+        assertDensity(new Transform(quad, Affine.deserialize("2,0.5,0,-0.5,0,1,0,0,0,0.3,1.5,-1,0,0,0,1")));
+
+        AbstractObj sphere = new Sphere(new Triplet(0, 0, 0), 0.5, LIGHT);
+        assertDensity(new Transform(sphere, Affine.deserialize("1.5,0,0,0,0,0.5,0.2,0,0,0,1,-1,0,0,0,1")));
+    }
+
+    @Test
+    public void testHiddenLight() {
+        AbstractObj near = new Quad(new Triplet(-1, 1, -1), new Triplet(2, 0, 0), new Triplet(0, 0, 2), LIGHT);
+        AbstractObj far = new Quad(new Triplet(-1, 2, -1), new Triplet(2, 0, 0), new Triplet(0, 0, 2), LIGHT);
+        LightList lights = new LightList(List.of(near, far));
+
+        Ray ray = new Ray(new Triplet(0, 0, 0), new Triplet(0, 1, 0));
+        assertEquals(near.pdfValue(ray, RAY_RANGE) / 2, lights.pdfValue(ray, 1), 1e-12);
+        assertEquals(far.pdfValue(ray, RAY_RANGE) / 2, lights.pdfValue(ray, 2), 1e-12);
+        assertEquals(0, lights.pdfValue(ray, 1.5));
+    }
+
+    /**
+     * Check that the sampled directions hit the light, and that the density integrates to 1 over the sphere of
+     * directions
+     */
+    private static void assertDensity(final AbstractObj light) {
+        assertSame(light, LightList.collect(light).choose(0.5));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            Ray ray = new Ray(ORIGIN, light.random(ORIGIN, 0, random.nextDouble(), random.nextDouble()));
+            assertTrue(light.pdfValue(ray, RAY_RANGE) > 0);
+        }
+
+        double sum = 0;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            Ray ray = new Ray(ORIGIN, Triplet.unitVector(random.nextDouble(), random.nextDouble()));
+            sum += light.pdfValue(ray, RAY_RANGE);
+        }
+        assertEquals(1, 4 * Math.PI * sum / SAMPLE_COUNT, 0.03);
+    }
+}
@@ -0,0 +1,137 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Affine;
+import com.wombatsw.raytracing.model.Triplet;
+import com.wombatsw.raytracing.scene.generators.CornellBoxScene;
+import com.wombatsw.raytracing.scene.generators.RandomSpheresScene;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.wombatsw.raytracing.obj.HitAssertions.assertMatches;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearBVHTest {
+    @Test
+    public void testRandomSpheresMatchesObjectList() {
+        ObjectList world = new ObjectList(getRandomSpheres());
+        assertMatches(world, new LinearBVH(world, SplitMethod.MEDIAN), new Triplet(13, 2, 3));
+        assertMatches(world, new LinearBVH(world, SplitMethod.SAH), new Triplet(13, 2, 3));
+    }
+
+    @Test
+    public void testParallelBuildMatchesObjectList() {
+        ObjectList world = new ObjectList(getRandomSpheres());
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        builder.setParallelThreshold(8);
+        builder.setMaxLeafSize(4);
+
+        assertMatches(world, new LinearBVH(world.getList(), builder), new Triplet(13, 2, 3));
+    }
+
+    @Test
+    public void testBuilderRejectsInvalidSizes() {
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        assertThrows(IllegalArgumentException.class, () -> builder.setBins(1));
+        assertThrows(IllegalArgumentException.class, () -> builder.setMaxLeafSize(0));
+        builder.setBins(2);
+        builder.setMaxLeafSize(1);
+
+        ObjectList world = new ObjectList(getRandomSpheres());
+        assertMatches(world, new LinearBVH(world.getList(), builder), new Triplet(13, 2, 3));
+    }
+
+    @Test
+    public void testBVHNodeMatchesObjectList() {
+        ObjectList world = new ObjectList(getRandomSpheres());
+        assertMatches(world, new BVHNode(world, SplitMethod.MEDIAN), new Triplet(13, 2, 3));
+        assertMatches(world, new BVHNode(world, SplitMethod.SAH), new Triplet(13, 2, 3));
+    }
+
+    @Test
+    public void testCornellBoxMatchesObjectList() {
+        ObjectList world = new CornellBoxScene().getWorld();
+        assertMatches(world, new LinearBVH(world, SplitMethod.SAH), new Triplet(278, 278, 200));
+    }
+
+    @Test
+    public void testQuadMatchesObjectList() {
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        builder.setWidth(BVHWidth.QUAD);
+        ObjectList spheres = new ObjectList(getRandomSpheres());
+        ObjectList cornellBox = new CornellBoxScene().getWorld();
+        assertMatches(spheres, new LinearBVH(spheres.getList(), builder), new Triplet(13, 2, 3));
+        assertMatches(cornellBox, new LinearBVH(cornellBox.getList(), builder),
+                new Triplet(278, 278, 200));
+
+        // A single leaf, and a tree with fewer than four children at the root
+        LinearBVH single = new LinearBVH(spheres.getList().subList(0, 1), builder);
+        assertEquals(1, single.getNodeCount());
+        assertMatches(new ObjectList(spheres.getList().subList(0, 1)), single, new Triplet(13, 2, 3));
+        LinearBVH small = new LinearBVH(cornellBox.getList().subList(0, 3), builder);
+        assertMatches(new ObjectList(cornellBox.getList().subList(0, 3)), small, new Triplet(278, 278, 200));
+    }
+
+    @Test
+    public void testQuadNodeCount() {
+        List<AbstractObj> spheres = getRandomSpheres();
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        LinearBVH binary = new LinearBVH(spheres, builder);
+        builder.setWidth(BVHWidth.QUAD);
+        LinearBVH quad = new LinearBVH(spheres, builder);
+
+        // Every interior node of the binary tree is collapsed into one with up to 4 children
+        int leaves = (binary.getNodeCount() + 1) / 2;
+        assertTrue(quad.getNodeCount() <= leaves - 1);
+        assertTrue(quad.getNodeCount() >= (leaves - 1) / 3);
+        assertTrue(quad.getSahCost() < binary.getSahCost());
+    }
+
+    @Test
+    public void testPrimitives() {
+        ObjectList world = new CornellBoxScene().getWorld();
+        LinearBVH bvh = new LinearBVH(world, SplitMethod.SAH);
+
+        assertEquals(world.getList().size(), bvh.getPrimitives().size());
+        assertTrue(bvh.getPrimitives().containsAll(world.getList()));
+    }
+
+    @Test
+    public void testNestedTransforms() {
+        Material material = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+        AbstractObj box = Quad.createBox(new Triplet(0, 0, 0), new Triplet(1, 2, 1), material);
+        AbstractObj inner = new Transform(box, new Affine().rotateY(30).translate(new Triplet(1, 0, 0)));
+        AbstractObj outer = new Transform(new ObjectList(inner, new Sphere(new Triplet(0, 0, 3), 0.5, material)),
+                new Affine().rotateX(20).translate(new Triplet(0, 1, -2)));
+        ObjectList objects = new ObjectList(outer, new Sphere(new Triplet(0, 0, -6), 1, material));
+        BVHBuilder builder = new BVHBuilder();
+        builder.setWidth(BVHWidth.QUAD);
+        AbstractObj quad = new LinearBVH(List.of(new Transform(new LinearBVH(List.of(inner,
+                new Sphere(new Triplet(0, 0, 3), 0.5, material)), builder),
+                new Affine().rotateX(20).translate(new Triplet(0, 1, -2))),
+                new Sphere(new Triplet(0, 0, -6), 1, material)), builder);
+
+        assertMatches(objects, quad, new Triplet(0.5, 1, 6), (ray, expected, actual) -> {
+            assertEquals(0, new Triplet(expected.getP(), ray.at(expected.getT())).len(), 1e-9);
+            assertEquals(1, expected.getN().len(), 1e-9);
+        });
+    }
+
+    /**
+     * @return The spheres of the random spheres scene, as separate objects
+     */
+    private List<AbstractObj> getRandomSpheres() {
+        List<AbstractObj> spheres = new ArrayList<>();
+        for (AbstractObj obj : new RandomSpheresScene().getWorld().getList()) {
+            if (obj instanceof SphereSet sphereSet) {
+                spheres.addAll(sphereSet.getSpheres());
+            } else {
+                spheres.add(obj);
+            }
+        }
+        return spheres;
+    }
+}
@@ -0,0 +1,68 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QBVHLayoutTest {
+    @Test
+    public void testSkipsLeavesBeyondClosestHit() {
+        // A row of spheres along the ray, each in its own leaf
+        List<Sphere> spheres = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            spheres.add(new Sphere(new Triplet(0, 0, -3 * i), 1, new Lambertian(new Triplet(0.5, 0.5, 0.5))));
+        }
+        BVHBuilder builder = new BVHBuilder(SplitMethod.SAH);
+        builder.setMaxLeafSize(1);
+        BVHBuilder.Result result = builder.build(spheres);
+        QBVHLayout layout = new QBVHLayout(result.root());
+        CountingLeaves leaves = new CountingLeaves(spheres, result.order());
+
+        Ray ray = new Ray(new Triplet(0, 0, 5), new Triplet(0, 0, -1));
+        HitRecord record = new HitRecord(Double.POSITIVE_INFINITY);
+        assertTrue(layout.hit(ray, 1e-8, record, leaves));
+        assertEquals(4, record.getT(), 1e-9);
+
+        // Every leaf box is on the ray, but only the nearest one starts before the closest hit
+        assertEquals(1, leaves.hitCalls);
+        assertEquals(0, TraversalStack.get().size());
+    }
+
+    /**
+     * Intersects spheres and counts the leaves visited
+     */
+    private static final class CountingLeaves implements BVHLayout.LeafIntersector {
+        private final Sphere[] primitives;
+        private int hitCalls;
+
+        private CountingLeaves(final List<Sphere> spheres, final int[] order) {
+            primitives = new Sphere[order.length];
+            for (int i = 0; i < order.length; i++) {
+                primitives[i] = spheres.get(order[i]);
+            }
+        }
+
+        @Override
+        public boolean hitLeaf(final int start, final int count, final Ray ray, final double tMin,
+                               final HitRecord record) {
+            hitCalls++;
+            boolean hit = false;
+            for (int i = start; i < start + count; i++) {
+                hit |= primitives[i].hit(ray, tMin, record);
+            }
+            return hit;
+        }
+
+        @Override
+        public boolean occludedLeaf(final int start, final int count, final Ray ray,
+                                    final double tMin, final double tMax) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.DiffuseLight;
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.wombatsw.raytracing.obj.HitAssertions.assertMatches;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SphereSetTest {
+    @Test
+    public void testMatchesSpheres() {
+        Random random = HitAssertions.newRandom();
+        List<Sphere> spheres = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Triplet center = HitAssertions.randomPoint(random, -5, 5);
+            double radius = random.nextDouble(0.1, 0.6);
+            Lambertian material = new Lambertian(HitAssertions.randomPoint(random, 0, 1));
+            if (i % 3 == 0) {
+                spheres.add(new Sphere(center, new Triplet(0, 0.5, 0).add(center), radius, material));
+            } else {
+                spheres.add(new Sphere(center, radius, material));
+            }
+        }
+        ObjectList world = new ObjectList(new ArrayList<>(spheres));
+        SphereSet sphereSet = new SphereSet(spheres);
+        assertEquals(spheres.size(), sphereSet.getSphereCount());
+
+        assertMatches(world, sphereSet, new Triplet(0, 0, 12), (ray, expected, actual) -> {
+            HitAssertions.SAME_NORMAL.check(ray, expected, actual);
+            assertEquals(expected.getU(), actual.getU(), 1e-9);
+            assertEquals(expected.getV(), actual.getV(), 1e-9);
+            assertSame(expected.getMaterial(), actual.getMaterial());
+        });
+    }
+
+    @Test
+    public void testCollectLights() {
+        DiffuseLight light = new DiffuseLight(new Triplet(4, 4, 4));
+        Lambertian white = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+        SphereSet sphereSet = new SphereSet(List.of(new Sphere(new Triplet(0, 0, 0), 1, white),
+                new Sphere(new Triplet(3, 0, 0), 0.5, light),
+                new Sphere(new Triplet(-3, 0, 0), 0.5, white)));
+
+        LightList lights = LightList.collect(sphereSet);
+        assertEquals(1, lights.size());
+        assertSame(light, lights.choose(0).getMaterial());
+    }
+}
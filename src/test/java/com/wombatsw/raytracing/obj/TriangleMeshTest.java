@@ -0,0 +1,110 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Intersection;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.wombatsw.raytracing.obj.HitAssertions.RANGE;
+import static com.wombatsw.raytracing.obj.HitAssertions.assertMatches;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TriangleMeshTest {
+    private static final Material MATERIAL = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+
+    @Test
+    public void testTriangle() {
+        Triangle triangle = new Triangle(new Triplet(0, 0, 0), new Triplet(1, 0, 0), new Triplet(0, 1, 0),
+                MATERIAL);
+
+        Intersection hit = triangle.intersect(new Ray(new Triplet(0.25, 0.5, 1), new Triplet(0, 0, -1)), RANGE);
+        assertNotNull(hit);
+        assertEquals(1, hit.getT(), 1e-9);
+        assertEquals(0.25, hit.getU(), 1e-9);
+        assertEquals(0.5, hit.getV(), 1e-9);
+        assertEquals(new Triplet(0, 0, 1), hit.getN());
+        assertTrue(hit.isFrontFace());
+
+        assertNull(triangle.intersect(new Ray(new Triplet(0.75, 0.5, 1), new Triplet(0, 0, -1)), RANGE));
+        assertNull(triangle.intersect(new Ray(new Triplet(0.25, 0.5, 1), new Triplet(1, 0, 0)), RANGE));
+    }
+
+    @Test
+    public void testMeshMatchesTriangles() {
+        Random random = HitAssertions.newRandom();
+        int vertexCount = 300;
+        int triangleCount = 500;
+
+        float[] positions = new float[vertexCount * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 10 - 5;
+        }
+        int[] indices = new int[triangleCount * 3];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(vertexCount);
+        }
+
+        List<AbstractObj> triangles = new ArrayList<>();
+        for (int tri = 0; tri < triangleCount; tri++) {
+            triangles.add(new Triangle(vertex(positions, indices[tri * 3]), vertex(positions, indices[tri * 3 + 1]),
+                    vertex(positions, indices[tri * 3 + 2]), MATERIAL));
+        }
+        ObjectList world = new ObjectList(triangles);
+        TriangleMesh mesh = new TriangleMesh(positions, null, null, indices, MATERIAL);
+
+        assertEquals(triangleCount, mesh.getTriangleCount());
+        assertMatches(world, mesh,
+                generator -> HitAssertions.randomRay(generator, HitAssertions.randomPoint(generator, -8, 8)),
+                (ray, expected, actual) -> assertEquals(1, expected.getN().dot(actual.getN()), 1e-9));
+    }
+
+    @Test
+    public void testInterpolatedAttributes() {
+        float[] positions = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+        float[] normals = {0, 0, 1, 1, 0, 0, 0, 0, 1};
+        float[] uvs = {0, 0, 1, 0, 1, 1};
+        TriangleMesh mesh = new TriangleMesh(positions, normals, uvs, new int[]{0, 1, 2}, MATERIAL);
+
+        Intersection hit = mesh.intersect(new Ray(new Triplet(0.5, 0.25, 1), new Triplet(0, 0, -1)), RANGE);
+        assertNotNull(hit);
+        assertEquals(0.75, hit.getU(), 1e-6);
+        assertEquals(0.25, hit.getV(), 1e-6);
+        assertEquals(1, new Triplet(1, 0, 1).normalize().dot(hit.getN()), 1e-6);
+    }
+
+    @Test
+    public void testTinyTriangle() {
+        // Every ray has a determinant far below EPSILON for this triangle
+        float[] positions = {0, 0, 0, 1e-5f, 0, 0, 0, 1e-5f, 0};
+        Triangle triangle = new Triangle(vertex(positions, 0), vertex(positions, 1), vertex(positions, 2), MATERIAL);
+        TriangleMesh mesh = new TriangleMesh(positions, null, null, new int[]{0, 1, 2}, MATERIAL);
+
+        Ray ray = new Ray(new Triplet(2.5e-6, 5e-6, 1), new Triplet(0, 0, -1));
+        for (AbstractObj obj : List.of(triangle, mesh)) {
+            Intersection hit = obj.intersect(ray, RANGE);
+            assertNotNull(hit);
+            assertEquals(1, hit.getT(), 1e-9);
+            assertTrue(obj.occluded(ray, RANGE));
+            assertNull(obj.intersect(new Ray(new Triplet(1e-5, 1e-5, 1), new Triplet(0, 0, -1)), RANGE));
+        }
+    }
+
+    @Test
+    public void testInvalidIndices() {
+        float[] positions = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(positions, null, null, new int[]{0, 1, 3}, MATERIAL));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(positions, null, null, new int[]{0, 1}, MATERIAL));
+    }
+
+    private static Triplet vertex(final float[] positions, final int index) {
+        return new Triplet(positions[index * 3], positions[index * 3 + 1], positions[index * 3 + 2]);
+    }
+}
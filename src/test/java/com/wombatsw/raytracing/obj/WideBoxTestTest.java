@@ -0,0 +1,82 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.engine.MathUtils;
+import com.wombatsw.raytracing.model.BoundingBox;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+import static java.lang.Double.POSITIVE_INFINITY;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WideBoxTestTest {
+    private static final int GROUP_COUNT = 200;
+    private static final int RAY_COUNT = 200;
+
+    @Test
+    public void testVectorModuleEnabled() {
+        // The module is enabled for the tests, so that the vector test is checked too
+        assertTrue(WideBoxTest.isVectorAvailable());
+        assertEquals(BoxTestMode.VECTOR, WideBoxTest.create(BoxTestMode.VECTOR).getMode());
+        assertEquals(BoxTestMode.SCALAR, WideBoxTest.create(BoxTestMode.SCALAR).getMode());
+    }
+
+    @Test
+    public void testScalarMatchesBoundingBox() {
+        assertMatchesBoundingBox(WideBoxTest.create(BoxTestMode.SCALAR));
+    }
+
+    @Test
+    public void testVectorMatchesBoundingBox() {
+        assertMatchesBoundingBox(WideBoxTest.create(BoxTestMode.VECTOR));
+    }
+
+    /**
+     * Verify that each box of a group gives the same result as the single box test, including axis aligned rays
+     * and empty boxes
+     */
+    private void assertMatchesBoundingBox(final WideBoxTest boxTest) {
+        double[] bounds = new double[GROUP_COUNT * WideBoxTest.WIDTH * 6];
+        double[] groups = new double[GROUP_COUNT * WideBoxTest.STRIDE];
+        for (int i = 0; i < GROUP_COUNT * WideBoxTest.WIDTH; i++) {
+            Triplet a = Triplet.random(-5, 5);
+            Triplet b = Triplet.random(-5, 5);
+            BoundingBox box = new BoundingBox(a, b);
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[i * 6 + axis] = box.axisInterval(axis).min();
+                bounds[i * 6 + 3 + axis] = box.axisInterval(axis).max();
+            }
+            int group = i / WideBoxTest.WIDTH;
+            int lane = i % WideBoxTest.WIDTH;
+            if (group % 10 == 9 && lane == 3) {
+                WideBoxTest.setEmpty(groups, group * WideBoxTest.STRIDE, lane);
+            } else {
+                WideBoxTest.setBox(groups, group * WideBoxTest.STRIDE, lane, bounds, i * 6);
+            }
+        }
+
+        double[] tNear = new double[WideBoxTest.WIDTH];
+        int hits = 0;
+        for (int r = 0; r < RAY_COUNT; r++) {
+            Triplet direction = r % 20 == 0 ? new Triplet(0, 0, -1) : Triplet.randomUnitVector();
+            Ray ray = new Ray(new Triplet(0, 0, 10).add(Triplet.random(-2, 2)), direction);
+            double tMax = MathUtils.randomDouble(5, 20);
+
+            for (int group = 0; group < GROUP_COUNT; group++) {
+                int mask = boxTest.intersect(groups, group * WideBoxTest.STRIDE, ray, EPSILON, tMax, tNear);
+                for (int lane = 0; lane < WideBoxTest.WIDTH; lane++) {
+                    int i = group * WideBoxTest.WIDTH + lane;
+                    double expected = group % 10 == 9 && lane == 3 ? POSITIVE_INFINITY
+                            : BoundingBox.intersect(bounds, i * 6, ray, EPSILON, tMax);
+                    assertEquals(expected, tNear[lane]);
+                    assertEquals(expected != POSITIVE_INFINITY, (mask & (1 << lane)) != 0);
+                    if (expected != POSITIVE_INFINITY) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        assertTrue(hits > 0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.wombatsw.raytracing.obj;
+
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WideSphereTestTest {
+    private static final int SPHERE_COUNT = 60;
+
+    @Test
+    public void testModes() {
+        assertEquals(BoxTestMode.VECTOR, WideSphereTest.create(BoxTestMode.VECTOR).getMode());
+        assertEquals(BoxTestMode.SCALAR, WideSphereTest.create(BoxTestMode.SCALAR).getMode());
+    }
+
+    @Test
+    public void testScalarMatchesSpheres() {
+        assertMatchesSpheres(WideSphereTest.create(BoxTestMode.SCALAR), false);
+        assertMatchesSpheres(WideSphereTest.create(BoxTestMode.SCALAR), true);
+    }
+
+    @Test
+    public void testVectorMatchesSpheres() {
+        assertMatchesSpheres(WideSphereTest.create(BoxTestMode.VECTOR), false);
+        assertMatchesSpheres(WideSphereTest.create(BoxTestMode.VECTOR), true);
+    }
+
+    @Test
+    public void testEqualDistances() {
+        // Two copies of each sphere, so that the lowest index must be chosen in both the vector and scalar parts
+        Sphere sphere = new Sphere(new Triplet(0, 0, 0), 1, null);
+        SphereSet sphereSet = new SphereSet(List.of(sphere, sphere, sphere, sphere, sphere, sphere));
+        Ray ray = new Ray(new Triplet(0, 0, 5), new Triplet(0, 0, -1));
+        for (BoxTestMode mode : BoxTestMode.values()) {
+            WideSphereTest sphereTest = WideSphereTest.create(mode);
+            for (int start = 0; start < 6; start++) {
+                assertEquals(start, sphereTest.intersect(sphereSet.getArrays(), start, 6 - start, ray, EPSILON,
+                        Double.POSITIVE_INFINITY));
+            }
+        }
+    }
+
+    /**
+     * Verify that the closest hit for each range of spheres, including ranges shorter than a vector and ranges
+     * with a scalar remainder, is the same as testing each {@link Sphere}
+     */
+    private void assertMatchesSpheres(final WideSphereTest sphereTest, final boolean moving) {
+        Random random = HitAssertions.newRandom();
+        List<Sphere> spheres = new ArrayList<>();
+        for (int i = 0; i < SPHERE_COUNT; i++) {
+            Triplet center = HitAssertions.randomPoint(random, -3, 3);
+            double radius = random.nextDouble(0.2, 1);
+            if (moving) {
+                spheres.add(new Sphere(center, HitAssertions.randomPoint(random, -1, 1).add(center), radius, null));
+            } else {
+                spheres.add(new Sphere(center, radius, null));
+            }
+        }
+        SphereSet sphereSet = new SphereSet(spheres);
+        double[][] arrays = sphereSet.getArrays();
+        List<Sphere> ordered = sphereSet.getSpheres();
+
+        int hits = 0;
+        for (int r = 0; r < HitAssertions.RAY_COUNT; r++) {
+            Ray ray = HitAssertions.randomRay(random, HitAssertions.randomPoint(random, -4, 4));
+            double tMax = random.nextDouble(1, 10);
+            int start = random.nextInt(SPHERE_COUNT);
+            int count = random.nextInt(1 + Math.min(11, SPHERE_COUNT - start));
+
+            HitRecord expected = new HitRecord(tMax);
+            int expectedIndex = -1;
+            for (int i = start; i < start + count; i++) {
+                if (ordered.get(i).hit(ray, EPSILON, expected)) {
+                    expectedIndex = i;
+                }
+            }
+
+            int index = sphereTest.intersect(arrays, start, count, ray, EPSILON, tMax);
+            assertEquals(expectedIndex, index);
+            if (index >= 0) {
+                hits++;
+                assertEquals(expected.getT(), WideSphereTest.distance(arrays, index, ray, EPSILON), 1e-9);
+            }
+        }
+        assertTrue(hits > 0);
+    }
+}
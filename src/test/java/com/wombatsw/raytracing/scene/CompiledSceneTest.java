@@ -0,0 +1,136 @@
+package com.wombatsw.raytracing.scene;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Affine;
+import com.wombatsw.raytracing.model.Triplet;
+import com.wombatsw.raytracing.obj.AbstractObj;
+import com.wombatsw.raytracing.obj.HitAssertions;
+import com.wombatsw.raytracing.obj.LinearBVH;
+import com.wombatsw.raytracing.obj.ObjectList;
+import com.wombatsw.raytracing.obj.Sphere;
+import com.wombatsw.raytracing.obj.SphereSet;
+import com.wombatsw.raytracing.obj.SplitMethod;
+import com.wombatsw.raytracing.obj.Transform;
+import com.wombatsw.raytracing.obj.TriangleMesh;
+import com.wombatsw.raytracing.scene.generators.CornellBoxScene;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledSceneTest {
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testCornellBox() {
+        Scene scene = new CornellBoxScene();
+        Scene compiled = writeAndRead(scene);
+
+        assertEquals(1, compiled.getWorld().getList().size());
+        assertInstanceOf(LinearBVH.class, compiled.getWorld().getList().get(0));
+        assertEquals(scene.getCamera().getCameraCenter(), compiled.getCamera().getCameraCenter());
+        assertMatches(scene.getWorld(), compiled.getWorld(), new Triplet(278, 278, 200));
+    }
+
+    @Test
+    public void testMeshesAndSpheres() {
+        Random random = HitAssertions.newRandom();
+        Material white = new Lambertian(new Triplet(0.73, 0.73, 0.73));
+        TriangleMesh mesh = createMesh(random, white);
+
+        List<Sphere> spheres = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Triplet center = HitAssertions.randomPoint(random, -5, 5);
+            Material material = i % 2 == 0 ? white : new Lambertian(HitAssertions.randomPoint(random, 0, 1));
+            if (i % 3 == 0) {
+                spheres.add(new Sphere(center, new Triplet(0, 0.5, 0).add(center), 0.3, material));
+            } else {
+                spheres.add(new Sphere(center, 0.3, material));
+            }
+        }
+
+        List<AbstractObj> world = List.of(mesh, new SphereSet(spheres),
+                new Transform(mesh, new Affine().rotateY(40).translate(new Triplet(0, 0, -4))));
+        Scene scene = new SceneFile(new CornellBoxScene().getCamera(), world);
+        Scene compiled = writeAndRead(scene);
+
+        assertMatches(scene.getWorld(), compiled.getWorld(), new Triplet(0, 0, 12));
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        File file = tempDir.resolve("invalid" + CompiledSceneWriter.EXTENSION).toFile();
+        Files.writeString(file.toPath(), "camera:\n  imageWidth: 400\n".repeat(10));
+
+        assertThrows(IllegalArgumentException.class, () -> new CompiledSceneReader().read(file));
+    }
+
+    private Scene writeAndRead(final Scene scene) {
+        File file = tempDir.resolve("scene" + CompiledSceneWriter.EXTENSION).toFile();
+        new CompiledSceneWriter().write(file, scene);
+        return new CompiledSceneReader().read(file);
+    }
+
+    /**
+     * A bumpy sphere with normals and texture coordinates
+     */
+    private static TriangleMesh createMesh(final Random random, final Material material) {
+        int rows = 20;
+        int columns = 40;
+        float[] positions = new float[(rows + 1) * (columns + 1) * 3];
+        float[] normals = new float[positions.length];
+        float[] uvs = new float[(rows + 1) * (columns + 1) * 2];
+        for (int i = 0; i <= rows; i++) {
+            for (int j = 0; j <= columns; j++) {
+                int vertex = i * (columns + 1) + j;
+                double theta = Math.PI * i / rows;
+                double phi = 2 * Math.PI * j / columns;
+                double radius = 2 + 0.2 * random.nextDouble();
+                Triplet n = new Triplet(Math.sin(theta) * Math.cos(phi), Math.cos(theta),
+                        Math.sin(theta) * Math.sin(phi));
+                for (int axis = 0; axis < 3; axis++) {
+                    positions[vertex * 3 + axis] = (float) (radius * n.getValue(axis));
+                    normals[vertex * 3 + axis] = (float) n.getValue(axis);
+                }
+                uvs[vertex * 2] = (float) j / columns;
+                uvs[vertex * 2 + 1] = (float) i / rows;
+            }
+        }
+
+        int[] indices = new int[rows * columns * 6];
+        int index = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                int v0 = i * (columns + 1) + j;
+                int v1 = v0 + columns + 1;
+                for (int v : new int[]{v0, v1, v0 + 1, v0 + 1, v1, v1 + 1}) {
+                    indices[index++] = v;
+                }
+            }
+        }
+        return new TriangleMesh(positions, normals, uvs, indices, material);
+    }
+
+    /**
+     * Verify that the compiled world gives the same closest hits as the original world
+     */
+    private static void assertMatches(final ObjectList world, final ObjectList compiled, final Triplet origin) {
+        HitAssertions.assertMatches(new LinearBVH(world, SplitMethod.SAH), compiled, origin,
+                (ray, expected, actual) -> {
+                    HitAssertions.SAME_NORMAL.check(ray, expected, actual);
+                    assertEquals(expected.getU(), actual.getU(), 1e-9);
+                    assertEquals(expected.getV(), actual.getV(), 1e-9);
+                    assertEquals(expected.getMaterial().getClass(), actual.getMaterial().getClass());
+                });
+    }
+}
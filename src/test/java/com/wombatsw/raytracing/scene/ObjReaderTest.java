@@ -0,0 +1,111 @@
+package com.wombatsw.raytracing.scene;
+
+import com.wombatsw.raytracing.material.Lambertian;
+import com.wombatsw.raytracing.material.Material;
+import com.wombatsw.raytracing.model.Intersection;
+import com.wombatsw.raytracing.model.Interval;
+import com.wombatsw.raytracing.model.Ray;
+import com.wombatsw.raytracing.model.Triplet;
+import com.wombatsw.raytracing.obj.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.wombatsw.raytracing.Constants.EPSILON;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjReaderTest {
+    private static final Interval RANGE = new Interval(EPSILON, Double.POSITIVE_INFINITY);
+    private static final Material MATERIAL = new Lambertian(new Triplet(0.5, 0.5, 0.5));
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testQuadWithAttributes() throws IOException {
+        String obj = """
+                # A unit quad in the z = 0 plane
+                o quad
+                v 0 0 0
+                v 1.0 0 0
+                v 1 1e0 0
+                v 0.0 +1 -0.0
+                vt 0 0
+                vt 1 0
+                vt 1 1
+                vt 0 1
+                vn 0 0 1
+                usemtl none
+                f 1/1/1 2/2/1 3/3/1 4/4/1
+                """;
+        TriangleMesh mesh = new ObjReader().read(write(obj), MATERIAL);
+
+        assertEquals(2, mesh.getTriangleCount());
+        assertEquals(4, mesh.getVertexCount());
+
+        Intersection hit = mesh.intersect(new Ray(new Triplet(0.25, 0.75, 2), new Triplet(0, 0, -1)), RANGE);
+        assertNotNull(hit);
+        assertEquals(2, hit.getT(), 1e-9);
+        assertEquals(0.25, hit.getU(), 1e-6);
+        assertEquals(0.75, hit.getV(), 1e-6);
+        assertEquals(1, hit.getN().getZ(), 1e-9);
+    }
+
+    @Test
+    public void testRelativeIndicesAcrossChunks() throws IOException {
+        StringBuilder obj = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            obj.append("v ").append(i).append(" 0 0\r\n");
+            obj.append("v ").append(i).append(" 1 0\r\n");
+            obj.append("v ").append(i + 0.5).append(" 0.5 1.25e-1\r\n");
+            obj.append("f -3 -2 -1\r\n");
+        }
+        String filename = write(obj.toString());
+
+        ObjReader chunked = new ObjReader();
+        chunked.setChunkSize(64);
+        TriangleMesh expected = new ObjReader().read(filename, MATERIAL);
+        TriangleMesh actual = chunked.read(filename, MATERIAL);
+
+        assertEquals(200, actual.getTriangleCount());
+        assertArrayEquals(expected.getPositions(), actual.getPositions());
+        assertArrayEquals(expected.getIndices(), actual.getIndices());
+        assertEquals(0.125f, actual.getPositions()[8]);
+        assertNull(actual.getNormals());
+        assertNull(actual.getUvs());
+    }
+
+    @Test
+    public void testMissingVertex() throws IOException {
+        String filename = write("v 0 0 0\nv 1 0 0\nf 1 2 3\n");
+        assertThrows(IllegalArgumentException.class, () -> new ObjReader().read(filename, MATERIAL));
+    }
+
+    @Test
+    public void testSceneReference() throws IOException {
+        String filename = write("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+        String yaml = """
+                camera:
+                  cameraCenter: [ 0, 0, 12 ]
+                materials:
+                  grey: { Lambertian: { albedo: [ 0.5, 0.5, 0.5 ] } }
+                world:
+                  - Mesh: { filename: "%s", material: grey }
+                """.formatted(filename);
+        Scene scene = new SceneReader().read(new StringReader(yaml));
+
+        TriangleMesh mesh = (TriangleMesh) scene.getWorld().getList().get(0);
+        assertEquals(1, mesh.getTriangleCount());
+        assertEquals(filename, mesh.getFilename());
+    }
+
+    private String write(final String contents) throws IOException {
+        Path file = Files.createTempFile(tempDir, "mesh", ".obj");
+        Files.writeString(file, contents);
+        return file.toString();
+    }
+}